@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.abs;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+import com.gkatzioura.maven.cloud.retry.RetryClassifier;
+import com.microsoft.azure.storage.StorageException;
+
+/**
+ * ServerBusy responses and 429 are throttles, other 5xx responses and network errors are transient.
+ */
+public class AzureRetryClassifier implements RetryClassifier {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    @Override
+    public Outcome classify(Exception exception) {
+        if (!(exception instanceof StorageException)) {
+            return Outcome.FATAL;
+        }
+
+        StorageException storageException = (StorageException) exception;
+        int statusCode = storageException.getHttpStatusCode();
+
+        if (statusCode == HttpURLConnection.HTTP_UNAVAILABLE || statusCode == TOO_MANY_REQUESTS) {
+            return Outcome.THROTTLED;
+        }
+        if (statusCode == HttpURLConnection.HTTP_INTERNAL_ERROR || statusCode == HttpURLConnection.HTTP_BAD_GATEWAY || statusCode == HttpURLConnection.HTTP_GATEWAY_TIMEOUT) {
+            return Outcome.TRANSIENT;
+        }
+
+        //the client reports network failures as storage exceptions caused by an IOException
+        Throwable cause = storageException.getCause();
+        if (cause instanceof IOException && !(cause instanceof FileNotFoundException)) {
+            return Outcome.TRANSIENT;
+        }
+        return Outcome.FATAL;
+    }
+
+}
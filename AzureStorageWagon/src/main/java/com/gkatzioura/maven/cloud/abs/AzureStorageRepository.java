@@ -19,77 +19,207 @@ package com.gkatzioura.maven.cloud.abs;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
 import java.security.InvalidKeyException;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
 import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
 
+import com.gkatzioura.maven.cloud.cache.MetadataCache;
+import com.gkatzioura.maven.cloud.cache.MetadataCacheProperty;
+import com.gkatzioura.maven.cloud.cache.NegativeLookupCache;
+import com.gkatzioura.maven.cloud.cache.CachedFile;
+import com.gkatzioura.maven.cloud.cache.DownloadCache;
+import com.gkatzioura.maven.cloud.cache.ResourceMetadata;
+import com.gkatzioura.maven.cloud.compress.CompressibleContentTypeResolver;
+import com.gkatzioura.maven.cloud.compress.CompressionProperty;
+import com.gkatzioura.maven.cloud.compress.GzipContentEncoding;
+import com.gkatzioura.maven.cloud.index.KeyIndex;
+import com.gkatzioura.maven.cloud.index.PublishedKeyIndex;
+import com.gkatzioura.maven.cloud.retry.AdaptiveRateLimiter;
+import com.gkatzioura.maven.cloud.retry.RetryPolicy;
+import com.gkatzioura.maven.cloud.retry.RetryProperty;
+import com.gkatzioura.maven.cloud.transfer.DigestingInputStream;
+import com.gkatzioura.maven.cloud.transfer.MappedUploadProperty;
+import com.gkatzioura.maven.cloud.transfer.ResumableDownload;
+import com.gkatzioura.maven.cloud.transfer.ResumableDownloadProperty;
+import com.gkatzioura.maven.cloud.transfer.TransferDigests;
 import com.gkatzioura.maven.cloud.transfer.TransferProgress;
-import com.gkatzioura.maven.cloud.transfer.TransferProgressFileInputStream;
-import com.gkatzioura.maven.cloud.transfer.TransferProgressFileOutputStream;
+import com.gkatzioura.maven.cloud.transfer.UploadStreamFactory;
+import com.microsoft.azure.storage.AccessCondition;
 import com.microsoft.azure.storage.CloudStorageAccount;
+import com.microsoft.azure.storage.RetryNoRetry;
 import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlobRequestOptions;
 import com.microsoft.azure.storage.blob.CloudBlob;
+import com.microsoft.azure.storage.blob.CloudBlobClient;
 import com.microsoft.azure.storage.blob.CloudBlobContainer;
+import com.microsoft.azure.storage.blob.CloudBlobDirectory;
 import com.microsoft.azure.storage.blob.CloudBlockBlob;
 import com.microsoft.azure.storage.blob.ListBlobItem;
 
 import static com.gkatzioura.maven.cloud.abs.ContentTypeResolver.getContentType;
 
-public class AzureStorageRepository {
+public class AzureStorageRepository implements PublishedKeyIndex {
 
     private final String container;
     private final ConnectionStringFactory connectionStringFactory;
+    private final MetadataCacheProperty metadataCacheProperty;
+    private final MetadataCache metadataCache = MetadataCache.getInstance();
+    private final DownloadCache downloadCache = DownloadCache.create();
+    private final NegativeLookupCache negativeLookupCache = NegativeLookupCache.getInstance();
+    private final ResumableDownloadProperty resumableDownloadProperty = ResumableDownloadProperty.empty();
+    private final MappedUploadProperty mappedUploadProperty = MappedUploadProperty.empty();
+    private final UploadStreamFactory uploadStreamFactory = new UploadStreamFactory(mappedUploadProperty);
+    private final CompressionProperty compressionProperty = CompressionProperty.empty();
+    private RetryPolicy retryPolicy;
     private CloudBlobContainer blobContainer;
 
     private static final Logger LOGGER = Logger.getLogger(AzureStorageRepository.class.getName());
 
     public AzureStorageRepository(String directory) {
+        this(directory, new MetadataCacheProperty(null));
+    }
+
+    public AzureStorageRepository(String directory, MetadataCacheProperty metadataCacheProperty) {
         this.connectionStringFactory = new ConnectionStringFactory();
         this.container = directory;
+        this.metadataCacheProperty = metadataCacheProperty;
     }
 
     public void connect(AuthenticationInfo authenticationInfo) throws AuthenticationException {
 
         String connectionString = connectionStringFactory.create(authenticationInfo);
         try {
-            CloudStorageAccount cloudStorageAccount = CloudStorageAccount.parse(connectionString);
-            blobContainer = cloudStorageAccount.createCloudBlobClient().getContainerReference(container);
-            blobContainer.getMetadata();
-        } catch (URISyntaxException |InvalidKeyException |StorageException e) {
+            connect(CloudStorageAccount.parse(connectionString));
+        } catch (URISyntaxException |InvalidKeyException e) {
+            throw new AuthenticationException("Provide valid credentials");
+        }
+    }
+
+    /**
+     * The client issues every request once, they are retried through the retry policy of the repository instead
+     */
+    public void connect(CloudStorageAccount cloudStorageAccount) throws AuthenticationException {
+        try {
+            CloudBlobClient cloudBlobClient = cloudStorageAccount.createCloudBlobClient();
+            cloudBlobClient.getDefaultRequestOptions().setRetryPolicyFactory(new RetryNoRetry());
+            blobContainer = cloudBlobClient.getContainerReference(container);
+            retryPolicy = new RetryPolicy(RetryProperty.empty(), new AzureRetryClassifier(), AdaptiveRateLimiter.forRepository(repositoryId()));
+            retryPolicy.execute("Metadata of "+container, () -> {
+                blobContainer.getMetadata();
+                return null;
+            });
+        } catch (URISyntaxException |StorageException e) {
             throw new AuthenticationException("Provide valid credentials");
         }
     }
 
-    public void copy(String resourceName, File destination, TransferProgress transferProgress) throws ResourceDoesNotExistException {
+    public void copy(String resourceName, File destination, TransferProgress transferProgress) throws ResourceDoesNotExistException, TransferFailedException {
+        copy(resourceName, destination, transferProgress, null);
+    }
+
+    /**
+     * @param transferDigests fed with the downloaded bytes, may be null
+     */
+    public void copy(String resourceName, File destination, TransferProgress transferProgress, TransferDigests transferDigests) throws ResourceDoesNotExistException, TransferFailedException {
 
         LOGGER.log(Level.FINER,String.format("Downloading key %s from container %s into %s", resourceName, container, destination.getAbsolutePath()));
 
+        if(negativeLookupCache.isMissing(repositoryId(), resourceName)) {
+            LOGGER.log(Level.FINER,String.format("Blob %s was reported missing recently",resourceName));
+            throw new ResourceDoesNotExistException(resourceName);
+        }
+
         try {
 
-            CloudBlob cloudBlob = blobContainer.getBlobReferenceFromServer(resourceName);
+            CloudBlob cloudBlob = blobContainer.getBlockBlobReference(resourceName);
 
-            if(!cloudBlob.exists()) {
+            if(!retryPolicy.execute("Download of "+resourceName, () -> cloudBlob.exists())) {
                 LOGGER.log(Level.FINER,"Blob {} does not exist",resourceName);
+                negativeLookupCache.putMissing(repositoryId(), resourceName);
                 throw new ResourceDoesNotExistException(resourceName);
             }
 
-            try(OutputStream outputStream = new TransferProgressFileOutputStream(destination, transferProgress);
-                InputStream inputStream = cloudBlob.openInputStream()) {
-                IOUtils.copy(inputStream,outputStream);
+            //the properties fetched above already tell whether the cached file is still current
+            String eTag = cloudBlob.getProperties().getEtag();
+            CachedFile cachedFile = downloadCache.get(repositoryId(), resourceName);
+            if(cachedFile != null && cachedFile.getValidator().equals(eTag)) {
+                LOGGER.log(Level.FINER,String.format("Blob %s not modified, using the cached file",resourceName));
+                try {
+                    cachedFile.writeTo(destination, transferProgress, transferDigests);
+                    return;
+                } catch (IOException e) {
+                    //evicted meanwhile, download it instead
+                    LOGGER.log(Level.WARNING,"Could not write cached file",e);
+                }
+            }
+
+            boolean gzip = GzipContentEncoding.isGzip(cloudBlob.getProperties().getContentEncoding());
+
+            //failures while reading the stream are left to the resumption of the download
+            InputStream inputStream = retryPolicy.execute("Download of "+resourceName, () -> cloudBlob.openInputStream());
+
+            if(gzip) {
+                new ResumableDownload(resumableDownloadProperty).download(destination, -1, GzipContentEncoding.decompress(inputStream),
+                        ResumableDownload.NOT_RESUMABLE, transferProgress, transferDigests);
+            } else {
+                new ResumableDownload(resumableDownloadProperty).download(destination, cloudBlob.getProperties().getLength(), inputStream,
+                        offset -> openRange(cloudBlob, offset), transferProgress, transferDigests);
+            }
+
+            //the Content-MD5 of a gzip encoded blob is the one of the compressed bytes
+            if(transferDigests != null && !gzip) {
+                try {
+                    verifyMd5(resourceName, cloudBlob.getProperties().getContentMD5(), transferDigests);
+                } catch (TransferFailedException e) {
+                    destination.delete();
+                    throw e;
+                }
             }
-        } catch (URISyntaxException |StorageException |IOException e) {
-            throw new ResourceDoesNotExistException("Could not download file from repo",e);
+
+            if(cloudBlob.getProperties().getLastModified() != null) {
+                downloadCache.put(repositoryId(), resourceName, destination, eTag, cloudBlob.getProperties().getLastModified().getTime(), transferDigests);
+            }
+        } catch (StorageException e) {
+            if(e.getHttpStatusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                negativeLookupCache.putMissing(repositoryId(), resourceName);
+                throw new ResourceDoesNotExistException(resourceName, e);
+            }
+            LOGGER.log(Level.SEVERE,"Could not download blob",e);
+            throw new TransferFailedException("Could not download resource "+resourceName, e);
+        } catch (URISyntaxException |IOException e) {
+            LOGGER.log(Level.SEVERE,"Could not download blob",e);
+            throw new TransferFailedException("Could not download resource "+resourceName, e);
+        }
+    }
+
+    /**
+     * Opens the blob again from the offset, as long as it still has the ETag of the interrupted download
+     */
+    private InputStream openRange(CloudBlob cloudBlob, long offset) throws IOException {
+        try {
+            InputStream inputStream = retryPolicy.execute("Resumption of "+cloudBlob.getName(),
+                    () -> cloudBlob.openInputStream(AccessCondition.generateIfMatchCondition(cloudBlob.getProperties().getEtag()), null, null));
+            //the blob stream repositions on skip instead of reading the skipped bytes
+            if(inputStream.skip(offset) != offset) {
+                throw new IOException("Could not resume download of "+cloudBlob.getName()+" at "+offset);
+            }
+            return inputStream;
+        } catch (StorageException e) {
+            if(e.getHttpStatusCode() == HttpURLConnection.HTTP_PRECON_FAILED) {
+                return null;
+            }
+            throw new IOException("Could not resume download of "+cloudBlob.getName(), e);
         }
     }
 
@@ -98,12 +228,12 @@ public class AzureStorageRepository {
         LOGGER.log(Level.FINER,String.format("Checking if new key %s exists",resourceName));
 
         try {
-            CloudBlob cloudBlob = blobContainer.getBlobReferenceFromServer(resourceName);
-            if(!cloudBlob.exists()) {
+            ResourceMetadata metadata = fetchMetadata(resourceName);
+            if(!metadata.exists()) {
                 return false;
             }
 
-            long updated = cloudBlob.getProperties().getLastModified().getTime();
+            long updated = metadata.getLastModified();
             return updated>timeStamp;
         } catch (URISyntaxException |StorageException e) {
             LOGGER.log(Level.SEVERE,"Could not fetch cloud blob",e);
@@ -112,55 +242,246 @@ public class AzureStorageRepository {
     }
 
     public void put(File file, String destination,TransferProgress transferProgress) throws TransferFailedException {
+        put(file, destination, transferProgress, null);
+    }
+
+    /**
+     * Uploads the file asking the client to compute and store its Content-MD5 as the blocks are sent.
+     *
+     * @param transferDigests fed with the uploaded bytes, may be null
+     */
+    public void put(File file, String destination,TransferProgress transferProgress, TransferDigests transferDigests) throws TransferFailedException {
 
         LOGGER.log(Level.FINER,String.format("Uploading key %s ",destination));
         try {
 
             CloudBlockBlob blob = blobContainer.getBlockBlobReference(destination);
+
+            if(compressionProperty.isCompressed(destination)) {
+                putCompressed(file, blob, transferProgress, transferDigests);
+                return;
+            }
+
             blob.getProperties().setContentType(getContentType(file));
 
-            try(InputStream inputStream = new TransferProgressFileInputStream(file,transferProgress)) {
-                blob.upload(inputStream,-1);
+            BlobRequestOptions blobRequestOptions = new BlobRequestOptions();
+            blobRequestOptions.setStoreBlobContentMD5(true);
+
+            retryPolicy.execute("Upload of "+destination, () -> {
+                if(transferDigests != null) {
+                    transferDigests.reset();
+                }
+
+                try(InputStream fileInputStream = uploadStreamFactory.create(file, transferProgress);
+                    InputStream inputStream = transferDigests == null ? fileInputStream : new DigestingInputStream(fileInputStream, transferDigests)) {
+                    blob.upload(inputStream,-1, null, blobRequestOptions, null);
+                } catch (IOException e) {
+                    throw StorageException.translateClientException(e);
+                }
+                return null;
+            });
+
+            if(transferDigests != null) {
+                verifyMd5(destination, blob.getProperties().getContentMD5(), transferDigests);
             }
-        } catch (URISyntaxException |StorageException | IOException e) {
+        } catch (URISyntaxException |StorageException e) {
             LOGGER.log(Level.SEVERE,"Could not fetch cloud blob",e);
             throw new TransferFailedException(destination);
+        } finally {
+            metadataCache.invalidate(repositoryId(), destination);
+            negativeLookupCache.invalidate(repositoryId(), destination);
         }
     }
 
+    /**
+     * Uploads the gzipped file with a gzip Content-Encoding, the digests are those of the uncompressed file
+     */
+    private void putCompressed(File file, CloudBlockBlob blob, TransferProgress transferProgress, TransferDigests transferDigests) throws StorageException {
+        File compressed;
+        try {
+            compressed = GzipContentEncoding.compress(file, transferDigests);
+        } catch (IOException e) {
+            throw StorageException.translateClientException(e);
+        }
+
+        try {
+            blob.getProperties().setContentType(CompressibleContentTypeResolver.getContentType(blob.getName()));
+            blob.getProperties().setContentEncoding(GzipContentEncoding.GZIP);
+
+            retryPolicy.execute("Upload of "+blob.getName(), () -> {
+                try(InputStream inputStream = uploadStreamFactory.create(compressed, transferProgress)) {
+                    blob.upload(inputStream, -1);
+                } catch (IOException e) {
+                    throw StorageException.translateClientException(e);
+                }
+                return null;
+            });
+        } finally {
+            compressed.delete();
+        }
+    }
+
+    private void verifyMd5(String resourceName, String contentMd5, TransferDigests transferDigests) throws TransferFailedException {
+        if(contentMd5 != null && !contentMd5.equals(transferDigests.getMd5Base64())) {
+            throw new TransferFailedException("Checksum mismatch for "+resourceName+": expected Content-MD5 "+contentMd5+" but was "+transferDigests.getMd5Base64());
+        }
+    }
 
     public boolean exists(String resourceName) throws TransferFailedException {
 
         try {
-            CloudBlockBlob blob = blobContainer.getBlockBlobReference(resourceName);
-            return blob.exists();
+            return fetchMetadata(resourceName).exists();
         } catch (URISyntaxException |StorageException e) {
             LOGGER.log(Level.SEVERE,"Could not fetch cloud blob",e);
             throw new TransferFailedException(resourceName);
         }
     }
 
-    public List<String> list(String path) {
+    /**
+     * Returns the metadata of a blob from the metadata and negative lookup caches, or from the storage which is then cached
+     */
+    private ResourceMetadata fetchMetadata(String resourceName) throws URISyntaxException, StorageException {
+        if(negativeLookupCache.isMissing(repositoryId(), resourceName)) {
+            return ResourceMetadata.missing();
+        }
+
+        ResourceMetadata metadata = metadataCache.get(repositoryId(), resourceName);
+        if(metadata != null) {
+            return metadata;
+        }
+
+        CloudBlockBlob blob = blobContainer.getBlockBlobReference(resourceName);
+        if(!retryPolicy.execute("Metadata of "+resourceName, () -> blob.exists())) {
+            negativeLookupCache.putMissing(repositoryId(), resourceName);
+            return ResourceMetadata.missing();
+        }
+
+        metadata = ResourceMetadata.of(blob.getProperties().getLastModified().getTime(), blob.getProperties().getLength());
+
+        metadataCache.put(repositoryId(), resourceName, metadata, metadataCacheProperty.get());
+        return metadata;
+    }
+
+    private String repositoryId() {
+        return blobContainer.getUri().toString();
+    }
+
+    /**
+     * @return the immediate children of the path, directories end with a "/"
+     */
+    public List<String> list(String path) throws StorageException {
+
+        LOGGER.log(Level.FINER,String.format("Listing files for %s",path));
 
-        LOGGER.info(String.format("Listing files for %s",path));
+        String key = KeyIndex.normalize(path);
+        String prefix = key.isEmpty() || key.endsWith("/") ? key : key + "/";
 
-        List<String> blobs = new ArrayList<>();
+        return listing("Listing of "+prefix, () -> children(blobContainer.listBlobs(prefix), prefix));
+    }
 
-        Iterable<ListBlobItem> blobItems = blobContainer.listBlobs();
-        Iterator<ListBlobItem> iterator = blobItems.iterator();
+    /**
+     * Runs a listing through the retry policy. The pages are fetched while iterating and the iterator reports
+     * storage failures unchecked, so the whole listing is retried with the storage exception it failed with.
+     */
+    private <T> T listing(String operation, Supplier<T> listing) throws StorageException {
+        return retryPolicy.execute(operation, () -> {
+            try {
+                return listing.get();
+            } catch (NoSuchElementException e) {
+                if(e.getCause() instanceof StorageException) {
+                    throw (StorageException) e.getCause();
+                }
+                throw e;
+            }
+        });
+    }
 
-        while (iterator.hasNext()) {
+    static List<String> children(Iterable<ListBlobItem> blobItems, String prefix) {
 
-            ListBlobItem blobItem = iterator.next();
+        List<String> children = new ArrayList<>();
 
+        for(ListBlobItem blobItem : blobItems) {
+            String name = null;
             if(blobItem instanceof CloudBlob) {
+                name = ((CloudBlob) blobItem).getName();
+            } else if(blobItem instanceof CloudBlobDirectory) {
+                name = ((CloudBlobDirectory) blobItem).getPrefix();
+            }
+
+            //the directory marker of the path itself is not a child
+            if(name != null && name.length() > prefix.length()) {
+                children.add(name.substring(prefix.length()));
+            }
+        }
+
+        return children;
+    }
 
-                CloudBlob cloudBlob = (CloudBlob) blobItem;
-                blobs.add(cloudBlob.getName());
+    @Override
+    public String downloadKeyIndex(File destination, String validator) throws IOException {
+        try {
+            CloudBlockBlob blob = blobContainer.getBlockBlobReference(KeyIndex.RESOURCE_NAME);
+            AccessCondition accessCondition = validator == null ? null : AccessCondition.generateIfNoneMatchCondition(validator);
+            retryPolicy.execute("Download of the key index", () -> {
+                try {
+                    blob.downloadToFile(destination.getAbsolutePath(), accessCondition, null, null);
+                } catch (IOException e) {
+                    throw StorageException.translateClientException(e);
+                }
+                return null;
+            });
+            return blob.getProperties().getEtag();
+        } catch (StorageException e) {
+            if(e.getHttpStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return validator;
+            } else if(e.getHttpStatusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                return null;
             }
+            throw new IOException("Could not download the key index of "+repositoryId(), e);
+        } catch (URISyntaxException e) {
+            throw new IOException("Could not download the key index of "+repositoryId(), e);
         }
+    }
 
-        return blobs;
+    @Override
+    public String uploadKeyIndex(File index, String validator) throws IOException {
+        try {
+            CloudBlockBlob blob = blobContainer.getBlockBlobReference(KeyIndex.RESOURCE_NAME);
+            AccessCondition accessCondition = validator == null ? AccessCondition.generateIfNotExistsCondition() : AccessCondition.generateIfMatchCondition(validator);
+            retryPolicy.execute("Upload of the key index", () -> {
+                try {
+                    blob.uploadFromFile(index.getAbsolutePath(), accessCondition, null, null);
+                } catch (IOException e) {
+                    throw StorageException.translateClientException(e);
+                }
+                return null;
+            });
+            return blob.getProperties().getEtag();
+        } catch (StorageException e) {
+            if(e.getHttpStatusCode() == HttpURLConnection.HTTP_PRECON_FAILED || e.getHttpStatusCode() == HttpURLConnection.HTTP_CONFLICT) {
+                return null;
+            }
+            throw new IOException("Could not upload the key index of "+repositoryId(), e);
+        } catch (URISyntaxException e) {
+            throw new IOException("Could not upload the key index of "+repositoryId(), e);
+        }
+    }
+
+    @Override
+    public List<String> listResourceNames() throws IOException {
+        try {
+            return listing("Listing of "+container, () -> {
+                List<String> resourceNames = new ArrayList<>();
+                for(ListBlobItem blobItem : blobContainer.listBlobs(null, true)) {
+                    if(blobItem instanceof CloudBlob) {
+                        resourceNames.add(((CloudBlob) blobItem).getName());
+                    }
+                }
+                return resourceNames;
+            });
+        } catch (StorageException |RuntimeException e) {
+            throw new IOException("Could not list the resources of "+repositoryId(), e);
+        }
     }
 
     public void disconnect() {
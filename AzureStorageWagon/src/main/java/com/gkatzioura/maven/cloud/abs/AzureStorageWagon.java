@@ -34,6 +34,8 @@ import org.apache.maven.wagon.proxy.ProxyInfoProvider;
 import org.apache.maven.wagon.repository.Repository;
 import org.apache.maven.wagon.resource.Resource;
 
+import com.gkatzioura.maven.cloud.cache.MetadataCacheProperty;
+import com.gkatzioura.maven.cloud.transfer.TransferDigests;
 import com.gkatzioura.maven.cloud.transfer.TransferProgress;
 import com.gkatzioura.maven.cloud.transfer.TransferProgressImpl;
 import com.gkatzioura.maven.cloud.wagon.AbstractStorageWagon;
@@ -54,7 +56,9 @@ public class AzureStorageWagon extends AbstractStorageWagon {
         final TransferProgress transferProgress = new TransferProgressImpl(resource, TransferEvent.REQUEST_GET, transferListenerContainer);
 
         try {
-            azureStorageRepository.copy(resourceName,destination,transferProgress);
+            TransferDigests transferDigests = new TransferDigests();
+            getResource(resourceName, destination, transferProgress, transferDigests, azureStorageRepository::copy);
+            recordTransferDigests(resourceName, transferDigests, destination);
             transferListenerContainer.fireTransferCompleted(resource,TransferEvent.REQUEST_GET);
         } catch (Exception e) {
             transferListenerContainer.fireTransferError(resource,TransferEvent.REQUEST_GET,e);
@@ -68,6 +72,7 @@ public class AzureStorageWagon extends AbstractStorageWagon {
         Resource resource = new Resource(resourceName);
 
         try {
+            throwIfNotIndexed(resourceName);
             if(azureStorageRepository.newResourceAvailable(resourceName, l)) {
                 get(resourceName,file);
                 return true;
@@ -92,7 +97,10 @@ public class AzureStorageWagon extends AbstractStorageWagon {
         final TransferProgress transferProgress = new TransferProgressImpl(resource, TransferEvent.REQUEST_PUT, transferListenerContainer);
 
         try {
-            azureStorageRepository.put(file, resourceName,transferProgress);
+            TransferDigests transferDigests = new TransferDigests();
+            azureStorageRepository.put(file, resourceName,transferProgress,transferDigests);
+            recordTransferDigests(resourceName, transferDigests, file);
+            recordIndexedPut(resourceName);
             transferListenerContainer.fireTransferCompleted(resource, TransferEvent.REQUEST_PUT);
         } catch (TransferFailedException e) {
             transferListenerContainer.fireTransferError(resource,TransferEvent.REQUEST_PUT,e);
@@ -116,6 +124,11 @@ public class AzureStorageWagon extends AbstractStorageWagon {
 
     @Override
     public boolean resourceExists(String resourceName) throws TransferFailedException, AuthorizationException {
+        Boolean indexed = indexedExists(resourceName);
+        if (indexed != null) {
+            return indexed;
+        }
+
         try {
             return azureStorageRepository.exists(resourceName);
         } catch (TransferFailedException e) {
@@ -126,6 +139,10 @@ public class AzureStorageWagon extends AbstractStorageWagon {
 
     @Override
     public List<String> getFileList(String resourceName) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        List<String> indexed = indexedFileList(resourceName);
+        if (indexed != null) {
+            return indexed;
+        }
 
         try {
             return azureStorageRepository.list(resourceName);
@@ -148,8 +165,9 @@ public class AzureStorageWagon extends AbstractStorageWagon {
 
             LOGGER.log(Level.FINER,String.format("Opening connection for account %s and container %s",account,container));
 
-            azureStorageRepository = new AzureStorageRepository(container);
+            azureStorageRepository = new AzureStorageRepository(container, new MetadataCacheProperty(getMetadataCacheTtl()));
             azureStorageRepository.connect(authenticationInfo);
+            openKeyIndex(azureStorageRepository);
             sessionListenerContainer.fireSessionLoggedIn();
             sessionListenerContainer.fireSessionOpened();
         } catch (Exception e) {
@@ -161,7 +179,12 @@ public class AzureStorageWagon extends AbstractStorageWagon {
     @Override
     public void disconnect() throws ConnectionException {
         sessionListenerContainer.fireSessionDisconnecting();
-        azureStorageRepository.disconnect();
+        try {
+            publishKeyIndex();
+        } finally {
+            azureStorageRepository.disconnect();
+            clearTransferDigests();
+        }
         sessionListenerContainer.fireSessionLoggedOff();
         sessionListenerContainer.fireSessionDisconnected();
     }
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.abs.plugin;
+
+import java.io.IOException;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.wagon.authentication.AuthenticationException;
+
+import com.gkatzioura.maven.cloud.abs.AzureStorageRepository;
+import com.gkatzioura.maven.cloud.index.KeyIndexProperty;
+import com.gkatzioura.maven.cloud.index.KeyIndexUpdate;
+import com.microsoft.azure.storage.CloudStorageAccount;
+
+/**
+ * Publishes the blobs a goal puts or deletes to the key index of the repository of the container
+ */
+public final class KeyIndexPublisher {
+
+    private KeyIndexPublisher() {
+    }
+
+    public static KeyIndexUpdate update(String container) {
+        return new KeyIndexUpdate("bs://" + container, "", KeyIndexProperty.empty());
+    }
+
+    public static void publish(KeyIndexUpdate keyIndexUpdate, CloudStorageAccount cloudStorageAccount, String container) throws MojoExecutionException {
+        if (keyIndexUpdate.isEmpty()) {
+            return;
+        }
+
+        AzureStorageRepository azureStorageRepository = new AzureStorageRepository(container);
+        try {
+            azureStorageRepository.connect(cloudStorageAccount);
+            keyIndexUpdate.publish(azureStorageRepository);
+        } catch (AuthenticationException | IOException e) {
+            throw new MojoExecutionException("Could not update the key index of container " + container, e);
+        } finally {
+            azureStorageRepository.disconnect();
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.gkatzioura.maven.cloud.abs.plugin.promote;
+
+import java.net.URISyntaxException;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Logger;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.wagon.authentication.AuthenticationException;
+
+import com.gkatzioura.maven.cloud.abs.ConnectionStringFactory;
+import com.gkatzioura.maven.cloud.abs.plugin.KeyIndexPublisher;
+import com.gkatzioura.maven.cloud.abs.plugin.PrefixKeysIterator;
+import com.gkatzioura.maven.cloud.concurrent.BoundedExecutor;
+import com.gkatzioura.maven.cloud.index.KeyIndexUpdate;
+import com.microsoft.azure.storage.CloudStorageAccount;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.CloudBlob;
+import com.microsoft.azure.storage.blob.CloudBlobContainer;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+import com.microsoft.azure.storage.blob.CopyState;
+import com.microsoft.azure.storage.blob.CopyStatus;
+import com.microsoft.azure.storage.blob.ListBlobItem;
+
+/**
+ * Copies every blob under a prefix to another container and prefix of the storage account with server side copies,
+ * so that promoting a release never moves its bytes through the build host. The copied blobs are added to the key index
+ * of the destination container.
+ */
+@Mojo(name = "abs-promote")
+public class ABSPromoteMojo extends AbstractMojo {
+
+    private static final long COPY_POLL_INTERVAL = 1000;
+
+    private CloudStorageAccount cloudStorageAccount;
+
+    @Parameter(property = "abs-promote.sourceContainer")
+    private String sourceContainer;
+
+    @Parameter(property = "abs-promote.sourcePrefix", defaultValue = "")
+    private String sourcePrefix = "";
+
+    @Parameter(property = "abs-promote.destinationContainer")
+    private String destinationContainer;
+
+    @Parameter(property = "abs-promote.destinationPrefix", defaultValue = "")
+    private String destinationPrefix = "";
+
+    @Parameter(property = "abs-promote.concurrency", defaultValue = "8")
+    private int concurrency = 8;
+
+    private static final Logger LOGGER = Logger.getLogger(ABSPromoteMojo.class.getName());
+
+    public ABSPromoteMojo(String sourceContainer, String sourcePrefix, String destinationContainer, String destinationPrefix) throws AuthenticationException {
+        this();
+        this.sourceContainer = sourceContainer;
+        this.sourcePrefix = sourcePrefix;
+        this.destinationContainer = destinationContainer;
+        this.destinationPrefix = destinationPrefix;
+    }
+
+    public ABSPromoteMojo() throws AuthenticationException {
+        try {
+            String connectionString = new ConnectionStringFactory().create();
+            cloudStorageAccount = CloudStorageAccount.parse(connectionString);
+        } catch (Exception e) {
+            throw new AuthenticationException("Could not setup azure client",e);
+        }
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        CloudBlobContainer source;
+        CloudBlobContainer destination;
+
+        try {
+            source = cloudStorageAccount.createCloudBlobClient().getContainerReference(sourceContainer);
+            destination = cloudStorageAccount.createCloudBlobClient().getContainerReference(destinationContainer);
+            source.getMetadata();
+            destination.getMetadata();
+        } catch (StorageException |URISyntaxException e) {
+            throw new MojoFailureException("Could not get containers "+sourceContainer+" and "+destinationContainer,e);
+        }
+
+        KeyIndexUpdate keyIndexUpdate = KeyIndexPublisher.update(destinationContainer);
+
+        try (BoundedExecutor boundedExecutor = new BoundedExecutor("abs-promote", Math.max(1, concurrency), Math.max(1, concurrency) * 2)) {
+            PrefixKeysIterator prefixKeysIterator = new PrefixKeysIterator(source, sourcePrefix);
+
+            while (prefixKeysIterator.hasNext()) {
+                ListBlobItem listBlobItem = prefixKeysIterator.next();
+                if (listBlobItem instanceof CloudBlob) {
+                    CloudBlob cloudBlob = (CloudBlob) listBlobItem;
+                    boundedExecutor.submit(() -> keyIndexUpdate.added(copy(cloudBlob, destination)));
+                }
+            }
+            boundedExecutor.await();
+            KeyIndexPublisher.publish(keyIndexUpdate, cloudStorageAccount, destinationContainer);
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException("Could not promote " + sourceContainer + "/" + sourcePrefix, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while promoting " + sourceContainer + "/" + sourcePrefix, e);
+        }
+    }
+
+    /**
+     * Starts the copy from the source blob url and waits until the service has completed it
+     *
+     * @return the destination key
+     */
+    private String copy(CloudBlob sourceBlob, CloudBlobContainer destination) throws URISyntaxException, StorageException, InterruptedException, MojoExecutionException {
+        String destinationKey = destinationPrefix + sourceBlob.getName().substring(sourcePrefix.length());
+
+        LOGGER.info("Copying " + sourceContainer + "/" + sourceBlob.getName() + " to " + destinationContainer + "/" + destinationKey);
+
+        CloudBlockBlob destinationBlob = destination.getBlockBlobReference(destinationKey);
+        destinationBlob.startCopy(sourceBlob.getUri());
+
+        CopyState copyState = destinationBlob.getCopyState();
+        while (copyState != null && copyState.getStatus() == CopyStatus.PENDING) {
+            Thread.sleep(COPY_POLL_INTERVAL);
+            destinationBlob.downloadAttributes();
+            copyState = destinationBlob.getCopyState();
+        }
+
+        if (copyState != null && copyState.getStatus() != CopyStatus.SUCCESS) {
+            throw new MojoExecutionException("Copy of " + sourceBlob.getName() + " ended as " + copyState.getStatus() + ": " + copyState.getStatusDescription());
+        }
+        return destinationKey;
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.gkatzioura.maven.cloud.abs.plugin.prune;
+
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.wagon.authentication.AuthenticationException;
+
+import com.gkatzioura.maven.cloud.abs.ConnectionStringFactory;
+import com.gkatzioura.maven.cloud.abs.plugin.KeyIndexPublisher;
+import com.gkatzioura.maven.cloud.abs.plugin.PrefixKeysIterator;
+import com.gkatzioura.maven.cloud.index.KeyIndexUpdate;
+import com.gkatzioura.maven.cloud.prune.BatchDeleter;
+import com.gkatzioura.maven.cloud.prune.PruneSelector;
+import com.microsoft.azure.storage.CloudStorageAccount;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.CloudBlob;
+import com.microsoft.azure.storage.blob.CloudBlobContainer;
+import com.microsoft.azure.storage.blob.ListBlobItem;
+
+/**
+ * Deletes the blobs under the given prefixes which are older than a number of days, or which belong to timestamped
+ * SNAPSHOT builds beyond the newest ones kept. The storage client has no blob batch support,
+ * so each batch deletes its blobs one by one while batches run concurrently. The deleted blobs are removed from the key
+ * index of the container.
+ */
+@Mojo(name = "abs-prune")
+public class ABSPruneMojo extends AbstractMojo {
+
+    /**
+     * The maximum number of sub requests accepted by a blob batch
+     */
+    private static final int BATCH_SIZE = 256;
+
+    private CloudStorageAccount cloudStorageAccount;
+
+    @Parameter(property = "abs-prune.container")
+    private String container;
+
+    @Parameter(property = "abs-prune.keys")
+    private List<String> keys;
+
+    @Parameter(property = "abs-prune.olderThanDays")
+    private Integer olderThanDays;
+
+    @Parameter(property = "abs-prune.keepLatest")
+    private Integer keepLatest;
+
+    @Parameter(property = "abs-prune.dryRun", defaultValue = "false")
+    private boolean dryRun;
+
+    @Parameter(property = "abs-prune.concurrency", defaultValue = "4")
+    private int concurrency = 4;
+
+    public ABSPruneMojo(String container, List<String> keys, Integer olderThanDays, Integer keepLatest, boolean dryRun) throws AuthenticationException {
+        this();
+        this.container = container;
+        this.keys = keys;
+        this.olderThanDays = olderThanDays;
+        this.keepLatest = keepLatest;
+        this.dryRun = dryRun;
+    }
+
+    public ABSPruneMojo() throws AuthenticationException {
+        try {
+            String connectionString = new ConnectionStringFactory().create();
+            cloudStorageAccount = CloudStorageAccount.parse(connectionString);
+        } catch (Exception e) {
+            throw new AuthenticationException("Could not setup azure client",e);
+        }
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (olderThanDays == null && keepLatest == null) {
+            throw new MojoExecutionException("Set olderThanDays or keepLatest to select the blobs to prune");
+        }
+
+        CloudBlobContainer blobContainer;
+        try {
+            blobContainer = cloudStorageAccount.createCloudBlobClient().getContainerReference(container);
+            blobContainer.getMetadata();
+        } catch (StorageException |URISyntaxException e) {
+            throw new MojoFailureException("Could not get container "+container,e);
+        }
+
+        Long cutoff = olderThanDays == null ? null : System.currentTimeMillis() - TimeUnit.DAYS.toMillis(olderThanDays);
+
+        KeyIndexUpdate keyIndexUpdate = KeyIndexPublisher.update(container);
+
+        try (BatchDeleter batchDeleter = new BatchDeleter("abs-prune", BATCH_SIZE, concurrency, dryRun, batch -> delete(blobContainer, batch), keyIndexUpdate)) {
+            for (String prefix : keys) {
+                PruneSelector pruneSelector = new PruneSelector(cutoff, keepLatest);
+
+                PrefixKeysIterator prefixKeysIterator = new PrefixKeysIterator(blobContainer, prefix);
+                while (prefixKeysIterator.hasNext()) {
+                    ListBlobItem listBlobItem = prefixKeysIterator.next();
+                    if (listBlobItem instanceof CloudBlob) {
+                        CloudBlob cloudBlob = (CloudBlob) listBlobItem;
+                        batchDeleter.addAll(pruneSelector.offer(cloudBlob.getName(), cloudBlob.getProperties().getLastModified().getTime()));
+                    }
+                }
+
+                batchDeleter.addAll(pruneSelector.finish());
+            }
+            batchDeleter.finish();
+            KeyIndexPublisher.publish(keyIndexUpdate, cloudStorageAccount, container);
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException("Could not prune container " + container, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while pruning container " + container, e);
+        }
+    }
+
+    private void delete(CloudBlobContainer blobContainer, List<String> batch) throws URISyntaxException, StorageException {
+        for (String key : batch) {
+            blobContainer.getBlockBlobReference(key).deleteIfExists();
+        }
+    }
+
+}
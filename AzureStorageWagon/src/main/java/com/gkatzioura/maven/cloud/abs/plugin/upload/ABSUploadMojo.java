@@ -17,6 +17,8 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 
 import com.gkatzioura.maven.cloud.abs.ConnectionStringFactory;
+import com.gkatzioura.maven.cloud.abs.plugin.KeyIndexPublisher;
+import com.gkatzioura.maven.cloud.index.KeyIndexUpdate;
 import com.microsoft.azure.storage.CloudStorageAccount;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.blob.CloudBlobContainer;
@@ -59,18 +61,21 @@ public class ABSUploadMojo extends AbstractMojo {
         try {
             CloudBlobContainer blobContainer = cloudStorageAccount.createCloudBlobClient().getContainerReference(container);
             blobContainer.getMetadata();
+            KeyIndexUpdate keyIndexUpdate = KeyIndexPublisher.update(container);
 
             if(isDirectory()) {
                 List<String> filesToUpload = findFilesToUpload(path);
 
                 for(String fileToUpload: filesToUpload) {
                     String generateKeyName = generateKeyName(fileToUpload);
-                    uploadFileToStorage(blobContainer, generateKeyName, new File(fileToUpload));
+                    uploadFileToStorage(blobContainer, generateKeyName, new File(fileToUpload), keyIndexUpdate);
                 }
             } else {
-                uploadFileToStorage(blobContainer, keyIfNull(), new File(path));
+                uploadFileToStorage(blobContainer, keyIfNull(), new File(path), keyIndexUpdate);
             }
 
+            KeyIndexPublisher.publish(keyIndexUpdate, cloudStorageAccount, container);
+
         } catch (StorageException |URISyntaxException e) {
             throw new MojoFailureException("Could not get container "+container,e);
         }
@@ -119,7 +124,7 @@ public class ABSUploadMojo extends AbstractMojo {
         return keyNameBuilder.toString();
     }
 
-    private void uploadFileToStorage(CloudBlobContainer blobContainer, String key, File file) throws MojoExecutionException {
+    private void uploadFileToStorage(CloudBlobContainer blobContainer, String key, File file, KeyIndexUpdate keyIndexUpdate) throws MojoExecutionException {
         try {
             CloudBlockBlob blob = blobContainer.getBlockBlobReference(key);
             blob.getProperties().setContentType(getContentType(file));
@@ -127,6 +132,7 @@ public class ABSUploadMojo extends AbstractMojo {
             try (InputStream inputStream = new FileInputStream(file)) {
                 blob.upload(inputStream, -1);
             }
+            keyIndexUpdate.added(key);
         } catch (URISyntaxException| IOException | StorageException e) {
             throw new MojoExecutionException("Could not upload file "+file.getName(),e);
         }
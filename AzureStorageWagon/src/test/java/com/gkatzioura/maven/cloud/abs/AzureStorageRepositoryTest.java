@@ -0,0 +1,45 @@
+package com.gkatzioura.maven.cloud.abs;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.gkatzioura.maven.cloud.index.KeyIndex;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.CloudBlobContainer;
+import com.microsoft.azure.storage.blob.ListBlobItem;
+
+public class AzureStorageRepositoryTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testListingHasTheShapeOfTheKeyIndex() throws URISyntaxException, StorageException, IOException {
+        CloudBlobContainer container = new CloudBlobContainer(new URI("https://account.blob.core.windows.net/container"));
+        List<ListBlobItem> blobItems = Arrays.asList(
+                container.getBlockBlobReference("com/example/"),
+                container.getDirectoryReference("com/example/1.0"),
+                container.getBlockBlobReference("com/example/maven-metadata.xml"));
+
+        List<String> children = AzureStorageRepository.children(blobItems, "com/example/");
+        Assert.assertEquals(Arrays.asList("1.0/", "maven-metadata.xml"), children);
+
+        File index = temporaryFolder.newFile();
+        KeyIndex.write(index, 1, Arrays.asList("com/example/1.0/example-1.0.jar", "com/example/maven-metadata.xml"));
+        List<String> indexed = new ArrayList<>(KeyIndex.map(index).listChildren("com/example"));
+        Collections.sort(indexed);
+        Assert.assertEquals(indexed, children);
+    }
+
+}
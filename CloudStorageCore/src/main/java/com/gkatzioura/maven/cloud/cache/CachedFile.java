@@ -0,0 +1,44 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.cache;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.gkatzioura.maven.cloud.transfer.TransferDigests;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+
+/**
+ * A downloaded resource kept on disk along with the validator it was downloaded with.
+ */
+public interface CachedFile {
+
+    /**
+     * @return the ETag or the generation the resource was downloaded with
+     */
+    String getValidator();
+
+    long getLastModified();
+
+    /**
+     * Writes the cached resource to the destination as a download would
+     *
+     * @param transferProgress notified with the resource, may be null
+     * @param transferDigests fed with the resource, may be null
+     */
+    void writeTo(File destination, TransferProgress transferProgress, TransferDigests transferDigests) throws IOException;
+
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.gkatzioura.maven.cloud.transfer.LocalTransfer;
+import com.gkatzioura.maven.cloud.transfer.TransferDigests;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+
+/**
+ * Read through cache of downloads shared by every repository and every maven process of a machine.
+ * Files are stored once under the SHA-256 of their content, an index maps the key of each repository to
+ * the content and the validator it was downloaded with, and hits are hard linked into their destination.
+ * Stores and evictions hold a lock on the cache directory, reads go without it and treat a file evicted
+ * under them as a miss. Once the cache grows over its maximum size the least recently used files are evicted.
+ * Recency is kept in an access file per stored file, as the modification time of a stored file is shared with
+ * every destination it is linked to. The access file also records the size the file was stored with, so a file
+ * truncated or rewritten in place through one of its links is replaced instead of served.
+ */
+public class ContentCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ContentCache.class.getName());
+
+    private static final String OBJECTS = "objects";
+    private static final String INDEX = "index";
+    private static final String ACCESS = "access";
+    private static final String LOCK_FILE = ".lock";
+    private static final String SIZE_FILE = "size";
+
+    /**
+     * Evicting down to a fraction of the maximum size keeps every store after the first eviction from evicting again
+     */
+    private static final double EVICTION_TARGET = 0.9;
+
+    /**
+     * File locks are held by the whole process, threads take turns through this lock first
+     */
+    private static final ReentrantLock PROCESS_LOCK = new ReentrantLock();
+
+    private final ContentCacheProperty contentCacheProperty;
+
+    public ContentCache(ContentCacheProperty contentCacheProperty) {
+        this.contentCacheProperty = contentCacheProperty;
+    }
+
+    public boolean isEnabled() {
+        return contentCacheProperty.isEnabled();
+    }
+
+    /**
+     * @return the cached entry or null if there is none, it has been evicted or it cannot be read
+     */
+    public Entry get(String repository, String key) {
+        File indexFile = indexFile(repository, key);
+
+        try (DataInputStream dataInputStream = new DataInputStream(new FileInputStream(indexFile))) {
+            String validator = dataInputStream.readUTF();
+            String hash = dataInputStream.readUTF();
+            long lastModified = dataInputStream.readLong();
+
+            File objectFile = objectFile(hash);
+            File accessFile = accessFile(hash);
+            if (!objectFile.exists()) {
+                return null;
+            }
+            //the next store of the file replaces it
+            if (!isIntact(objectFile, accessFile)) {
+                LOGGER.log(Level.WARNING, String.format("Cached file of %s has been modified, ignoring it", key));
+                return null;
+            }
+            return new Entry(validator, lastModified, objectFile, accessFile);
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not read cache index of %s", key), e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the downloaded file with the validator it was downloaded with, failures are only logged
+     *
+     * @param validator the ETag or the generation of the file
+     * @param transferDigests the digests of the download, the file is only read again if they do not cover it, may be null
+     */
+    public void put(String repository, String key, File file, String validator, long lastModified, TransferDigests transferDigests) {
+        if (validator == null) {
+            return;
+        }
+
+        try {
+            String hash = transferDigests != null && transferDigests.getLength() == file.length() ? transferDigests.getSha256Hex() : sha256(file);
+            File objectFile = objectFile(hash);
+            File accessFile = accessFile(hash);
+            File indexFile = indexFile(repository, key);
+
+            locked(() -> {
+                if (objectFile.exists() && isIntact(objectFile, accessFile)) {
+                    touch(accessFile);
+                } else {
+                    store(file, objectFile, accessFile);
+                }
+
+                indexFile.getParentFile().mkdirs();
+                File tempFile = File.createTempFile("index", ".tmp", indexFile.getParentFile());
+                try {
+                    try (DataOutputStream dataOutputStream = new DataOutputStream(new FileOutputStream(tempFile))) {
+                        dataOutputStream.writeUTF(validator);
+                        dataOutputStream.writeUTF(hash);
+                        dataOutputStream.writeLong(lastModified);
+                    }
+                    CacheFiles.replace(tempFile, indexFile);
+                } finally {
+                    tempFile.delete();
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not cache %s", key), e);
+        }
+    }
+
+    private void store(File file, File objectFile, File accessFile) throws IOException {
+        long replacedSize = objectFile.length();
+
+        objectFile.getParentFile().mkdirs();
+        File tempFile = File.createTempFile("object", ".tmp", objectFile.getParentFile());
+        try {
+            Files.copy(file.toPath(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            CacheFiles.replace(tempFile, objectFile);
+        } finally {
+            tempFile.delete();
+        }
+
+        accessFile.getParentFile().mkdirs();
+        File accessTempFile = File.createTempFile("access", ".tmp", accessFile.getParentFile());
+        try {
+            try (DataOutputStream dataOutputStream = new DataOutputStream(new FileOutputStream(accessTempFile))) {
+                dataOutputStream.writeLong(objectFile.length());
+            }
+            CacheFiles.replace(accessTempFile, accessFile);
+        } finally {
+            accessTempFile.delete();
+        }
+
+        long size = readSize() - replacedSize + objectFile.length();
+        if (size > contentCacheProperty.getMaxSize()) {
+            size = evict((long) (contentCacheProperty.getMaxSize() * EVICTION_TARGET));
+        }
+        writeSize(size);
+    }
+
+    /**
+     * Deletes the least recently used files until the cache fits the target size, index entries of evicted
+     * files are left behind and read as misses until they are replaced
+     *
+     * @return the size of the remaining files
+     */
+    private long evict(long targetSize) {
+        List<File> objectFiles = new ArrayList<>();
+        File[] directories = new File(contentCacheProperty.getDirectory(), OBJECTS).listFiles(File::isDirectory);
+        if (directories != null) {
+            for (File directory : directories) {
+                File[] files = directory.listFiles((dir, name) -> !name.endsWith(".tmp"));
+                if (files != null) {
+                    for (File file : files) {
+                        objectFiles.add(file);
+                    }
+                }
+            }
+        }
+
+        long size = 0;
+        Map<File, Long> lastAccesses = new HashMap<>();
+        for (File objectFile : objectFiles) {
+            size += objectFile.length();
+            File accessFile = accessFile(objectFile.getName());
+            lastAccesses.put(objectFile, accessFile.exists() ? accessFile.lastModified() : objectFile.lastModified());
+        }
+
+        objectFiles.sort(Comparator.comparingLong(lastAccesses::get));
+        for (File objectFile : objectFiles) {
+            if (size <= targetSize) {
+                break;
+            }
+            long length = objectFile.length();
+            if (objectFile.delete()) {
+                size -= length;
+                accessFile(objectFile.getName()).delete();
+            }
+        }
+
+        LOGGER.log(Level.FINER, String.format("Evicted cached files down to %d bytes", size));
+        return size;
+    }
+
+    private long readSize() {
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(sizeFile().toPath()), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            //a missing or unreadable size is recomputed by the next eviction
+            return contentCacheProperty.getMaxSize() + 1;
+        }
+    }
+
+    private void writeSize(long size) throws IOException {
+        Files.write(sizeFile().toPath(), Long.toString(size).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void locked(CacheAction cacheAction) throws IOException {
+        File directory = contentCacheProperty.getDirectory();
+        directory.mkdirs();
+
+        PROCESS_LOCK.lock();
+        try (FileChannel fileChannel = FileChannel.open(new File(directory, LOCK_FILE).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock fileLock = fileChannel.lock()) {
+            cacheAction.run();
+        } finally {
+            PROCESS_LOCK.unlock();
+        }
+    }
+
+    private File sizeFile() {
+        return new File(contentCacheProperty.getDirectory(), SIZE_FILE);
+    }
+
+    private File indexFile(String repository, String key) {
+        String name = CacheFiles.entryName(repository, key);
+        return new File(new File(new File(contentCacheProperty.getDirectory(), INDEX), name.substring(0, 2)), name);
+    }
+
+    private File accessFile(String hash) {
+        return new File(new File(new File(contentCacheProperty.getDirectory(), ACCESS), hash.substring(0, 2)), hash);
+    }
+
+    /**
+     * @return true if the file still has the size it was stored with
+     */
+    private static boolean isIntact(File objectFile, File accessFile) {
+        try (DataInputStream dataInputStream = new DataInputStream(new FileInputStream(accessFile))) {
+            return objectFile.length() == dataInputStream.readLong();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void touch(File accessFile) {
+        if (!accessFile.setLastModified(System.currentTimeMillis())) {
+            LOGGER.log(Level.FINER, String.format("Could not record the access to %s", accessFile.getName()));
+        }
+    }
+
+    private File objectFile(String hash) {
+        return new File(new File(new File(contentCacheProperty.getDirectory(), OBJECTS), hash.substring(0, 2)), hash);
+    }
+
+    private static String sha256(File file) throws IOException {
+        MessageDigest messageDigest = CacheFiles.digest("SHA-256");
+        byte[] buffer = new byte[8192];
+        try (InputStream inputStream = new FileInputStream(file)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+            }
+        }
+        return CacheFiles.hex(messageDigest.digest());
+    }
+
+    @FunctionalInterface
+    private interface CacheAction {
+
+        void run() throws IOException;
+
+    }
+
+    public static final class Entry implements CachedFile {
+
+        private final String validator;
+        private final long lastModified;
+        private final File objectFile;
+        private final File accessFile;
+
+        private Entry(String validator, long lastModified, File objectFile, File accessFile) {
+            this.validator = validator;
+            this.lastModified = lastModified;
+            this.objectFile = objectFile;
+            this.accessFile = accessFile;
+        }
+
+        @Override
+        public String getValidator() {
+            return validator;
+        }
+
+        @Override
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Hard links the cached file to the destination, failing if it has been evicted meanwhile
+         */
+        @Override
+        public void writeTo(File destination, TransferProgress transferProgress, TransferDigests transferDigests) throws IOException {
+            if (destination.getParentFile() != null) {
+                destination.getParentFile().mkdirs();
+            }
+
+            touch(accessFile);
+            LocalTransfer.linkOrCopy(objectFile, destination);
+            LocalTransfer.replay(destination, transferProgress, transferDigests);
+        }
+    }
+
+}
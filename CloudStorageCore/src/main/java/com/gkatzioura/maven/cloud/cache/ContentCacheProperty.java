@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.cache;
+
+import java.io.File;
+
+public class ContentCacheProperty {
+
+    private static final String CONTENT_CACHE_PROP_TAG = "contentCache";
+    private static final String CONTENT_CACHE_ENV_TAG = "CONTENT_CACHE";
+    private static final String CONTENT_CACHE_DIR_PROP_TAG = "contentCacheDir";
+    private static final String CONTENT_CACHE_DIR_ENV_TAG = "CONTENT_CACHE_DIR";
+    private static final String CONTENT_CACHE_MAX_SIZE_PROP_TAG = "contentCacheMaxSize";
+    private static final String CONTENT_CACHE_MAX_SIZE_ENV_TAG = "CONTENT_CACHE_MAX_SIZE";
+
+    public static final long DEFAULT_MAX_SIZE = 10L * 1024 * 1024 * 1024;
+
+    private Boolean enabled;
+    private String directory;
+    private Long maxSize;
+
+    /**
+     *
+     * @param enabled whether downloads are cached on disk, may be null
+     * @param directory the directory of the cache, may be null
+     * @param maxSize the size in bytes above which the least recently used files are evicted, may be null
+     */
+    public ContentCacheProperty(Boolean enabled, String directory, Long maxSize) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    public static final ContentCacheProperty empty() {
+        return new ContentCacheProperty(null, null, null);
+    }
+
+    /**
+     * return the value set in the constructor or the value set using the contentCache system property
+     * or the CONTENT_CACHE environment variable, false if none is set
+     * */
+    public boolean isEnabled() {
+        if (enabled != null) {
+            return enabled;
+        }
+
+        return Boolean.valueOf(resolve(CONTENT_CACHE_PROP_TAG, CONTENT_CACHE_ENV_TAG));
+    }
+
+    /**
+     * return the directory set in the constructor or the directory set using the contentCacheDir system property
+     * or the CONTENT_CACHE_DIR environment variable, .m2/cloud-storage-cache/content in the user home if none is set
+     * */
+    public File getDirectory() {
+        if (directory != null) {
+            return new File(directory);
+        }
+
+        String value = resolve(CONTENT_CACHE_DIR_PROP_TAG, CONTENT_CACHE_DIR_ENV_TAG);
+        if (value != null) {
+            return new File(value);
+        }
+
+        return new File(System.getProperty("user.home"), ".m2" + File.separator + "cloud-storage-cache" + File.separator + "content");
+    }
+
+    /**
+     * return the size set in the constructor or the size set using the contentCacheMaxSize system property
+     * or the CONTENT_CACHE_MAX_SIZE environment variable, 10GB if none is set
+     * */
+    public long getMaxSize() {
+        if (maxSize != null) {
+            return maxSize;
+        }
+
+        String value = resolve(CONTENT_CACHE_MAX_SIZE_PROP_TAG, CONTENT_CACHE_MAX_SIZE_ENV_TAG);
+        if (value != null) {
+            return Long.valueOf(value);
+        }
+
+        return DEFAULT_MAX_SIZE;
+    }
+
+    private String resolve(String propTag, String envTag) {
+        String prop = System.getProperty(propTag);
+        if (prop != null) {
+            return prop;
+        }
+        return System.getenv(envTag);
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.cache;
+
+import java.io.File;
+
+import com.gkatzioura.maven.cloud.transfer.TransferDigests;
+
+/**
+ * The on disk caches a repository revalidates before downloading: {@link MetadataFileCache} for maven-metadata.xml
+ * files and, when enabled, {@link ContentCache} for every other resource.
+ */
+public class DownloadCache {
+
+    private final MetadataFileCache metadataFileCache;
+    private final ContentCache contentCache;
+
+    public DownloadCache(MetadataFileCache metadataFileCache, ContentCache contentCache) {
+        this.metadataFileCache = metadataFileCache;
+        this.contentCache = contentCache;
+    }
+
+    public static DownloadCache create() {
+        return new DownloadCache(new MetadataFileCache(MetadataFileCacheProperty.empty()), new ContentCache(ContentCacheProperty.empty()));
+    }
+
+    /**
+     * @return true if downloads of the key are cached
+     */
+    public boolean isCacheable(String key) {
+        return metadataFileCache.isCacheable(key) || (!isMetadata(key) && contentCache.isEnabled());
+    }
+
+    /**
+     * @return the cached file or null if the key is not cached
+     */
+    public CachedFile get(String repository, String key) {
+        if (metadataFileCache.isCacheable(key)) {
+            return metadataFileCache.get(repository, key);
+        }
+        if (!isMetadata(key) && contentCache.isEnabled()) {
+            return contentCache.get(repository, key);
+        }
+        return null;
+    }
+
+    /**
+     * Keeps the downloaded file, if the key is cacheable
+     *
+     * @param validator the ETag or the generation of the file
+     * @param transferDigests the digests of the download, may be null
+     */
+    public void put(String repository, String key, File file, String validator, long lastModified, TransferDigests transferDigests) {
+        if (metadataFileCache.isCacheable(key)) {
+            metadataFileCache.put(repository, key, file, validator, lastModified);
+        } else if (!isMetadata(key) && contentCache.isEnabled()) {
+            contentCache.put(repository, key, file, validator, lastModified, transferDigests);
+        }
+    }
+
+    /**
+     * Metadata changes in place, it is only kept by the metadata file cache even when that one is disabled
+     */
+    private boolean isMetadata(String key) {
+        return MetadataFileCache.isMetadataFile(key);
+    }
+
+}
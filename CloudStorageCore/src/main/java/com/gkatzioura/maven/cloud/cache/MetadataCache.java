@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Process wide cache of {@link ResourceMetadata}, so that the existence and timestamp checks maven repeats
+ * during resolution do not turn into a HEAD request each time. Wagons are looked up per use, hence the
+ * cache outlives them and entries are scoped by repository. Every entry expires after the TTL of the
+ * repository that stored it and the least recently used entries are evicted once the cache is full.
+ */
+public class MetadataCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private static final MetadataCache INSTANCE = new MetadataCache(DEFAULT_MAX_ENTRIES, System::currentTimeMillis);
+
+    private final LongSupplier clock;
+    private final Map<CacheKey, CacheEntry> entries;
+
+    MetadataCache(int maxEntries, LongSupplier clock) {
+        this.clock = clock;
+        this.entries = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public static MetadataCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the cached metadata or null if there is none or it has expired
+     */
+    public synchronized ResourceMetadata get(String repository, String key) {
+        CacheKey cacheKey = new CacheKey(repository, key);
+        CacheEntry cacheEntry = entries.get(cacheKey);
+
+        if (cacheEntry == null) {
+            return null;
+        }
+
+        if (cacheEntry.expiresAt <= clock.getAsLong()) {
+            entries.remove(cacheKey);
+            return null;
+        }
+
+        return cacheEntry.metadata;
+    }
+
+    /**
+     * @param ttlMillis how long the entry is valid, nothing is cached if it is not positive
+     */
+    public synchronized void put(String repository, String key, ResourceMetadata metadata, long ttlMillis) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        entries.put(new CacheKey(repository, key), new CacheEntry(metadata, clock.getAsLong() + ttlMillis));
+    }
+
+    public synchronized void invalidate(String repository, String key) {
+        entries.remove(new CacheKey(repository, key));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private static final class CacheEntry {
+
+        private final ResourceMetadata metadata;
+        private final long expiresAt;
+
+        private CacheEntry(ResourceMetadata metadata, long expiresAt) {
+            this.metadata = metadata;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class CacheKey {
+
+        private final String repository;
+        private final String key;
+
+        private CacheKey(String repository, String key) {
+            this.repository = repository;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey cacheKey = (CacheKey) o;
+            return repository.equals(cacheKey.repository) && key.equals(cacheKey.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(repository, key);
+        }
+    }
+
+}
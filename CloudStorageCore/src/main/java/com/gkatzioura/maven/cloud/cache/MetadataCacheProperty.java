@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.cache;
+
+public class MetadataCacheProperty {
+
+    private static final String METADATA_CACHE_TTL_PROP_TAG = "metadataCacheTtl";
+    private static final String METADATA_CACHE_TTL_ENV_TAG = "METADATA_CACHE_TTL";
+
+    public static final long DEFAULT_TTL = 30000;
+
+    private Long ttl;
+
+    /**
+     *
+     * @param ttl time to live of the cached metadata in milliseconds, 0 disables the cache, may be null
+     */
+    public MetadataCacheProperty(Long ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * return the ttl set in the constructor or the ttl set using the metadataCacheTtl system property
+     * or the METADATA_CACHE_TTL environment variable
+     * */
+    public long get() {
+        if (ttl != null) {
+            return ttl;
+        }
+
+        String ttlProp = System.getProperty(METADATA_CACHE_TTL_PROP_TAG);
+        if (ttlProp != null) {
+            return Long.valueOf(ttlProp);
+        }
+
+        String ttlEnv = System.getenv(METADATA_CACHE_TTL_ENV_TAG);
+        if (ttlEnv != null) {
+            return Long.valueOf(ttlEnv);
+        }
+
+        return DEFAULT_TTL;
+    }
+
+}
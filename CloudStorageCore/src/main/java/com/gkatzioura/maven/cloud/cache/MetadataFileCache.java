@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.gkatzioura.maven.cloud.transfer.DigestingOutputStream;
+import com.gkatzioura.maven.cloud.transfer.TransferDigests;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+import com.gkatzioura.maven.cloud.transfer.TransferProgressFileOutputStream;
+
+/**
+ * On disk cache of maven-metadata.xml files, which every snapshot and version range resolution fetches again.
+ * Each entry keeps the body along with the ETag or generation it was downloaded with, so that the next fetch
+ * only has to revalidate it, with a conditional GET or a metadata request, instead of transferring it again.
+ * An entry is a single file replaced atomically, so several maven processes can share the directory.
+ */
+public class MetadataFileCache {
+
+    private static final Logger LOGGER = Logger.getLogger(MetadataFileCache.class.getName());
+
+    private static final String METADATA_FILE = "maven-metadata.xml";
+
+    /**
+     * Metadata files are small, larger bodies are not worth keeping
+     */
+    public static final long MAX_BODY_SIZE = 1024 * 1024;
+
+    private final MetadataFileCacheProperty metadataFileCacheProperty;
+
+    public MetadataFileCache(MetadataFileCacheProperty metadataFileCacheProperty) {
+        this.metadataFileCacheProperty = metadataFileCacheProperty;
+    }
+
+    /**
+     * @return true if the cache is enabled and the key is a maven-metadata.xml file
+     */
+    public boolean isCacheable(String key) {
+        return isMetadataFile(key) && metadataFileCacheProperty.isEnabled();
+    }
+
+    static boolean isMetadataFile(String key) {
+        return key.equals(METADATA_FILE) || key.endsWith("/" + METADATA_FILE);
+    }
+
+    /**
+     * @return the cached entry or null if there is none or it cannot be read
+     */
+    public Entry get(String repository, String key) {
+        File entryFile = entryFile(repository, key);
+
+        try (DataInputStream dataInputStream = new DataInputStream(new FileInputStream(entryFile))) {
+            String validator = dataInputStream.readUTF();
+            long lastModified = dataInputStream.readLong();
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = dataInputStream.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+            return new Entry(validator, lastModified, body.toByteArray());
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not read cached metadata of %s", key), e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the downloaded body with the validator it was downloaded with, failures are only logged
+     *
+     * @param validator the ETag or the generation of the body
+     */
+    public void put(String repository, String key, File body, String validator, long lastModified) {
+        if (validator == null || body.length() > MAX_BODY_SIZE) {
+            return;
+        }
+
+        File directory = metadataFileCacheProperty.getDirectory();
+        File entryFile = entryFile(repository, key);
+        File tempFile = null;
+
+        try {
+            directory.mkdirs();
+            tempFile = File.createTempFile("entry", ".tmp", directory);
+
+            try (DataOutputStream dataOutputStream = new DataOutputStream(new FileOutputStream(tempFile))) {
+                dataOutputStream.writeUTF(validator);
+                dataOutputStream.writeLong(lastModified);
+                Files.copy(body.toPath(), dataOutputStream);
+            }
+
+            CacheFiles.replace(tempFile, entryFile);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not cache metadata of %s", key), e);
+        } finally {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    public void invalidate(String repository, String key) {
+        entryFile(repository, key).delete();
+    }
+
+    private File entryFile(String repository, String key) {
+        return new File(metadataFileCacheProperty.getDirectory(), CacheFiles.entryName(repository, key));
+    }
+
+    public static final class Entry implements CachedFile {
+
+        private final String validator;
+        private final long lastModified;
+        private final byte[] body;
+
+        private Entry(String validator, long lastModified, byte[] body) {
+            this.validator = validator;
+            this.lastModified = lastModified;
+            this.body = body;
+        }
+
+        @Override
+        public String getValidator() {
+            return validator;
+        }
+
+        @Override
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public void writeTo(File destination, TransferProgress transferProgress, TransferDigests transferDigests) throws IOException {
+            if (destination.getParentFile() != null) {
+                destination.getParentFile().mkdirs();
+            }
+
+            //the destination may be a hard link into the content cache, so it is replaced rather than written in place
+            File tempFile = File.createTempFile(destination.getName(), ".tmp", destination.getAbsoluteFile().getParentFile());
+            try {
+                OutputStream fileOutputStream = transferProgress == null ? new FileOutputStream(tempFile) : new TransferProgressFileOutputStream(tempFile, transferProgress);
+                try (OutputStream outputStream = transferDigests == null ? fileOutputStream : new DigestingOutputStream(fileOutputStream, transferDigests)) {
+                    outputStream.write(body);
+                }
+                CacheFiles.replace(tempFile, destination);
+            } finally {
+                tempFile.delete();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.cache;
+
+import java.io.File;
+
+public class MetadataFileCacheProperty {
+
+    private static final String METADATA_FILE_CACHE_PROP_TAG = "metadataFileCache";
+    private static final String METADATA_FILE_CACHE_ENV_TAG = "METADATA_FILE_CACHE";
+    private static final String METADATA_FILE_CACHE_DIR_PROP_TAG = "metadataFileCacheDir";
+    private static final String METADATA_FILE_CACHE_DIR_ENV_TAG = "METADATA_FILE_CACHE_DIR";
+
+    private Boolean enabled;
+    private String directory;
+
+    /**
+     *
+     * @param enabled whether maven-metadata.xml files are cached on disk, may be null
+     * @param directory the directory of the cache, may be null
+     */
+    public MetadataFileCacheProperty(Boolean enabled, String directory) {
+        this.enabled = enabled;
+        this.directory = directory;
+    }
+
+    public static final MetadataFileCacheProperty empty() {
+        return new MetadataFileCacheProperty(null, null);
+    }
+
+    /**
+     * return the value set in the constructor or the value set using the metadataFileCache system property
+     * or the METADATA_FILE_CACHE environment variable, true if none is set
+     * */
+    public boolean isEnabled() {
+        if (enabled != null) {
+            return enabled;
+        }
+
+        String value = resolve(METADATA_FILE_CACHE_PROP_TAG, METADATA_FILE_CACHE_ENV_TAG);
+        return value == null || Boolean.valueOf(value);
+    }
+
+    /**
+     * return the directory set in the constructor or the directory set using the metadataFileCacheDir system property
+     * or the METADATA_FILE_CACHE_DIR environment variable, .m2/cloud-storage-cache/metadata in the user home if none is set
+     * */
+    public File getDirectory() {
+        if (directory != null) {
+            return new File(directory);
+        }
+
+        String value = resolve(METADATA_FILE_CACHE_DIR_PROP_TAG, METADATA_FILE_CACHE_DIR_ENV_TAG);
+        if (value != null) {
+            return new File(value);
+        }
+
+        return new File(System.getProperty("user.home"), ".m2" + File.separator + "cloud-storage-cache" + File.separator + "metadata");
+    }
+
+    private String resolve(String propTag, String envTag) {
+        String prop = System.getProperty(propTag);
+        if (prop != null) {
+            return prop;
+        }
+        return System.getenv(envTag);
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Process wide cache of keys a repository reported as missing. Maven probes every configured repository for every
+ * artifact, so most lookups are misses, which this cache answers without a request until they expire.
+ * Misses have their own, short, TTL and bound, apart from the {@link MetadataCache} of existing keys, and a put
+ * of the key through the wagon invalidates its entry.
+ */
+public class NegativeLookupCache {
+
+    private static final NegativeLookupCache INSTANCE = new NegativeLookupCache(NegativeLookupCacheProperty.empty(), System::currentTimeMillis);
+
+    private final NegativeLookupCacheProperty negativeLookupCacheProperty;
+    private final LongSupplier clock;
+    private final Map<CacheKey, Long> expirations;
+
+    NegativeLookupCache(NegativeLookupCacheProperty negativeLookupCacheProperty, LongSupplier clock) {
+        this.negativeLookupCacheProperty = negativeLookupCacheProperty;
+        this.clock = clock;
+        int maxEntries = negativeLookupCacheProperty.getMaxEntries();
+        this.expirations = new LinkedHashMap<CacheKey, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public static NegativeLookupCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return true if the key was reported missing and the miss has not expired
+     */
+    public synchronized boolean isMissing(String repository, String key) {
+        CacheKey cacheKey = new CacheKey(repository, key);
+        Long expiresAt = expirations.get(cacheKey);
+
+        if (expiresAt == null) {
+            return false;
+        }
+
+        if (expiresAt <= clock.getAsLong()) {
+            expirations.remove(cacheKey);
+            return false;
+        }
+
+        return true;
+    }
+
+    public synchronized void putMissing(String repository, String key) {
+        long ttl = negativeLookupCacheProperty.getTtl();
+        if (ttl <= 0) {
+            return;
+        }
+        expirations.put(new CacheKey(repository, key), clock.getAsLong() + ttl);
+    }
+
+    public synchronized void invalidate(String repository, String key) {
+        expirations.remove(new CacheKey(repository, key));
+    }
+
+    public synchronized void clear() {
+        expirations.clear();
+    }
+
+    private static final class CacheKey {
+
+        private final String repository;
+        private final String key;
+
+        private CacheKey(String repository, String key) {
+            this.repository = repository;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey cacheKey = (CacheKey) o;
+            return repository.equals(cacheKey.repository) && key.equals(cacheKey.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(repository, key);
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.cache;
+
+public class NegativeLookupCacheProperty {
+
+    private static final String NEGATIVE_CACHE_TTL_PROP_TAG = "negativeCacheTtl";
+    private static final String NEGATIVE_CACHE_TTL_ENV_TAG = "NEGATIVE_CACHE_TTL";
+    private static final String NEGATIVE_CACHE_MAX_ENTRIES_PROP_TAG = "negativeCacheMaxEntries";
+    private static final String NEGATIVE_CACHE_MAX_ENTRIES_ENV_TAG = "NEGATIVE_CACHE_MAX_ENTRIES";
+
+    public static final long DEFAULT_TTL = 60000;
+    public static final int DEFAULT_MAX_ENTRIES = 50000;
+
+    private Long ttl;
+    private Integer maxEntries;
+
+    /**
+     *
+     * @param ttl time to live of a cached miss in milliseconds, 0 disables the cache, may be null
+     * @param maxEntries number of misses kept before the least recently used ones are evicted, may be null
+     */
+    public NegativeLookupCacheProperty(Long ttl, Integer maxEntries) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+    }
+
+    public static final NegativeLookupCacheProperty empty() {
+        return new NegativeLookupCacheProperty(null, null);
+    }
+
+    /**
+     * return the ttl set in the constructor or the ttl set using the negativeCacheTtl system property
+     * or the NEGATIVE_CACHE_TTL environment variable
+     * */
+    public long getTtl() {
+        if (ttl != null) {
+            return ttl;
+        }
+
+        String value = resolve(NEGATIVE_CACHE_TTL_PROP_TAG, NEGATIVE_CACHE_TTL_ENV_TAG);
+        return value == null ? DEFAULT_TTL : Long.valueOf(value);
+    }
+
+    /**
+     * return the number set in the constructor or the number set using the negativeCacheMaxEntries system property
+     * or the NEGATIVE_CACHE_MAX_ENTRIES environment variable
+     * */
+    public int getMaxEntries() {
+        if (maxEntries != null) {
+            return maxEntries;
+        }
+
+        String value = resolve(NEGATIVE_CACHE_MAX_ENTRIES_PROP_TAG, NEGATIVE_CACHE_MAX_ENTRIES_ENV_TAG);
+        return value == null ? DEFAULT_MAX_ENTRIES : Integer.valueOf(value);
+    }
+
+    private String resolve(String propTag, String envTag) {
+        String prop = System.getProperty(propTag);
+        if (prop != null) {
+            return prop;
+        }
+        return System.getenv(envTag);
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.cache;
+
+/**
+ * What a storage provider reported about a key the last time it was asked.
+ */
+public final class ResourceMetadata {
+
+    private static final ResourceMetadata MISSING = new ResourceMetadata(false, 0, -1);
+
+    private final boolean exists;
+    private final long lastModified;
+    private final long contentLength;
+
+    private ResourceMetadata(boolean exists, long lastModified, long contentLength) {
+        this.exists = exists;
+        this.lastModified = lastModified;
+        this.contentLength = contentLength;
+    }
+
+    public static ResourceMetadata of(long lastModified, long contentLength) {
+        return new ResourceMetadata(true, lastModified, contentLength);
+    }
+
+    public static ResourceMetadata missing() {
+        return MISSING;
+    }
+
+    public boolean exists() {
+        return exists;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public long getContentLength() {
+        return contentLength;
+    }
+
+}
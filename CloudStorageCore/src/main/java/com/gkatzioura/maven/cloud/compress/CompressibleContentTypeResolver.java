@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.compress;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Content types of the text resources of a repository, which are worth compressing.
+ * Jars, zips and other archives are compressed already and are not in the table.
+ */
+public class CompressibleContentTypeResolver {
+
+    private static final Map<String, String> CONTENT_TYPES = new HashMap<>();
+
+    static {
+        CONTENT_TYPES.put("pom", "application/xml");
+        CONTENT_TYPES.put("xml", "application/xml");
+        CONTENT_TYPES.put("md5", "text/plain");
+        CONTENT_TYPES.put("sha1", "text/plain");
+        CONTENT_TYPES.put("sha256", "text/plain");
+        CONTENT_TYPES.put("sha512", "text/plain");
+        CONTENT_TYPES.put("asc", "text/plain");
+        CONTENT_TYPES.put("txt", "text/plain");
+        CONTENT_TYPES.put("properties", "text/plain");
+        CONTENT_TYPES.put("module", "application/json");
+        CONTENT_TYPES.put("json", "application/json");
+        CONTENT_TYPES.put("htm", "text/html");
+        CONTENT_TYPES.put("html", "text/html");
+        CONTENT_TYPES.put("css", "text/css");
+        CONTENT_TYPES.put("js", "text/javascript");
+        CONTENT_TYPES.put("svg", "image/svg+xml");
+    }
+
+    /**
+     * @return the content type of a text resource, null if the resource is not compressible
+     */
+    public static String getContentType(String resourceName) {
+        String name = resourceName.toLowerCase(Locale.ROOT);
+        int dot = name.lastIndexOf('.');
+        if (dot == -1 || dot < name.lastIndexOf('/')) {
+            return null;
+        }
+        return CONTENT_TYPES.get(name.substring(dot + 1));
+    }
+
+}
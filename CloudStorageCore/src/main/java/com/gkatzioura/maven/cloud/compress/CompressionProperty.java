@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.compress;
+
+public class CompressionProperty {
+
+    private static final String GZIP_UPLOAD_PROP_TAG = "gzipUpload";
+    private static final String GZIP_UPLOAD_ENV_TAG = "GZIP_UPLOAD";
+
+    private Boolean gzipUpload;
+
+    /**
+     *
+     * @param gzipUpload whether text resources are gzipped on upload, may be null
+     */
+    public CompressionProperty(Boolean gzipUpload) {
+        this.gzipUpload = gzipUpload;
+    }
+
+    public static final CompressionProperty empty() {
+        return new CompressionProperty(null);
+    }
+
+    /**
+     * return the value set in the constructor or the value set using the gzipUpload system property
+     * or the GZIP_UPLOAD environment variable, false if none is set
+     * */
+    public boolean get() {
+        if (gzipUpload != null) {
+            return gzipUpload;
+        }
+
+        String gzipUploadProp = System.getProperty(GZIP_UPLOAD_PROP_TAG);
+        if (gzipUploadProp != null) {
+            return Boolean.valueOf(gzipUploadProp);
+        }
+
+        String gzipUploadEnv = System.getenv(GZIP_UPLOAD_ENV_TAG);
+        if (gzipUploadEnv != null) {
+            return Boolean.valueOf(gzipUploadEnv);
+        }
+
+        return false;
+    }
+
+    /**
+     * @return true if compression is enabled and the resource has a text content type
+     */
+    public boolean isCompressed(String resourceName) {
+        return get() && CompressibleContentTypeResolver.getContentType(resourceName) != null;
+    }
+
+}
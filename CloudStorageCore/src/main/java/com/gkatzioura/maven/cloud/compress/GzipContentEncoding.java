@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.compress;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.gkatzioura.maven.cloud.transfer.DigestingInputStream;
+import com.gkatzioura.maven.cloud.transfer.TransferDigests;
+
+/**
+ * Gzips resources before their upload and inflates gzip encoded resources while they are downloaded.
+ */
+public class GzipContentEncoding {
+
+    public static final String GZIP = "gzip";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Gzips the file into a temporary file, which the caller uploads and deletes.
+     *
+     * @param transferDigests fed with the uncompressed bytes, so the digests are those of the file, may be null
+     */
+    public static File compress(File file, TransferDigests transferDigests) throws IOException {
+        File compressed = File.createTempFile("upload", ".gz");
+
+        try (InputStream fileInputStream = new FileInputStream(file);
+             InputStream inputStream = transferDigests == null ? fileInputStream : new DigestingInputStream(fileInputStream, transferDigests);
+             OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(compressed), BUFFER_SIZE)) {
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            compressed.delete();
+            throw e;
+        }
+
+        return compressed;
+    }
+
+    public static boolean isGzip(String contentEncoding) {
+        return contentEncoding != null && GZIP.equalsIgnoreCase(contentEncoding.trim());
+    }
+
+    /**
+     * Inflates a gzip encoded stream. Some clients inflate such resources on their own,
+     * so the stream is only inflated if it still starts with the gzip magic number.
+     */
+    public static InputStream decompress(InputStream inputStream) throws IOException {
+        PushbackInputStream pushbackInputStream = new PushbackInputStream(inputStream, 2);
+
+        byte[] magic = new byte[2];
+        int read = 0;
+        int count;
+        while (read < magic.length && (count = pushbackInputStream.read(magic, read, magic.length - read)) != -1) {
+            read += count;
+        }
+        pushbackInputStream.unread(magic, 0, read);
+
+        if (read == magic.length && (magic[0] & 0xFF) == 0x1f && (magic[1] & 0xFF) == 0x8b) {
+            return new GZIPInputStream(pushbackInputStream, BUFFER_SIZE);
+        }
+        return pushbackInputStream;
+    }
+
+}
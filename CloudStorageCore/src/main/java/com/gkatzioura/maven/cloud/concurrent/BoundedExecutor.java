@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.concurrent;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs tasks on a fixed number of threads while bounding the number of tasks waiting to run.
+ * {@link #submit(Task)} blocks once the bound is reached, so a producer such as a file walk or a
+ * paged listing never gets far ahead of the workers.
+ * The first failing task aborts the whole batch: tasks that have not started yet are skipped and
+ * the failure is rethrown by {@link #submit(Task)} and {@link #await()}.
+ */
+public class BoundedExecutor implements AutoCloseable {
+
+    private final ExecutorService executorService;
+    private final Semaphore permits;
+    private final int capacity;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    public BoundedExecutor(String name, int concurrency) {
+        this(name, concurrency, concurrency);
+    }
+
+    /**
+     * @param name prefix of the worker thread names
+     * @param concurrency number of tasks running in parallel
+     * @param queueCapacity number of tasks waiting for a worker before {@link #submit(Task)} blocks
+     */
+    public BoundedExecutor(String name, int concurrency, int queueCapacity) {
+        this.executorService = Executors.newFixedThreadPool(concurrency, new DaemonThreadFactory(name));
+        this.capacity = concurrency + queueCapacity;
+        this.permits = new Semaphore(capacity);
+    }
+
+    /**
+     * Schedules a task, blocking while the executor is saturated
+     *
+     * @param task the task to run
+     * @throws ExecutionException if a previously submitted task has failed
+     * @throws InterruptedException if interrupted while waiting for capacity
+     */
+    public void submit(Task task) throws ExecutionException, InterruptedException {
+        throwIfFailed();
+        permits.acquire();
+
+        try {
+            executorService.execute(() -> run(task));
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for every submitted task to finish or be skipped
+     *
+     * @throws ExecutionException with the first failure of a task
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void await() throws ExecutionException, InterruptedException {
+        permits.acquire(capacity);
+        permits.release(capacity);
+        throwIfFailed();
+    }
+
+    public boolean hasFailed() {
+        return failure.get() != null;
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdownNow();
+    }
+
+    private void run(Task task) {
+        try {
+            if (failure.get() == null) {
+                task.run();
+            }
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void throwIfFailed() throws ExecutionException {
+        Throwable throwable = failure.get();
+        if (throwable != null) {
+            throw new ExecutionException(throwable);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Task {
+
+        void run() throws Exception;
+
+    }
+
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compact, sorted, binary index of the resource names of a repository, read through a memory mapping.
+ * The file starts with a header carrying the generation of the index, followed by a Bloom filter that rejects
+ * most lookups of missing names without touching the names, the offsets of the names and the names themselves,
+ * UTF-8 encoded and sorted by their bytes so that lookups and prefix listings are binary searches.
+ */
+public final class KeyIndex {
+
+    /**
+     * Name of the published index, relative to the base directory of the repository
+     */
+    public static final String RESOURCE_NAME = ".cloud-storage/keys.idx";
+
+    private static final int MAGIC = 0x43534b49;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 28;
+
+    private static final int BLOOM_HASHES = 7;
+    private static final int BLOOM_BITS_PER_KEY = 10;
+
+    private final ByteBuffer buffer;
+    private final long generation;
+    private final int keyCount;
+    private final int bloomHashes;
+    private final int bloomWords;
+    private final int offsetsStart;
+    private final int keysStart;
+
+    private KeyIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a key index");
+        }
+
+        this.generation = buffer.getLong(8);
+        this.keyCount = buffer.getInt(16);
+        this.bloomHashes = buffer.getInt(20);
+        this.bloomWords = buffer.getInt(24);
+        this.offsetsStart = HEADER_SIZE + bloomWords * 8;
+        this.keysStart = offsetsStart + (keyCount + 1) * 4;
+
+        if (keysStart > buffer.capacity() || keysStart + buffer.getInt(offsetsStart + keyCount * 4) > buffer.capacity()) {
+            throw new IOException("Truncated key index");
+        }
+    }
+
+    /**
+     * Memory maps the index file, the mapping stays valid after the file is replaced or deleted
+     */
+    public static KeyIndex map(File file) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new KeyIndex(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size()));
+        }
+    }
+
+    /**
+     * @return the generation of the index file, read from its header
+     */
+    public static long readGeneration(File file) throws IOException {
+        try (DataInputStream dataInputStream = new DataInputStream(new FileInputStream(file))) {
+            if (dataInputStream.readInt() != MAGIC || dataInputStream.readInt() != VERSION) {
+                throw new IOException("Not a key index");
+            }
+            return dataInputStream.readLong();
+        }
+    }
+
+    /**
+     * Writes an index of the resource names
+     */
+    public static void write(File file, long generation, Collection<String> resourceNames) throws IOException {
+        List<byte[]> keys = new ArrayList<>();
+        for (String resourceName : new LinkedHashSet<>(resourceNames)) {
+            keys.add(normalize(resourceName).getBytes(StandardCharsets.UTF_8));
+        }
+        keys.sort(KeyIndex::compare);
+
+        int bloomWords = Math.max(1, (keys.size() * BLOOM_BITS_PER_KEY + 63) / 64);
+        long[] bloom = new long[bloomWords];
+        for (byte[] key : keys) {
+            long bits = bloomWords * 64L;
+            int hash1 = hash1(key);
+            int hash2 = hash2(key);
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                long bit = Integer.toUnsignedLong(hash1 + i * hash2) % bits;
+                bloom[(int) (bit >>> 6)] |= 1L << (bit & 63);
+            }
+        }
+
+        try (DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            dataOutputStream.writeInt(MAGIC);
+            dataOutputStream.writeInt(VERSION);
+            dataOutputStream.writeLong(generation);
+            dataOutputStream.writeInt(keys.size());
+            dataOutputStream.writeInt(BLOOM_HASHES);
+            dataOutputStream.writeInt(bloomWords);
+            for (long word : bloom) {
+                dataOutputStream.writeLong(word);
+            }
+
+            int offset = 0;
+            dataOutputStream.writeInt(offset);
+            for (byte[] key : keys) {
+                offset += key.length;
+                dataOutputStream.writeInt(offset);
+            }
+            for (byte[] key : keys) {
+                dataOutputStream.write(key);
+            }
+        }
+    }
+
+    /**
+     * Resource names are indexed relative to the base directory, without a leading slash
+     */
+    public static String normalize(String resourceName) {
+        String normalized = resourceName.replace('\\', '/');
+        while (normalized.startsWith("./") || normalized.startsWith("/")) {
+            normalized = normalized.substring(normalized.startsWith("/") ? 1 : 2);
+        }
+        return normalized;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int size() {
+        return keyCount;
+    }
+
+    public boolean contains(String resourceName) {
+        byte[] key = normalize(resourceName).getBytes(StandardCharsets.UTF_8);
+        if (!mightContain(key)) {
+            return false;
+        }
+
+        int index = lowerBound(key);
+        return index < keyCount && compare(index, key) == 0;
+    }
+
+    /**
+     * @return the immediate children of the path, directories end with a "/"
+     */
+    public List<String> listChildren(String path) {
+        String prefix = normalize(path);
+        if (!prefix.isEmpty() && !prefix.endsWith("/")) {
+            prefix = prefix + "/";
+        }
+
+        byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        Set<String> children = new LinkedHashSet<>();
+
+        for (int index = lowerBound(prefixBytes); index < keyCount && startsWith(index, prefixBytes); index++) {
+            String rest = key(index).substring(prefix.length());
+            int slash = rest.indexOf('/');
+            if (!rest.isEmpty()) {
+                children.add(slash < 0 ? rest : rest.substring(0, slash + 1));
+            }
+        }
+
+        return new ArrayList<>(children);
+    }
+
+    /**
+     * @return every indexed resource name
+     */
+    public List<String> keys() {
+        List<String> keys = new ArrayList<>(keyCount);
+        for (int index = 0; index < keyCount; index++) {
+            keys.add(key(index));
+        }
+        return keys;
+    }
+
+    boolean mightContain(byte[] key) {
+        long bits = bloomWords * 64L;
+        int hash1 = hash1(key);
+        int hash2 = hash2(key);
+        for (int i = 0; i < bloomHashes; i++) {
+            long bit = Integer.toUnsignedLong(hash1 + i * hash2) % bits;
+            if ((buffer.getLong(HEADER_SIZE + (int) (bit >>> 6) * 8) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int lowerBound(byte[] key) {
+        int low = 0;
+        int high = keyCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(middle, key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int start(int index) {
+        return keysStart + buffer.getInt(offsetsStart + index * 4);
+    }
+
+    private int length(int index) {
+        return buffer.getInt(offsetsStart + (index + 1) * 4) - buffer.getInt(offsetsStart + index * 4);
+    }
+
+    private String key(int index) {
+        byte[] bytes = new byte[length(index)];
+        int start = start(index);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int compare(int index, byte[] key) {
+        int start = start(index);
+        int length = length(index);
+        for (int i = 0; i < Math.min(length, key.length); i++) {
+            int difference = (buffer.get(start + i) & 0xff) - (key[i] & 0xff);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+
+    private boolean startsWith(int index, byte[] prefix) {
+        if (length(index) < prefix.length) {
+            return false;
+        }
+        int start = start(index);
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compare(byte[] first, byte[] second) {
+        for (int i = 0; i < Math.min(first.length, second.length); i++) {
+            int difference = (first[i] & 0xff) - (second[i] & 0xff);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return first.length - second.length;
+    }
+
+    /**
+     * FNV-1a
+     */
+    private static int hash1(byte[] key) {
+        int hash = 0x811c9dc5;
+        for (byte b : key) {
+            hash ^= b & 0xff;
+            hash *= 0x01000193;
+        }
+        return hash;
+    }
+
+    private static int hash2(byte[] key) {
+        int hash = 17;
+        for (byte b : key) {
+            hash = 31 * hash + b;
+        }
+        //an odd step visits different bits for every hash
+        return hash | 1;
+    }
+
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.gkatzioura.maven.cloud.cache.CacheFiles;
+
+/**
+ * Keeps a local, memory mapped copy of the {@link KeyIndex} published for a repository.
+ * The copy is trusted for the ttl and then revalidated with one conditional download. A downloaded index with a
+ * lower generation than the local copy is a stale replica and is ignored. Deploys and goals publish the resources
+ * they put or delete by merging them into the latest index and uploading it with a higher generation, provided
+ * nobody published another index meanwhile.
+ */
+public class KeyIndexManager {
+
+    private static final Logger LOGGER = Logger.getLogger(KeyIndexManager.class.getName());
+
+    private static final int MAX_PUBLISH_ATTEMPTS = 5;
+
+    private static final Map<String, KeyIndexManager> MANAGERS = new HashMap<>();
+
+    private final String repository;
+    private final KeyIndexProperty keyIndexProperty;
+    private final LongSupplier clock;
+
+    private KeyIndex keyIndex;
+    private String validator;
+    private boolean localCopyLoaded;
+    private long validatedAt;
+    private boolean validated;
+    private boolean rebuilt;
+
+    KeyIndexManager(String repository, KeyIndexProperty keyIndexProperty, LongSupplier clock) {
+        this.repository = repository;
+        this.keyIndexProperty = keyIndexProperty;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the process wide manager of the index of the repository
+     */
+    public static synchronized KeyIndexManager forRepository(String repository, KeyIndexProperty keyIndexProperty) {
+        return MANAGERS.computeIfAbsent(repository, r -> new KeyIndexManager(r, keyIndexProperty, System::currentTimeMillis));
+    }
+
+    /**
+     * @return the index, revalidated if it is older than the ttl, null if none is published or it could not be read
+     */
+    public synchronized KeyIndex get(PublishedKeyIndex publishedKeyIndex) {
+        if (validated && clock.getAsLong() - validatedAt < keyIndexProperty.getTtl()) {
+            return keyIndex;
+        }
+
+        try {
+            refresh(publishedKeyIndex);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not revalidate the key index of " + repository, e);
+            return null;
+        }
+        return keyIndex;
+    }
+
+    /**
+     * Adds the resource names to the published index, building the index from a listing if none is published
+     */
+    public synchronized void publish(Collection<String> resourceNames, PublishedKeyIndex publishedKeyIndex) throws IOException {
+        update(resourceNames, Collections.emptyList(), true, publishedKeyIndex);
+    }
+
+    /**
+     * Adds and removes resource names of the published index
+     *
+     * @param createIfMissing whether an index is built from a listing if none is published, otherwise there is nothing to update
+     */
+    public synchronized void update(Collection<String> added, Collection<String> removed, boolean createIfMissing, PublishedKeyIndex publishedKeyIndex) throws IOException {
+        update(added, removed, createIfMissing, false, publishedKeyIndex);
+    }
+
+    /**
+     * Replaces the published index with one built from a listing of the repository, picking up the resources
+     * put or deleted by clients that do not maintain the index. Done once per process, later calls do nothing.
+     */
+    public synchronized void rebuild(PublishedKeyIndex publishedKeyIndex) throws IOException {
+        if (rebuilt) {
+            return;
+        }
+        update(Collections.emptyList(), Collections.emptyList(), true, true, publishedKeyIndex);
+        rebuilt = true;
+    }
+
+    private void update(Collection<String> added, Collection<String> removed, boolean createIfMissing, boolean relist, PublishedKeyIndex publishedKeyIndex) throws IOException {
+        for (int attempt = 1; attempt <= MAX_PUBLISH_ATTEMPTS; attempt++) {
+            refresh(publishedKeyIndex);
+            if (keyIndex == null && !createIfMissing) {
+                return;
+            }
+
+            Set<String> keys = new LinkedHashSet<>(relist || keyIndex == null ? publishedKeyIndex.listResourceNames() : keyIndex.keys());
+            for (String resourceName : added) {
+                keys.add(KeyIndex.normalize(resourceName));
+            }
+            for (String resourceName : removed) {
+                keys.remove(KeyIndex.normalize(resourceName));
+            }
+            keys.remove(KeyIndex.RESOURCE_NAME);
+            long generation = keyIndex == null ? 1 : keyIndex.getGeneration() + 1;
+
+            File temp = createTempFile();
+            try {
+                KeyIndex.write(temp, generation, keys);
+
+                String published = publishedKeyIndex.uploadKeyIndex(temp, validator);
+                if (published != null) {
+                    store(temp, published);
+                    validatedAt = clock.getAsLong();
+                    LOGGER.log(Level.FINER, "Published generation {0} of the key index of {1}", new Object[]{generation, repository});
+                    return;
+                }
+            } finally {
+                Files.deleteIfExists(temp.toPath());
+            }
+
+            LOGGER.log(Level.FINER, "The key index of {0} changed while publishing, retrying", repository);
+        }
+
+        throw new IOException("Could not publish the key index of " + repository + ", it kept changing");
+    }
+
+    private void refresh(PublishedKeyIndex publishedKeyIndex) throws IOException {
+        loadLocalCopy();
+
+        File temp = createTempFile();
+        try {
+            String published = publishedKeyIndex.downloadKeyIndex(temp, validator);
+
+            if (published == null) {
+                keyIndex = null;
+                validator = null;
+                Files.deleteIfExists(indexFile().toPath());
+                Files.deleteIfExists(validatorFile().toPath());
+            } else if (!published.equals(validator)) {
+                if (keyIndex != null && KeyIndex.readGeneration(temp) < keyIndex.getGeneration()) {
+                    LOGGER.log(Level.FINER, "Ignoring a stale copy of the key index of {0}", repository);
+                } else {
+                    store(temp, published);
+                }
+            }
+
+            validatedAt = clock.getAsLong();
+            validated = true;
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    private void loadLocalCopy() {
+        if (localCopyLoaded) {
+            return;
+        }
+        localCopyLoaded = true;
+
+        File indexFile = indexFile();
+        File validatorFile = validatorFile();
+        if (!indexFile.isFile() || !validatorFile.isFile()) {
+            return;
+        }
+
+        try {
+            //the validator file also carries the generation, so that a copy replaced by another process half way is ignored
+            String[] validatorLines = new String(Files.readAllBytes(validatorFile.toPath()), StandardCharsets.UTF_8).split("\n");
+            KeyIndex localCopy = KeyIndex.map(indexFile);
+            if (validatorLines.length == 2 && Long.parseLong(validatorLines[1]) == localCopy.getGeneration()) {
+                keyIndex = localCopy;
+                validator = validatorLines[0];
+            }
+        } catch (NumberFormatException e) {
+            LOGGER.log(Level.FINER, "Ignoring an unreadable local copy of the key index of " + repository, e);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINER, "Ignoring an unreadable local copy of the key index of " + repository, e);
+        }
+    }
+
+    private void store(File index, String newValidator) throws IOException {
+        File validatorTemp = createTempFile();
+        try {
+            String validatorLines = newValidator + "\n" + KeyIndex.readGeneration(index);
+            Files.write(validatorTemp.toPath(), validatorLines.getBytes(StandardCharsets.UTF_8));
+            CacheFiles.replace(index, indexFile());
+            CacheFiles.replace(validatorTemp, validatorFile());
+        } finally {
+            Files.deleteIfExists(validatorTemp.toPath());
+        }
+
+        keyIndex = KeyIndex.map(indexFile());
+        validator = newValidator;
+    }
+
+    private File createTempFile() throws IOException {
+        File directory = keyIndexProperty.getDirectory();
+        Files.createDirectories(directory.toPath());
+        return File.createTempFile("keys", ".tmp", directory);
+    }
+
+    private File indexFile() {
+        return new File(keyIndexProperty.getDirectory(), CacheFiles.entryName(repository, KeyIndex.RESOURCE_NAME) + ".idx");
+    }
+
+    private File validatorFile() {
+        return new File(keyIndexProperty.getDirectory(), CacheFiles.entryName(repository, KeyIndex.RESOURCE_NAME) + ".validator");
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.index;
+
+import java.io.File;
+
+public class KeyIndexProperty {
+
+    private static final String KEY_INDEX_PROP_TAG = "keyIndex";
+    private static final String KEY_INDEX_ENV_TAG = "KEY_INDEX";
+    private static final String KEY_INDEX_TTL_PROP_TAG = "keyIndexTtl";
+    private static final String KEY_INDEX_TTL_ENV_TAG = "KEY_INDEX_TTL";
+    private static final String KEY_INDEX_DIR_PROP_TAG = "keyIndexDir";
+    private static final String KEY_INDEX_DIR_ENV_TAG = "KEY_INDEX_DIR";
+    private static final String KEY_INDEX_REBUILD_PROP_TAG = "keyIndexRebuild";
+    private static final String KEY_INDEX_REBUILD_ENV_TAG = "KEY_INDEX_REBUILD";
+
+    public static final long DEFAULT_TTL = 60000;
+
+    private Boolean enabled;
+    private Long ttl;
+    private String directory;
+    private Boolean rebuild;
+
+    /**
+     *
+     * @param enabled whether existence checks and listings are answered from the published key index, may be null
+     * @param ttl milliseconds a local copy of the index is used before it is revalidated, may be null
+     * @param directory directory the local copies of the indexes are kept in, may be null
+     * @param rebuild whether the published index is rebuilt from a listing of the repository on connect, may be null
+     */
+    public KeyIndexProperty(Boolean enabled, Long ttl, String directory, Boolean rebuild) {
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.directory = directory;
+        this.rebuild = rebuild;
+    }
+
+    public static final KeyIndexProperty empty() {
+        return new KeyIndexProperty(null, null, null, null);
+    }
+
+    /**
+     * return the value set in the constructor or the value set using the keyIndex system property
+     * or the KEY_INDEX environment variable, false if none is set
+     * */
+    public boolean isEnabled() {
+        if (enabled != null) {
+            return enabled;
+        }
+
+        String value = resolve(KEY_INDEX_PROP_TAG, KEY_INDEX_ENV_TAG);
+        return value != null && Boolean.valueOf(value);
+    }
+
+    /**
+     * return the ttl set in the constructor or the ttl set using the keyIndexTtl system property
+     * or the KEY_INDEX_TTL environment variable
+     * */
+    public long getTtl() {
+        if (ttl != null) {
+            return ttl;
+        }
+
+        String value = resolve(KEY_INDEX_TTL_PROP_TAG, KEY_INDEX_TTL_ENV_TAG);
+        return value == null ? DEFAULT_TTL : Long.valueOf(value);
+    }
+
+    /**
+     * return the directory set in the constructor or the directory set using the keyIndexDir system property
+     * or the KEY_INDEX_DIR environment variable, .m2/cloud-storage-cache/index in the user home if none is set
+     * */
+    public File getDirectory() {
+        if (directory != null) {
+            return new File(directory);
+        }
+
+        String value = resolve(KEY_INDEX_DIR_PROP_TAG, KEY_INDEX_DIR_ENV_TAG);
+        if (value != null) {
+            return new File(value);
+        }
+        return new File(System.getProperty("user.home"), ".m2" + File.separator + "cloud-storage-cache" + File.separator + "index");
+    }
+
+    /**
+     * return the value set in the constructor or the value set using the keyIndexRebuild system property
+     * or the KEY_INDEX_REBUILD environment variable, false if none is set
+     * */
+    public boolean isRebuild() {
+        if (rebuild != null) {
+            return rebuild;
+        }
+
+        String value = resolve(KEY_INDEX_REBUILD_PROP_TAG, KEY_INDEX_REBUILD_ENV_TAG);
+        return value != null && Boolean.valueOf(value);
+    }
+
+    private String resolve(String propTag, String envTag) {
+        String prop = System.getProperty(propTag);
+        if (prop != null) {
+            return prop;
+        }
+        return System.getenv(envTag);
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the keys a goal puts or deletes outside of a wagon and publishes them to the key index of the repository
+ * with the base directory. Keys outside of the base directory are ignored. An index already published is always
+ * updated, a missing one is only built if the key index is enabled.
+ */
+public class KeyIndexUpdate {
+
+    private final String repository;
+    private final String prefix;
+    private final KeyIndexProperty keyIndexProperty;
+
+    private final Set<String> added = new LinkedHashSet<>();
+    private final Set<String> removed = new LinkedHashSet<>();
+
+    /**
+     * @param repository the url of the repository, as used by the wagon
+     * @param baseDirectory the key of the base directory of the repository, empty for the root of the bucket or container
+     */
+    public KeyIndexUpdate(String repository, String baseDirectory, KeyIndexProperty keyIndexProperty) {
+        this.repository = repository;
+        this.prefix = baseDirectory == null || baseDirectory.isEmpty() || baseDirectory.endsWith("/") ? nullToEmpty(baseDirectory) : baseDirectory + "/";
+        this.keyIndexProperty = keyIndexProperty;
+    }
+
+    public synchronized void added(String key) {
+        String resourceName = resourceName(key);
+        if (resourceName != null) {
+            removed.remove(resourceName);
+            added.add(resourceName);
+        }
+    }
+
+    public synchronized void removed(String key) {
+        String resourceName = resourceName(key);
+        if (resourceName != null) {
+            added.remove(resourceName);
+            removed.add(resourceName);
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+
+    public void publish(PublishedKeyIndex publishedKeyIndex) throws IOException {
+        List<String> addedNames;
+        List<String> removedNames;
+        synchronized (this) {
+            if (added.isEmpty() && removed.isEmpty()) {
+                return;
+            }
+            addedNames = new ArrayList<>(added);
+            removedNames = new ArrayList<>(removed);
+        }
+
+        KeyIndexManager.forRepository(repository, keyIndexProperty)
+                       .update(addedNames, removedNames, keyIndexProperty.isEnabled(), publishedKeyIndex);
+    }
+
+    private String resourceName(String key) {
+        if (!key.startsWith(prefix) || key.length() == prefix.length() || key.endsWith("/")) {
+            return null;
+        }
+        String resourceName = key.substring(prefix.length());
+        return KeyIndex.RESOURCE_NAME.equals(resourceName) ? null : resourceName;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The {@link KeyIndex} object of a repository, as stored by its provider.
+ * Validators are opaque versions of the object, an ETag or a generation.
+ */
+public interface PublishedKeyIndex {
+
+    /**
+     * Downloads the published index into the destination, unless it still has the validator
+     *
+     * @param validator the validator of the local copy, may be null
+     * @return the validator of the published index, the given validator if it did not change, null if none is published
+     */
+    String downloadKeyIndex(File destination, String validator) throws IOException;
+
+    /**
+     * Publishes the index, provided the published one still has the validator
+     *
+     * @param validator the validator of the index this one replaces, null if none should be published yet
+     * @return the validator of the published index, null if the published index changed meanwhile
+     */
+    String uploadKeyIndex(File index, String validator) throws IOException;
+
+    /**
+     * @return the names of every resource of the repository, relative to its base directory, to build the first index
+     */
+    List<String> listResourceNames() throws IOException;
+
+}
@@ -24,6 +24,10 @@ import org.apache.maven.wagon.events.TransferEvent;
 import org.apache.maven.wagon.events.TransferListener;
 import org.apache.maven.wagon.resource.Resource;
 
+/**
+ * Events are fired under a lock, since transfers of a single wagon may run on several threads
+ * while {@link TransferListener}s are not expected to be thread safe.
+ */
 public class TransferListenerContainerImpl implements TransferListenerContainer {
 
     private final Wagon wagon;
@@ -55,13 +59,13 @@ public class TransferListenerContainerImpl implements TransferListenerContainer
     }
 
     @Override
-    public void fireTransferInitiated(Resource resource, int requestType) {
+    public synchronized void fireTransferInitiated(Resource resource, int requestType) {
         TransferEvent transferEvent = new TransferEvent(this.wagon,resource,TransferEvent.TRANSFER_INITIATED,requestType);
         transferListeners.forEach(tl->tl.transferInitiated(transferEvent));
     }
 
     @Override
-    public void fireTransferStarted(Resource resource, int requestType, File localFile) {
+    public synchronized void fireTransferStarted(Resource resource, int requestType, File localFile) {
         resource.setContentLength(localFile.length());
         resource.setLastModified(localFile.lastModified());
         TransferEvent transferEvent = new TransferEvent(this.wagon,resource,TransferEvent.TRANSFER_STARTED,requestType);
@@ -70,17 +74,17 @@ public class TransferListenerContainerImpl implements TransferListenerContainer
     }
 
     @Override
-    public void fireTransferProgress(Resource resource, int requestType, byte[] buffer, int length) {
+    public synchronized void fireTransferProgress(Resource resource, int requestType, byte[] buffer, int length) {
         TransferEvent transferEvent = new TransferEvent(this.wagon, resource, TransferEvent.TRANSFER_PROGRESS, requestType);
         transferListeners.forEach(tl->tl.transferProgress(transferEvent,buffer,length));
     }
 
-    @Override public void fireTransferCompleted(Resource resource, int requestType) {
+    @Override public synchronized void fireTransferCompleted(Resource resource, int requestType) {
         TransferEvent transferEvent = new TransferEvent(this.wagon, resource, TransferEvent.TRANSFER_COMPLETED, requestType);
         transferListeners.forEach(tl->tl.transferCompleted(transferEvent));
     }
 
-    @Override public void fireTransferError(Resource resource, int requestType, Exception exception) {
+    @Override public synchronized void fireTransferError(Resource resource, int requestType, Exception exception) {
         TransferEvent transferEvent = new TransferEvent(this.wagon, resource, exception, requestType);
         transferListeners.forEach(tl->tl.transferError(transferEvent));
     }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.prune;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Logger;
+
+import com.gkatzioura.maven.cloud.concurrent.BoundedExecutor;
+import com.gkatzioura.maven.cloud.index.KeyIndexUpdate;
+
+/**
+ * Groups the keys to delete into batches of the size a provider accepts in one request and sends the batches
+ * concurrently. In dry run mode the keys are only reported. The keys of every batch deleted are removed from the
+ * key index update, if one is given.
+ */
+public class BatchDeleter implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(BatchDeleter.class.getName());
+
+    private final int batchSize;
+    private final boolean dryRun;
+    private final Batch batch;
+    private final KeyIndexUpdate keyIndexUpdate;
+    private final BoundedExecutor boundedExecutor;
+
+    private List<String> pending = new ArrayList<>();
+    private long selected;
+
+    /**
+     * @param name prefix of the worker thread names
+     * @param batchSize maximum number of keys sent in a single batch
+     * @param concurrency number of batches sent in parallel
+     * @param dryRun whether the keys are reported instead of being deleted
+     * @param batch deletes a batch of keys
+     */
+    public BatchDeleter(String name, int batchSize, int concurrency, boolean dryRun, Batch batch) {
+        this(name, batchSize, concurrency, dryRun, batch, null);
+    }
+
+    /**
+     * @param keyIndexUpdate records the keys deleted, may be null
+     */
+    public BatchDeleter(String name, int batchSize, int concurrency, boolean dryRun, Batch batch, KeyIndexUpdate keyIndexUpdate) {
+        this.batchSize = batchSize;
+        this.dryRun = dryRun;
+        this.batch = batch;
+        this.keyIndexUpdate = keyIndexUpdate;
+        this.boundedExecutor = new BoundedExecutor(name, Math.max(1, concurrency));
+    }
+
+    public void addAll(Collection<String> keys) throws ExecutionException, InterruptedException {
+        for (String key : keys) {
+            add(key);
+        }
+    }
+
+    public void add(String key) throws ExecutionException, InterruptedException {
+        selected++;
+
+        if (dryRun) {
+            LOGGER.info("Would delete " + key);
+            return;
+        }
+
+        pending.add(key);
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Sends the last batch and waits for every batch to complete
+     *
+     * @return the number of keys deleted, or that would be deleted in dry run mode
+     * @throws ExecutionException with the first failure of a batch
+     */
+    public long finish() throws ExecutionException, InterruptedException {
+        if (!pending.isEmpty()) {
+            flush();
+        }
+        boundedExecutor.await();
+
+        LOGGER.info((dryRun ? "Would delete " : "Deleted ") + selected + " keys");
+        return selected;
+    }
+
+    @Override
+    public void close() {
+        boundedExecutor.close();
+    }
+
+    private void flush() throws ExecutionException, InterruptedException {
+        final List<String> keys = pending;
+        pending = new ArrayList<>();
+        boundedExecutor.submit(() -> {
+            batch.delete(keys);
+            if (keyIndexUpdate != null) {
+                keys.forEach(keyIndexUpdate::removed);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    public interface Batch {
+
+        void delete(List<String> keys) throws Exception;
+
+    }
+
+}
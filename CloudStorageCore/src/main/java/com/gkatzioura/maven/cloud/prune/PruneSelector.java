@@ -0,0 +1,161 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.prune;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Selects the keys to prune out of a listing sorted by key, as the listing is streamed.
+ * Keys are selected when last modified before the cutoff. With a retention count, the timestamped SNAPSHOT builds
+ * of each directory are grouped by their timestamp and build number, the newest builds are kept and the others
+ * are selected, provided they are also older than the cutoff if one is set. Files which are not part of a timestamped
+ * build, such as maven-metadata.xml, are only ever selected by age, and never in a directory which still holds kept builds,
+ * as the builds could not be resolved without them.
+ * A directory is decided on as soon as the listing has moved past it, so only the directories on the path
+ * of the current key are held in memory.
+ */
+public class PruneSelector {
+
+    private static final Pattern SNAPSHOT_BUILD = Pattern.compile("-(\\d{8}\\.\\d{6}-\\d+)");
+
+    private final Long cutoff;
+    private final Integer keepLatest;
+    private final Map<String, Directory> openDirectories = new LinkedHashMap<>();
+
+    /**
+     * @param cutoff epoch millis before which keys are old enough to be pruned, may be null
+     * @param keepLatest number of timestamped builds kept in each directory, may be null
+     */
+    public PruneSelector(Long cutoff, Integer keepLatest) {
+        if (cutoff == null && keepLatest == null) {
+            throw new IllegalArgumentException("Either an age or a retention count is needed to select keys");
+        }
+        this.cutoff = cutoff;
+        this.keepLatest = keepLatest;
+    }
+
+    /**
+     * @return the keys selected once this key has been seen, either the key itself or the builds of directories left behind
+     */
+    public List<String> offer(String key, long lastModified) {
+        List<String> selected = new ArrayList<>();
+        closePassedDirectories(key, selected);
+
+        if (keepLatest == null) {
+            if (isOld(lastModified)) {
+                selected.add(key);
+            }
+            return selected;
+        }
+
+        Directory directory = openDirectories.computeIfAbsent(directory(key), d -> new Directory());
+        String build = snapshotBuild(key);
+
+        if (build == null) {
+            //whether the directory keeps builds is only known once the listing has moved past it
+            if (isOld(lastModified)) {
+                directory.oldFiles.add(key);
+            }
+        } else {
+            directory.builds.computeIfAbsent(build, b -> new Build()).add(key, lastModified);
+        }
+
+        return selected;
+    }
+
+    /**
+     * @return the keys selected from the directories still open at the end of the listing
+     */
+    public List<String> finish() {
+        List<String> selected = new ArrayList<>();
+        openDirectories.values().forEach(directory -> select(directory, selected));
+        openDirectories.clear();
+        return selected;
+    }
+
+    private void closePassedDirectories(String key, List<String> selected) {
+        Iterator<Map.Entry<String, Directory>> directories = openDirectories.entrySet().iterator();
+        while (directories.hasNext()) {
+            Map.Entry<String, Directory> directory = directories.next();
+            String prefix = directory.getKey().isEmpty() ? "" : directory.getKey() + "/";
+            if (!key.startsWith(prefix)) {
+                select(directory.getValue(), selected);
+                directories.remove();
+            }
+        }
+    }
+
+    private void select(Directory directory, List<String> selected) {
+        List<Build> newestFirst = new ArrayList<>(directory.builds.values());
+        newestFirst.sort(Comparator.comparingLong((Build build) -> build.lastModified).reversed());
+
+        int kept = 0;
+        for (int i = 0; i < newestFirst.size(); i++) {
+            Build build = newestFirst.get(i);
+            if (i >= keepLatest && (cutoff == null || isOld(build.lastModified))) {
+                selected.addAll(build.keys);
+            } else {
+                kept++;
+            }
+        }
+
+        if (kept == 0) {
+            selected.addAll(directory.oldFiles);
+        }
+    }
+
+    private boolean isOld(long lastModified) {
+        return cutoff != null && lastModified < cutoff;
+    }
+
+    private static String snapshotBuild(String key) {
+        Matcher matcher = SNAPSHOT_BUILD.matcher(key.substring(key.lastIndexOf('/') + 1));
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static String directory(String key) {
+        int separator = key.lastIndexOf('/');
+        return separator == -1 ? "" : key.substring(0, separator);
+    }
+
+    private static final class Directory {
+
+        private final Map<String, Build> builds = new HashMap<>();
+        private final List<String> oldFiles = new ArrayList<>();
+
+    }
+
+    private static final class Build {
+
+        private final List<String> keys = new ArrayList<>();
+        private long lastModified = Long.MIN_VALUE;
+
+        private void add(String key, long keyLastModified) {
+            keys.add(key);
+            lastModified = Math.max(lastModified, keyLastModified);
+        }
+
+    }
+
+}
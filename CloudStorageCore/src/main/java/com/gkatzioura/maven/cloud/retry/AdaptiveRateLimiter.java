@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.retry;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket shared by every request to a bucket. It does not limit anything until the service throttles,
+ * then it halves the request rate observed at that point and raises it again with every successful request,
+ * until it is back at the rate the throttling started at and stops limiting.
+ */
+public class AdaptiveRateLimiter {
+
+    private static final ConcurrentMap<String, AdaptiveRateLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    public static final double MIN_RATE = 1;
+
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double INCREASE_STEP = 0.5;
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final LongSupplier nanoClock;
+
+    private double rate = Double.POSITIVE_INFINITY;
+    private double ceiling;
+    private double tokens;
+    private long lastRefill;
+    private long lastDecrease = Long.MIN_VALUE;
+
+    private long windowStart;
+    private int windowRequests;
+    private int previousWindowRequests;
+
+    AdaptiveRateLimiter(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.windowStart = nanoClock.getAsLong();
+    }
+
+    /**
+     * @param repositoryId identifies the bucket or container, like the repository id of the metadata cache
+     * @return the limiter all requests to the repository go through
+     */
+    public static AdaptiveRateLimiter forRepository(String repositoryId) {
+        return LIMITERS.computeIfAbsent(repositoryId, k -> new AdaptiveRateLimiter(System::nanoTime));
+    }
+
+    /**
+     * Blocks until the request may be sent
+     */
+    public void acquire() throws InterruptedException {
+        long wait = reserve();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Takes a token and returns how long the caller has to wait for it in nanoseconds
+     */
+    synchronized long reserve() {
+        long now = nanoClock.getAsLong();
+        countRequest(now);
+
+        if (Double.isInfinite(rate)) {
+            return 0;
+        }
+
+        refill(now);
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) (-tokens / rate * SECOND);
+    }
+
+    /**
+     * Halves the rate, once per second at most so that the concurrent requests failing together count as one throttle
+     */
+    public synchronized void onThrottle() {
+        long now = nanoClock.getAsLong();
+
+        if (lastDecrease != Long.MIN_VALUE && now - lastDecrease < SECOND) {
+            return;
+        }
+        lastDecrease = now;
+
+        if (Double.isInfinite(rate)) {
+            ceiling = Math.max(MIN_RATE, Math.max(windowRequests, previousWindowRequests));
+            rate = Math.max(MIN_RATE, ceiling * DECREASE_FACTOR);
+            tokens = 0;
+        } else {
+            refill(now);
+            rate = Math.max(MIN_RATE, rate * DECREASE_FACTOR);
+            tokens = Math.min(tokens, rate);
+        }
+        lastRefill = now;
+    }
+
+    public synchronized void onSuccess() {
+        if (Double.isInfinite(rate)) {
+            return;
+        }
+
+        refill(nanoClock.getAsLong());
+        rate += INCREASE_STEP;
+        if (rate >= ceiling) {
+            rate = Double.POSITIVE_INFINITY;
+        }
+    }
+
+    /**
+     * @return requests per second, infinite while nothing is throttled
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(Math.max(1, rate), tokens + (double) (now - lastRefill) / SECOND * rate);
+        lastRefill = now;
+    }
+
+    private void countRequest(long now) {
+        long elapsed = now - windowStart;
+        if (elapsed >= SECOND) {
+            previousWindowRequests = elapsed < 2 * SECOND ? windowRequests : 0;
+            windowRequests = 0;
+            windowStart = now;
+        }
+        windowRequests++;
+    }
+
+}
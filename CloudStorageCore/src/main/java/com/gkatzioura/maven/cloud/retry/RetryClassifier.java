@@ -0,0 +1,44 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.retry;
+
+/**
+ * Tells the {@link RetryPolicy} how the error of a provider request should be handled.
+ */
+@FunctionalInterface
+public interface RetryClassifier {
+
+    Outcome classify(Exception exception);
+
+    enum Outcome {
+
+        /**
+         * The service asked to slow down, the request is retried at a lower request rate
+         */
+        THROTTLED,
+
+        /**
+         * A network or server error which is likely to go away, the request is retried
+         */
+        TRANSIENT,
+
+        /**
+         * The request will keep failing, it is not retried
+         */
+        FATAL
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.retry;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Issues provider requests through the rate limiter of their bucket and retries the ones failing with throttling
+ * or transient errors, backing off exponentially with full jitter between the attempts.
+ */
+public class RetryPolicy {
+
+    private static final Logger LOGGER = Logger.getLogger(RetryPolicy.class.getName());
+
+    private final RetryProperty retryProperty;
+    private final RetryClassifier retryClassifier;
+    private final AdaptiveRateLimiter rateLimiter;
+
+    public RetryPolicy(RetryProperty retryProperty, RetryClassifier retryClassifier, AdaptiveRateLimiter rateLimiter) {
+        this.retryProperty = retryProperty;
+        this.retryClassifier = retryClassifier;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * @param operation describes the request in the log
+     * @param call the request, issued again from scratch on every attempt
+     * @return the result of the first successful attempt
+     * @throws E the error of the last attempt, or the first fatal one
+     */
+    public <T, E extends Exception> T execute(String operation, RetryableCall<T, E> call) throws E {
+        int maxAttempts = retryProperty.getMaxAttempts();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                rateLimiter.acquire();
+            } catch (InterruptedException e) {
+                //the request is sent anyway and the caller gets to see the interrupt
+                Thread.currentThread().interrupt();
+            }
+
+            try {
+                T result = call.call();
+                rateLimiter.onSuccess();
+                return result;
+            } catch (Exception e) {
+                RetryClassifier.Outcome outcome = retryClassifier.classify(e);
+                if (outcome == RetryClassifier.Outcome.THROTTLED) {
+                    rateLimiter.onThrottle();
+                }
+
+                if (outcome == RetryClassifier.Outcome.FATAL || attempt >= maxAttempts || Thread.currentThread().isInterrupted()) {
+                    throw RetryPolicy.<E>rethrow(e);
+                }
+
+                long delay = backoff(attempt);
+                LOGGER.log(Level.FINE, String.format("%s failed with %s on attempt %d, retrying in %d ms", operation, outcome, attempt, delay), e);
+
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw RetryPolicy.<E>rethrow(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a random delay up to the base delay doubled for every previous retry, capped by the max delay
+     */
+    long backoff(int attempt) {
+        long ceiling = Math.min(retryProperty.getMaxDelay(), retryProperty.getBaseDelay() << Math.min(attempt - 1, 30));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * The call either threw an unchecked exception or the checked exception it declares
+     */
+    @SuppressWarnings("unchecked")
+    private static <E extends Exception> E rethrow(Exception exception) {
+        if (exception instanceof RuntimeException) {
+            throw (RuntimeException) exception;
+        }
+        return (E) exception;
+    }
+
+}
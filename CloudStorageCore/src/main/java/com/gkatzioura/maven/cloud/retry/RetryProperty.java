@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.retry;
+
+public class RetryProperty {
+
+    private static final String MAX_ATTEMPTS_PROP_TAG = "retryMaxAttempts";
+    private static final String MAX_ATTEMPTS_ENV_TAG = "RETRY_MAX_ATTEMPTS";
+    private static final String BASE_DELAY_PROP_TAG = "retryBaseDelay";
+    private static final String BASE_DELAY_ENV_TAG = "RETRY_BASE_DELAY";
+    private static final String MAX_DELAY_PROP_TAG = "retryMaxDelay";
+    private static final String MAX_DELAY_ENV_TAG = "RETRY_MAX_DELAY";
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    public static final long DEFAULT_BASE_DELAY = 100;
+    public static final long DEFAULT_MAX_DELAY = 20000;
+
+    private Integer maxAttempts;
+    private Long baseDelay;
+    private Long maxDelay;
+
+    /**
+     *
+     * @param maxAttempts attempts of a request including the first one, may be null
+     * @param baseDelay backoff before the first retry in milliseconds, doubled on every further retry, may be null
+     * @param maxDelay upper bound of the backoff in milliseconds, may be null
+     */
+    public RetryProperty(Integer maxAttempts, Long baseDelay, Long maxDelay) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    public static final RetryProperty empty() {
+        return new RetryProperty(null, null, null);
+    }
+
+    /**
+     * return the attempts set in the constructor or the attempts set using the retryMaxAttempts system property
+     * or the RETRY_MAX_ATTEMPTS environment variable
+     * */
+    public int getMaxAttempts() {
+        return Math.max(1, (int) resolve(maxAttempts, MAX_ATTEMPTS_PROP_TAG, MAX_ATTEMPTS_ENV_TAG, DEFAULT_MAX_ATTEMPTS));
+    }
+
+    /**
+     * return the delay set in the constructor or the delay set using the retryBaseDelay system property
+     * or the RETRY_BASE_DELAY environment variable
+     * */
+    public long getBaseDelay() {
+        return resolve(baseDelay, BASE_DELAY_PROP_TAG, BASE_DELAY_ENV_TAG, DEFAULT_BASE_DELAY);
+    }
+
+    /**
+     * return the delay set in the constructor or the delay set using the retryMaxDelay system property
+     * or the RETRY_MAX_DELAY environment variable
+     * */
+    public long getMaxDelay() {
+        return resolve(maxDelay, MAX_DELAY_PROP_TAG, MAX_DELAY_ENV_TAG, DEFAULT_MAX_DELAY);
+    }
+
+    private long resolve(Number value, String propTag, String envTag, long defaultValue) {
+        if (value != null) {
+            return value.longValue();
+        }
+
+        String prop = System.getProperty(propTag);
+        if (prop != null) {
+            return Long.valueOf(prop);
+        }
+
+        String env = System.getenv(envTag);
+        if (env != null) {
+            return Long.valueOf(env);
+        }
+
+        return defaultValue;
+    }
+
+}
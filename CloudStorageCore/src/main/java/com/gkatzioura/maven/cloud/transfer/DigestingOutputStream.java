@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Feeds the bytes written to the wrapped stream to {@link TransferDigests}.
+ */
+public class DigestingOutputStream extends FilterOutputStream {
+
+    private final TransferDigests transferDigests;
+
+    public DigestingOutputStream(OutputStream outputStream, TransferDigests transferDigests) {
+        super(outputStream);
+        this.transferDigests = transferDigests;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        transferDigests.update(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        transferDigests.update(b, off, len);
+    }
+
+}
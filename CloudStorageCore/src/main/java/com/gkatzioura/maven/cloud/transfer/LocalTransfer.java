@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Delivers a file that is already on disk in place of a download.
+ */
+public final class LocalTransfer {
+
+    private LocalTransfer() {
+    }
+
+    /**
+     * Hard links the source to the destination, copying it if the file system does not support links
+     */
+    public static void linkOrCopy(File source, File destination) throws IOException {
+        Files.deleteIfExists(destination.toPath());
+        try {
+            Files.createLink(destination.toPath(), source.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            if (!source.exists()) {
+                throw e;
+            }
+            Files.copy(source.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads the file through the progress and the digests, as a download of it would have
+     *
+     * @param transferProgress may be null
+     * @param transferDigests may be null
+     */
+    public static void replay(File file, TransferProgress transferProgress, TransferDigests transferDigests) throws IOException {
+        if (transferProgress == null && transferDigests == null) {
+            return;
+        }
+
+        byte[] buffer = new byte[8192];
+        try (InputStream inputStream = new FileInputStream(file)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                if (transferDigests != null) {
+                    transferDigests.update(buffer, 0, read);
+                }
+                if (transferProgress != null) {
+                    transferProgress.progress(buffer, read);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Upload source reading a file through read-only memory mappings, so a read copies the bytes from the page cache
+ * straight into the buffer of the client instead of going through a system call and an intermediate native buffer.
+ * The file, or a region of it, is mapped in windows, so files larger than a single mapping are supported.
+ * Progress is reported through an {@link OffsetProgress}, so bytes a client replays after a reset are not counted twice.
+ */
+public final class MappedFileInputStream extends InputStream {
+
+    private static final long WINDOW_SIZE = 256L * 1024 * 1024;
+
+    private final long windowSize;
+    private final FileChannel fileChannel;
+    private final OffsetProgress offsetProgress;
+    private final long offset;
+    private final long length;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    private long position = 0;
+    private long markedPosition = 0;
+
+    public MappedFileInputStream(File file, TransferProgress transferProgress) throws IOException {
+        this(file, 0, file.length(), transferProgress, WINDOW_SIZE);
+    }
+
+    public MappedFileInputStream(File file, long offset, long length, TransferProgress transferProgress) throws IOException {
+        this(file, offset, length, transferProgress, WINDOW_SIZE);
+    }
+
+    MappedFileInputStream(File file, long offset, long length, TransferProgress transferProgress, long windowSize) throws IOException {
+        this.windowSize = windowSize;
+        this.fileChannel = new RandomAccessFile(file, "r").getChannel();
+        this.offsetProgress = new OffsetProgress(transferProgress);
+        this.offset = offset;
+        this.length = Math.min(length, fileChannel.size() - offset);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte b[], int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= length) {
+            return -1;
+        }
+
+        MappedByteBuffer mapped = windowAt(position);
+        int count = (int) Math.min(len, windowStart + mapped.capacity() - position);
+        mapped.position((int) (position - windowStart));
+        mapped.get(b, off, count);
+
+        position += count;
+        offsetProgress.read(position, b, off, count);
+        return count;
+    }
+
+    private MappedByteBuffer windowAt(long position) throws IOException {
+        if (window == null || position < windowStart || position >= windowStart + window.capacity()) {
+            windowStart = position - position % windowSize;
+            window = fileChannel.map(FileChannel.MapMode.READ_ONLY, offset + windowStart, Math.min(windowSize, length - windowStart));
+        }
+        return window;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = Math.max(0, Math.min(n, length - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, length - position);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        markedPosition = position;
+    }
+
+    @Override
+    public synchronized void reset() {
+        position = markedPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        fileChannel.close();
+    }
+
+}
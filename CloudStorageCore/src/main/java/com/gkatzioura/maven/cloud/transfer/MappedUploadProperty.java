@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.transfer;
+
+public class MappedUploadProperty {
+
+    private static final String MAPPED_UPLOAD_THRESHOLD_PROP_TAG = "mappedUploadThreshold";
+    private static final String MAPPED_UPLOAD_THRESHOLD_ENV_TAG = "MAPPED_UPLOAD_THRESHOLD";
+
+    public static final long DEFAULT_THRESHOLD = 64L * 1024 * 1024;
+
+    private Long threshold;
+
+    /**
+     *
+     * @param threshold size in bytes from which files are uploaded from a memory mapping, 0 disables mapping, may be null
+     */
+    public MappedUploadProperty(Long threshold) {
+        this.threshold = threshold;
+    }
+
+    public static final MappedUploadProperty empty() {
+        return new MappedUploadProperty(null);
+    }
+
+    /**
+     * return the threshold set in the constructor or the threshold set using the mappedUploadThreshold system property
+     * or the MAPPED_UPLOAD_THRESHOLD environment variable
+     * */
+    public long get() {
+        if (threshold != null) {
+            return threshold;
+        }
+
+        String thresholdProp = System.getProperty(MAPPED_UPLOAD_THRESHOLD_PROP_TAG);
+        if (thresholdProp != null) {
+            return Long.valueOf(thresholdProp);
+        }
+
+        String thresholdEnv = System.getenv(MAPPED_UPLOAD_THRESHOLD_ENV_TAG);
+        if (thresholdEnv != null) {
+            return Long.valueOf(thresholdEnv);
+        }
+
+        return DEFAULT_THRESHOLD;
+    }
+
+    /**
+     * @return true if a file of the size should be uploaded from a memory mapping
+     */
+    public boolean isMapped(long size) {
+        long resolvedThreshold = get();
+        return resolvedThreshold > 0 && size >= resolvedThreshold;
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+/**
+ * Reports the bytes read from a stream by offset: only bytes beyond the furthest offset reported so far are reported,
+ * so bytes a client replays after a reset are not counted twice. Bytes skipped over are never read and not reported.
+ */
+final class OffsetProgress {
+
+    private final TransferProgress transferProgress;
+
+    private long reportedOffset = 0;
+
+    OffsetProgress(TransferProgress transferProgress) {
+        this.transferProgress = transferProgress;
+    }
+
+    /**
+     * Reports the part of a read which lies beyond the furthest offset reported so far
+     *
+     * @param position the position of the stream after the read
+     * @param b the buffer read into
+     * @param off the offset in the buffer the read started at
+     * @param count the number of bytes read
+     */
+    void read(long position, byte[] b, int off, int count) {
+        if (position <= reportedOffset) {
+            return;
+        }
+
+        int replayed = (int) Math.max(0, reportedOffset - (position - count));
+        int fresh = count - replayed;
+        int freshOffset = off + replayed;
+        reportedOffset = position;
+
+        if (freshOffset == 0) {
+            transferProgress.progress(b, fresh);
+        } else {
+            byte[] bytes = new byte[fresh];
+            System.arraycopy(b, freshOffset, bytes, 0, fresh);
+            transferProgress.progress(bytes, fresh);
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class PrefetchProperty {
+
+    private static final String PREFETCH_SIDECARS_PROP_TAG = "prefetchSidecars";
+    private static final String PREFETCH_SIDECARS_ENV_TAG = "PREFETCH_SIDECARS";
+    private static final String PREFETCH_EXTENSIONS_PROP_TAG = "prefetchExtensions";
+    private static final String PREFETCH_EXTENSIONS_ENV_TAG = "PREFETCH_EXTENSIONS";
+    private static final String PREFETCH_CONCURRENCY_PROP_TAG = "prefetchConcurrency";
+    private static final String PREFETCH_CONCURRENCY_ENV_TAG = "PREFETCH_CONCURRENCY";
+    private static final String PREFETCH_STAGING_SIZE_PROP_TAG = "prefetchStagingSize";
+    private static final String PREFETCH_STAGING_SIZE_ENV_TAG = "PREFETCH_STAGING_SIZE";
+
+    public static final String DEFAULT_EXTENSIONS = "sha1";
+    public static final int DEFAULT_CONCURRENCY = 4;
+    public static final long DEFAULT_STAGING_SIZE = 16 * 1024 * 1024;
+
+    private Boolean enabled;
+    private String extensions;
+    private Integer concurrency;
+    private Long stagingSize;
+
+    /**
+     *
+     * @param enabled whether sidecars are fetched ahead of their get, may be null
+     * @param extensions comma separated extensions of the sidecars of a jar or a pom, may be null
+     * @param concurrency number of sidecars fetched in parallel, may be null
+     * @param stagingSize bytes of fetched sidecars kept until they are asked for, may be null
+     */
+    public PrefetchProperty(Boolean enabled, String extensions, Integer concurrency, Long stagingSize) {
+        this.enabled = enabled;
+        this.extensions = extensions;
+        this.concurrency = concurrency;
+        this.stagingSize = stagingSize;
+    }
+
+    public static final PrefetchProperty empty() {
+        return new PrefetchProperty(null, null, null, null);
+    }
+
+    /**
+     * return the value set in the constructor or the value set using the prefetchSidecars system property
+     * or the PREFETCH_SIDECARS environment variable, false if none is set
+     * */
+    public boolean isEnabled() {
+        if (enabled != null) {
+            return enabled;
+        }
+        return Boolean.valueOf(resolve(PREFETCH_SIDECARS_PROP_TAG, PREFETCH_SIDECARS_ENV_TAG));
+    }
+
+    /**
+     * return the extensions set in the constructor or the extensions set using the prefetchExtensions system property
+     * or the PREFETCH_EXTENSIONS environment variable, sha1 if none is set
+     * */
+    public List<String> getExtensions() {
+        String value = extensions != null ? extensions : resolve(PREFETCH_EXTENSIONS_PROP_TAG, PREFETCH_EXTENSIONS_ENV_TAG);
+        if (value == null) {
+            value = DEFAULT_EXTENSIONS;
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(extension -> !extension.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * return the concurrency set in the constructor or the concurrency set using the prefetchConcurrency system property
+     * or the PREFETCH_CONCURRENCY environment variable
+     * */
+    public int getConcurrency() {
+        if (concurrency != null) {
+            return Math.max(1, concurrency);
+        }
+        String value = resolve(PREFETCH_CONCURRENCY_PROP_TAG, PREFETCH_CONCURRENCY_ENV_TAG);
+        return value == null ? DEFAULT_CONCURRENCY : Math.max(1, Integer.valueOf(value));
+    }
+
+    /**
+     * return the size set in the constructor or the size set using the prefetchStagingSize system property
+     * or the PREFETCH_STAGING_SIZE environment variable
+     * */
+    public long getStagingSize() {
+        if (stagingSize != null) {
+            return stagingSize;
+        }
+        String value = resolve(PREFETCH_STAGING_SIZE_PROP_TAG, PREFETCH_STAGING_SIZE_ENV_TAG);
+        return value == null ? DEFAULT_STAGING_SIZE : Long.valueOf(value);
+    }
+
+    private String resolve(String propTag, String envTag) {
+        String prop = System.getProperty(propTag);
+        if (prop != null) {
+            return prop;
+        }
+        return System.getenv(envTag);
+    }
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.File;
+
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.authorization.AuthorizationException;
+
+/**
+ * Downloads a resource of a repository, as the repository of a wagon does.
+ */
+@FunctionalInterface
+public interface ResourceDownload {
+
+    /**
+     * @param transferProgress notified with the downloaded bytes, may be null
+     * @param transferDigests fed with the downloaded bytes, may be null
+     */
+    void download(String resourceName, File destination, TransferProgress transferProgress, TransferDigests transferDigests)
+            throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException;
+
+}
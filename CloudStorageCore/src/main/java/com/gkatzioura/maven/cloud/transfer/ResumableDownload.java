@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Downloads into a temporary file next to the destination. When the stream fails or ends early, the download is
+ * resumed with a ranged request from the bytes already written, a bounded number of times.
+ * The temporary file is moved into place only once the whole resource has been received.
+ */
+public class ResumableDownload {
+
+    private static final Logger LOGGER = Logger.getLogger(ResumableDownload.class.getName());
+
+    private static final String PART_SUFFIX = ".part";
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * For streams which cannot be reopened at an offset, such as inflated ones
+     */
+    public static final RangeSource NOT_RESUMABLE = offset -> {
+        throw new IOException("The download cannot be resumed");
+    };
+
+    private final ResumableDownloadProperty resumableDownloadProperty;
+
+    public ResumableDownload(ResumableDownloadProperty resumableDownloadProperty) {
+        this.resumableDownloadProperty = resumableDownloadProperty;
+    }
+
+    /**
+     * @param destination the file the resource ends up in
+     * @param length the length of the resource, or -1 if unknown in which case an early end of stream is not detected
+     * @param inputStream the stream of the resource from its first byte
+     * @param rangeSource opens the resource again from an offset
+     * @param transferProgress notified with every byte written, may be null
+     * @param transferDigests fed with every byte written, may be null
+     */
+    public void download(File destination, long length, InputStream inputStream, RangeSource rangeSource, TransferProgress transferProgress, TransferDigests transferDigests) throws IOException {
+
+        File partFile = partFile(destination);
+        int resumeAttempts = resumableDownloadProperty.get();
+
+        try {
+            OutputStream fileOutputStream = transferProgress == null ? new FileOutputStream(partFile) : new TransferProgressFileOutputStream(partFile, transferProgress);
+
+            try (OutputStream outputStream = transferDigests == null ? fileOutputStream : new DigestingOutputStream(fileOutputStream, transferDigests)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long offset = 0;
+                int attempt = 0;
+                InputStream current = inputStream;
+
+                while (true) {
+                    try (InputStream stream = current) {
+                        //the offset only counts bytes that reached the file
+                        int read;
+                        while ((read = stream.read(buffer)) != -1) {
+                            outputStream.write(buffer, 0, read);
+                            offset += read;
+                        }
+                        if (length < 0 || offset >= length) {
+                            break;
+                        }
+                        throw new IOException("Stream ended at " + offset + " of " + length + " bytes");
+                    } catch (IOException e) {
+                        if (++attempt > resumeAttempts) {
+                            throw e;
+                        }
+                        LOGGER.log(Level.WARNING, String.format("Download of %s interrupted at %d bytes, resuming", destination.getName(), offset), e);
+                    }
+
+                    current = rangeSource.open(offset);
+                    if (current == null) {
+                        throw new IOException("Resource of " + destination.getName() + " changed during the download");
+                    }
+                }
+            }
+
+            moveIntoPlace(partFile, destination);
+        } finally {
+            partFile.delete();
+        }
+    }
+
+    /**
+     * @return the temporary file a download into the destination is written to
+     */
+    public static File partFile(File destination) {
+        return new File(destination.getParentFile(), destination.getName() + PART_SUFFIX);
+    }
+
+    /**
+     * Replaces the destination with the completed temporary file, so that it is never seen partially written
+     */
+    public static void moveIntoPlace(File partFile, File destination) throws IOException {
+        try {
+            Files.move(partFile.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partFile.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @FunctionalInterface
+    public interface RangeSource {
+
+        /**
+         * @return the resource from the offset to its end, or null if the resource changed and cannot be resumed
+         */
+        InputStream open(long offset) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.transfer;
+
+public class ResumableDownloadProperty {
+
+    private static final String RESUME_ATTEMPTS_PROP_TAG = "downloadResumeAttempts";
+    private static final String RESUME_ATTEMPTS_ENV_TAG = "DOWNLOAD_RESUME_ATTEMPTS";
+
+    public static final int DEFAULT_RESUME_ATTEMPTS = 3;
+
+    private Integer resumeAttempts;
+
+    /**
+     *
+     * @param resumeAttempts times an interrupted download is resumed before it fails, 0 disables resuming, may be null
+     */
+    public ResumableDownloadProperty(Integer resumeAttempts) {
+        this.resumeAttempts = resumeAttempts;
+    }
+
+    public static final ResumableDownloadProperty empty() {
+        return new ResumableDownloadProperty(null);
+    }
+
+    /**
+     * return the attempts set in the constructor or the attempts set using the downloadResumeAttempts system property
+     * or the DOWNLOAD_RESUME_ATTEMPTS environment variable
+     * */
+    public int get() {
+        if (resumeAttempts != null) {
+            return resumeAttempts;
+        }
+
+        String attemptsProp = System.getProperty(RESUME_ATTEMPTS_PROP_TAG);
+        if (attemptsProp != null) {
+            return Integer.valueOf(attemptsProp);
+        }
+
+        String attemptsEnv = System.getenv(RESUME_ATTEMPTS_ENV_TAG);
+        if (attemptsEnv != null) {
+            return Integer.valueOf(attemptsEnv);
+        }
+
+        return DEFAULT_RESUME_ATTEMPTS;
+    }
+
+}
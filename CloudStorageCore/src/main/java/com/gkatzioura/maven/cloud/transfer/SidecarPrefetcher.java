@@ -0,0 +1,283 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.gkatzioura.maven.cloud.concurrent.DaemonThreadFactory;
+
+/**
+ * Fetches the checksum sidecars of a jar or a pom in the background as soon as the jar or the pom is asked for,
+ * since resolution asks for them right after. Sidecars are staged in a temporary directory until their own get
+ * takes them, or until they expire. Prefetching is speculative: it is skipped once the staging area or the
+ * prefetch queue is full, and a sidecar that could not be fetched is left to its own get.
+ */
+public class SidecarPrefetcher {
+
+    private static final Logger LOGGER = Logger.getLogger(SidecarPrefetcher.class.getName());
+
+    /**
+     * Sidecars nobody asked for within this time are discarded
+     */
+    public static final long STAGING_TTL = 60000;
+
+    private static final int QUEUE_CAPACITY_PER_THREAD = 8;
+
+    private static final SidecarPrefetcher INSTANCE = new SidecarPrefetcher(PrefetchProperty.empty(), System::currentTimeMillis);
+
+    private final PrefetchProperty prefetchProperty;
+    private final LongSupplier clock;
+    private final Map<PrefetchKey, Prefetch> prefetches = new HashMap<>();
+    private long stagedBytes;
+    private ThreadPoolExecutor executor;
+    private File stagingDirectory;
+
+    SidecarPrefetcher(PrefetchProperty prefetchProperty, LongSupplier clock) {
+        this.prefetchProperty = prefetchProperty;
+        this.clock = clock;
+    }
+
+    public static SidecarPrefetcher getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return prefetchProperty.isEnabled();
+    }
+
+    /**
+     * Starts fetching the sidecars of a jar or a pom, other resources have no sidecars to prefetch
+     *
+     * @param repository the url of the repository
+     * @param download downloads a resource of the repository
+     */
+    public void prefetchSidecars(String repository, String resourceName, ResourceDownload download) {
+        if (!resourceName.endsWith(".jar") && !resourceName.endsWith(".pom")) {
+            return;
+        }
+
+        for (String extension : prefetchProperty.getExtensions()) {
+            prefetch(new PrefetchKey(repository, resourceName + "." + extension), download);
+        }
+    }
+
+    /**
+     * Moves the prefetched resource to the destination, waiting for its prefetch if it is still in flight
+     *
+     * @param transferProgress notified with the resource, may be null
+     * @param transferDigests fed with the resource, may be null
+     * @return false if the resource has not been prefetched, in which case it has to be downloaded
+     */
+    public boolean take(String repository, String resourceName, File destination, TransferProgress transferProgress, TransferDigests transferDigests) {
+        PrefetchKey key = new PrefetchKey(repository, resourceName);
+        Prefetch prefetch;
+
+        synchronized (this) {
+            prefetch = prefetches.get(key);
+            if (prefetch == null || prefetch.claimed) {
+                return false;
+            }
+            prefetch.claimed = true;
+        }
+
+        try {
+            prefetch.done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            synchronized (this) {
+                if (prefetches.remove(key, prefetch) && prefetch.staged) {
+                    stagedBytes -= prefetch.size;
+                }
+            }
+        }
+
+        if (!prefetch.staged) {
+            prefetch.staging.delete();
+            return false;
+        }
+
+        try {
+            if (destination.getParentFile() != null) {
+                destination.getParentFile().mkdirs();
+            }
+            Files.move(prefetch.staging.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.log(Level.FINER, String.format("Using the prefetched %s", resourceName));
+            LocalTransfer.replay(destination, transferProgress, transferDigests);
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not use the prefetched %s", resourceName), e);
+            prefetch.staging.delete();
+            return false;
+        }
+    }
+
+    synchronized long getStagedBytes() {
+        return stagedBytes;
+    }
+
+    private synchronized void prefetch(PrefetchKey key, ResourceDownload download) {
+        purgeExpired();
+
+        if (prefetches.containsKey(key) || stagedBytes >= prefetchProperty.getStagingSize()) {
+            return;
+        }
+
+        Prefetch prefetch;
+        try {
+            prefetch = new Prefetch(File.createTempFile("sidecar", ".tmp", stagingDirectory()), clock.getAsLong());
+            prefetch.staging.deleteOnExit();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not create the prefetch staging file", e);
+            return;
+        }
+
+        prefetches.put(key, prefetch);
+        try {
+            executor().execute(() -> run(key, prefetch, download));
+        } catch (RejectedExecutionException e) {
+            //saturated, the sidecar is left to its own get
+            prefetches.remove(key);
+            prefetch.staging.delete();
+        }
+    }
+
+    private void run(PrefetchKey key, Prefetch prefetch, ResourceDownload download) {
+        try {
+            download.download(key.resourceName, prefetch.staging, null, null);
+            staged(key, prefetch);
+        } catch (Exception e) {
+            LOGGER.log(Level.FINER, String.format("Could not prefetch %s", key.resourceName), e);
+            discard(key, prefetch);
+        } finally {
+            prefetch.done.countDown();
+        }
+    }
+
+    private synchronized void staged(PrefetchKey key, Prefetch prefetch) {
+        long size = prefetch.staging.length();
+
+        if (!prefetch.claimed && stagedBytes + size > prefetchProperty.getStagingSize()) {
+            discard(key, prefetch);
+            return;
+        }
+
+        prefetch.size = size;
+        prefetch.staged = true;
+        stagedBytes += size;
+    }
+
+    private synchronized void discard(PrefetchKey key, Prefetch prefetch) {
+        if (!prefetch.claimed) {
+            prefetches.remove(key, prefetch);
+            prefetch.staging.delete();
+        }
+    }
+
+    private void purgeExpired() {
+        long now = clock.getAsLong();
+        Iterator<Prefetch> iterator = prefetches.values().iterator();
+
+        while (iterator.hasNext()) {
+            Prefetch prefetch = iterator.next();
+            if (prefetch.staged && !prefetch.claimed && prefetch.createdAt + STAGING_TTL <= now) {
+                iterator.remove();
+                stagedBytes -= prefetch.size;
+                prefetch.staging.delete();
+            }
+        }
+    }
+
+    private File stagingDirectory() throws IOException {
+        if (stagingDirectory == null || !stagingDirectory.isDirectory()) {
+            stagingDirectory = Files.createTempDirectory("cloud-storage-prefetch").toFile();
+            stagingDirectory.deleteOnExit();
+        }
+        return stagingDirectory;
+    }
+
+    private ThreadPoolExecutor executor() {
+        if (executor == null) {
+            int concurrency = prefetchProperty.getConcurrency();
+            executor = new ThreadPoolExecutor(concurrency, concurrency, 30, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(concurrency * QUEUE_CAPACITY_PER_THREAD), new DaemonThreadFactory("sidecar-prefetch"));
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    private static final class Prefetch {
+
+        private final File staging;
+        private final long createdAt;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private boolean claimed;
+        private volatile boolean staged;
+        private long size;
+
+        private Prefetch(File staging, long createdAt) {
+            this.staging = staging;
+            this.createdAt = createdAt;
+        }
+
+    }
+
+    private static final class PrefetchKey {
+
+        private final String repository;
+        private final String resourceName;
+
+        private PrefetchKey(String repository, String resourceName) {
+            this.repository = repository;
+            this.resourceName = resourceName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PrefetchKey that = (PrefetchKey) o;
+            return Objects.equals(repository, that.repository) && Objects.equals(resourceName, that.resourceName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(repository, resourceName);
+        }
+
+    }
+
+}
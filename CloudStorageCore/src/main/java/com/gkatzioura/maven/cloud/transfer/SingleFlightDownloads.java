@@ -0,0 +1,226 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.authorization.AuthorizationException;
+
+/**
+ * Process wide coalescing of concurrent downloads of the same resource of the same repository, as issued by
+ * parallel builds resolving the same artifact. The first caller downloads the resource into a staging file next to
+ * its destination, callers arriving meanwhile wait for it and receive a hard link, or a copy, of the staging file.
+ * Waiters are notified of the delivered bytes through their own progress and digests, as if they downloaded them.
+ */
+public class SingleFlightDownloads {
+
+    private static final Logger LOGGER = Logger.getLogger(SingleFlightDownloads.class.getName());
+
+    private static final SingleFlightDownloads INSTANCE = new SingleFlightDownloads();
+
+    private final Map<FlightKey, Flight> flights = new HashMap<>();
+
+    SingleFlightDownloads() {
+    }
+
+    public static SingleFlightDownloads getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Downloads the resource into the destination, or waits for the download of the same resource already in flight.
+     *
+     * @param repository the url of the repository
+     * @param transferProgress notified with the downloaded bytes, may be null
+     * @param transferDigests fed with the downloaded bytes, may be null
+     * @param download performs the actual download into the file it is given
+     */
+    public void download(String repository, String resourceName, File destination, TransferProgress transferProgress, TransferDigests transferDigests, Download download)
+            throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        FlightKey key = new FlightKey(repository, resourceName);
+        File staging = new File(destination.getParentFile(), destination.getName() + "." + UUID.randomUUID() + ".flight");
+
+        Flight flight;
+        boolean leader = false;
+
+        synchronized (this) {
+            flight = flights.get(key);
+            if (flight == null) {
+                flight = new Flight(staging);
+                flights.put(key, flight);
+                leader = true;
+            } else {
+                flight.participants++;
+            }
+        }
+
+        if (leader) {
+            try {
+                download.download(flight.staging, transferProgress, transferDigests);
+            } catch (TransferFailedException | ResourceDoesNotExistException | AuthorizationException | RuntimeException e) {
+                flight.failure = e;
+            } finally {
+                synchronized (this) {
+                    flights.remove(key);
+                }
+                flight.done.countDown();
+            }
+        } else {
+            LOGGER.log(Level.FINER, String.format("Waiting for the download of %s already in flight", resourceName));
+            try {
+                flight.done.await();
+            } catch (InterruptedException e) {
+                release(flight);
+                Thread.currentThread().interrupt();
+                throw new TransferFailedException("Interrupted while waiting for the download of " + resourceName, e);
+            }
+        }
+
+        if (flight.failure != null) {
+            release(flight);
+            rethrow(flight.failure, leader);
+        }
+
+        try {
+            //the leader has already reported the bytes while downloading them
+            deliver(flight, destination, leader ? null : transferProgress, leader ? null : transferDigests);
+        } catch (IOException e) {
+            throw new TransferFailedException("Could not download resource " + resourceName, e);
+        }
+    }
+
+    synchronized int inFlight() {
+        return flights.size();
+    }
+
+    synchronized int participants(String repository, String resourceName) {
+        Flight flight = flights.get(new FlightKey(repository, resourceName));
+        return flight == null ? 0 : flight.participants;
+    }
+
+    /**
+     * The last participant takes the staging file over, the others get a link to it or a copy of it
+     */
+    private void deliver(Flight flight, File destination, TransferProgress transferProgress, TransferDigests transferDigests) throws IOException {
+        boolean last;
+        synchronized (this) {
+            last = flight.participants == 1;
+        }
+
+        try {
+            if (last) {
+                Files.move(flight.staging.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                LocalTransfer.linkOrCopy(flight.staging, destination);
+            }
+        } finally {
+            release(flight);
+        }
+
+        LocalTransfer.replay(destination, transferProgress, transferDigests);
+    }
+
+    private void release(Flight flight) {
+        synchronized (this) {
+            if (--flight.participants > 0) {
+                return;
+            }
+        }
+        flight.staging.delete();
+    }
+
+    /**
+     * Waiters get a failure of the same kind as the one of the leader, with their own stack trace
+     */
+    private static void rethrow(Exception failure, boolean leader) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        if (failure instanceof ResourceDoesNotExistException) {
+            throw leader ? (ResourceDoesNotExistException) failure : new ResourceDoesNotExistException(failure.getMessage(), failure);
+        }
+        if (failure instanceof AuthorizationException) {
+            throw leader ? (AuthorizationException) failure : new AuthorizationException(failure.getMessage(), failure);
+        }
+        if (leader && failure instanceof TransferFailedException) {
+            throw (TransferFailedException) failure;
+        }
+        if (leader && failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        throw new TransferFailedException(failure.getMessage(), failure);
+    }
+
+    @FunctionalInterface
+    public interface Download {
+
+        void download(File destination, TransferProgress transferProgress, TransferDigests transferDigests)
+                throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException;
+
+    }
+
+    private static final class Flight {
+
+        private final File staging;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private int participants = 1;
+        private volatile Exception failure;
+
+        private Flight(File staging) {
+            this.staging = staging;
+        }
+
+    }
+
+    private static final class FlightKey {
+
+        private final String repository;
+        private final String resourceName;
+
+        private FlightKey(String repository, String resourceName) {
+            this.repository = repository;
+            this.resourceName = resourceName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FlightKey that = (FlightKey) o;
+            return Objects.equals(repository, that.repository) && Objects.equals(resourceName, that.resourceName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(repository, resourceName);
+        }
+
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * MD5, SHA-1, SHA-256 and CRC32C of the bytes of a transfer, computed as they stream past so that a file
+ * is read only once for its upload, its integrity headers and its checksum sidecars.
+ * The digests are final once one of them has been read.
+ */
+public class TransferDigests {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest md5;
+    private final MessageDigest sha1;
+    private final MessageDigest sha256;
+    private final Crc32c crc32c = new Crc32c();
+
+    private byte[] md5Value;
+    private byte[] sha1Value;
+    private byte[] sha256Value;
+    private long crc32cValue;
+    private long length;
+
+    public TransferDigests() {
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+            sha1 = MessageDigest.getInstance("SHA-1");
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Digest algorithm not available", e);
+        }
+    }
+
+    public synchronized void update(byte[] buffer, int offset, int length) {
+        if (md5Value != null) {
+            throw new IllegalStateException("Digests have already been computed");
+        }
+        md5.update(buffer, offset, length);
+        sha1.update(buffer, offset, length);
+        sha256.update(buffer, offset, length);
+        crc32c.update(buffer, offset, length);
+        this.length += length;
+    }
+
+    /**
+     * Starts over, for a transfer that is retried from its first byte
+     */
+    public synchronized void reset() {
+        md5.reset();
+        sha1.reset();
+        sha256.reset();
+        crc32c.reset();
+        md5Value = null;
+        sha1Value = null;
+        sha256Value = null;
+        crc32cValue = 0;
+        length = 0;
+    }
+
+    /**
+     * @return the number of bytes digested, which tells whether the digests cover a whole file
+     */
+    public synchronized long getLength() {
+        return length;
+    }
+
+    public byte[] getMd5() {
+        finish();
+        return md5Value.clone();
+    }
+
+    public String getMd5Hex() {
+        return toHex(getMd5());
+    }
+
+    public String getMd5Base64() {
+        return Base64.getEncoder().encodeToString(getMd5());
+    }
+
+    public String getSha1Hex() {
+        finish();
+        return toHex(sha1Value);
+    }
+
+    public String getSha256Hex() {
+        finish();
+        return toHex(sha256Value);
+    }
+
+    public long getCrc32c() {
+        finish();
+        return crc32cValue;
+    }
+
+    /**
+     * @return the CRC32C as the base64 of its big-endian bytes, the format google cloud storage uses
+     */
+    public String getCrc32cBase64() {
+        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(4).putInt((int) getCrc32c()).array());
+    }
+
+    private synchronized void finish() {
+        if (md5Value == null) {
+            md5Value = md5.digest();
+            sha1Value = sha1.digest();
+            sha256Value = sha256.digest();
+            crc32cValue = crc32c.getValue();
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * Reads a fixed region of a file and reports the bytes read to a {@link TransferProgress}.
+ * Mark and reset are supported by seeking, so clients can retry a region without buffering it.
+ * Progress is reported through an {@link OffsetProgress}, so bytes a client replays after a reset are not counted twice.
+ */
+public final class TransferProgressFileRegionInputStream extends InputStream {
+
+    private final RandomAccessFile randomAccessFile;
+    private final OffsetProgress offsetProgress;
+    private final long offset;
+    private final long length;
+
+    private long position = 0;
+    private long markedPosition = 0;
+
+    public TransferProgressFileRegionInputStream(File file, long offset, long length, TransferProgress transferProgress) throws IOException {
+        this.randomAccessFile = new RandomAccessFile(file, "r");
+        this.offsetProgress = new OffsetProgress(transferProgress);
+        this.offset = offset;
+        this.length = length;
+        randomAccessFile.seek(offset);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position >= length) {
+            return -1;
+        }
+
+        int b = randomAccessFile.read();
+        if (b != -1) {
+            position++;
+            offsetProgress.read(position, new byte[]{(byte) b}, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte b[], int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= length) {
+            return -1;
+        }
+
+        int toRead = (int) Math.min(len, length - position);
+        int count = randomAccessFile.read(b, off, toRead);
+        if (count > 0) {
+            position += count;
+            offsetProgress.read(position, b, off, count);
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = Math.max(0, Math.min(n, length - position));
+        position += skipped;
+        randomAccessFile.seek(offset + position);
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, length - position);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        markedPosition = position;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        position = markedPosition;
+        randomAccessFile.seek(offset + position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        randomAccessFile.close();
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Opens the stream an upload reads a file from, a memory mapped one for files above the mapped upload threshold.
+ */
+public class UploadStreamFactory {
+
+    private final MappedUploadProperty mappedUploadProperty;
+
+    public UploadStreamFactory(MappedUploadProperty mappedUploadProperty) {
+        this.mappedUploadProperty = mappedUploadProperty;
+    }
+
+    public InputStream create(File file, TransferProgress transferProgress) throws IOException {
+        if (mappedUploadProperty.isMapped(file.length())) {
+            return new MappedFileInputStream(file, transferProgress);
+        }
+        return new TransferProgressFileInputStream(file, transferProgress);
+    }
+
+}
@@ -16,24 +16,46 @@
 
 package com.gkatzioura.maven.cloud.wagon;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.maven.wagon.ConnectionException;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.Wagon;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.authorization.AuthorizationException;
 import org.apache.maven.wagon.events.SessionListener;
 import org.apache.maven.wagon.events.TransferListener;
 import org.apache.maven.wagon.proxy.ProxyInfo;
 import org.apache.maven.wagon.proxy.ProxyInfoProvider;
 import org.apache.maven.wagon.repository.Repository;
 
+import com.gkatzioura.maven.cloud.index.KeyIndex;
+import com.gkatzioura.maven.cloud.index.KeyIndexManager;
+import com.gkatzioura.maven.cloud.index.KeyIndexProperty;
+import com.gkatzioura.maven.cloud.index.PublishedKeyIndex;
 import com.gkatzioura.maven.cloud.listener.SessionListenerContainer;
 import com.gkatzioura.maven.cloud.listener.SessionListenerContainerImpl;
 import com.gkatzioura.maven.cloud.listener.TransferListenerContainer;
 import com.gkatzioura.maven.cloud.listener.TransferListenerContainerImpl;
 import com.gkatzioura.maven.cloud.resolver.BaseDirectoryResolver;
 import com.gkatzioura.maven.cloud.resolver.BucketResolver;
+import com.gkatzioura.maven.cloud.transfer.ResourceDownload;
+import com.gkatzioura.maven.cloud.transfer.SidecarPrefetcher;
+import com.gkatzioura.maven.cloud.transfer.SingleFlightDownloads;
+import com.gkatzioura.maven.cloud.transfer.TransferDigests;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
 
 public abstract class AbstractStorageWagon implements Wagon {
 
@@ -52,6 +74,22 @@ public abstract class AbstractStorageWagon implements Wagon {
 
     private boolean interactive;
 
+    private Long metadataCacheTtl;
+
+    private static final int MAX_TRANSFER_DIGESTS = 1000;
+
+    private final Map<String, TransferDigests> transferDigests = Collections.synchronizedMap(
+            new LinkedHashMap<String, TransferDigests>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, TransferDigests> eldest) {
+                    return size() > MAX_TRANSFER_DIGESTS;
+                }
+            });
+
+    private KeyIndexManager keyIndexManager;
+    private PublishedKeyIndex publishedKeyIndex;
+    private final Set<String> unpublishedKeys = ConcurrentHashMap.newKeySet();
+
     private static final Logger LOGGER = Logger.getLogger(AbstractStorageWagon.class.getName());
 
     public AbstractStorageWagon() {
@@ -161,4 +199,158 @@ public abstract class AbstractStorageWagon implements Wagon {
         interactive = b;
     }
 
+    public Long getMetadataCacheTtl() {
+        return metadataCacheTtl;
+    }
+
+    public void setMetadataCacheTtl(Long metadataCacheTtl) {
+        this.metadataCacheTtl = metadataCacheTtl;
+    }
+
+    /**
+     * Returns the digests computed while the resource was last uploaded or downloaded by this wagon,
+     * so that checksum sidecars can be produced without reading the file again.
+     *
+     * @param resourceName the resource name as passed to get or put
+     * @return the digests or null if none were computed for the resource, as for multipart or ranged transfers,
+     * if the resource was transferred before the last disconnect or if it is no longer among the most recent transfers
+     */
+    public TransferDigests getTransferDigests(String resourceName) {
+        return transferDigests.get(resourceName);
+    }
+
+    /**
+     * Keeps the digests of a transfer, provided they cover every byte of the transferred file.
+     */
+    protected void recordTransferDigests(String resourceName, TransferDigests digests, File file) {
+        if (digests == null || digests.getLength() != file.length()) {
+            transferDigests.remove(resourceName);
+        } else {
+            transferDigests.put(resourceName, digests);
+        }
+    }
+
+    /**
+     * Drops the digests of the session's transfers
+     */
+    protected void clearTransferDigests() {
+        transferDigests.clear();
+    }
+
+
+    /**
+     * Downloads the resource through the process wide {@link SingleFlightDownloads}, so that concurrent gets of
+     * the same resource from the same repository share a single transfer. When sidecar prefetching is enabled,
+     * a prefetched resource is taken from the staging area and the sidecars of a jar or a pom are prefetched.
+     * A resource the key index does not have is reported missing without a request.
+     *
+     * @param download downloads a resource of the repository of the wagon
+     */
+    protected void getResource(String resourceName, File destination, TransferProgress transferProgress, TransferDigests transferDigests, ResourceDownload download)
+            throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        throwIfNotIndexed(resourceName);
+
+        String repositoryUrl = repository.getUrl();
+        SidecarPrefetcher sidecarPrefetcher = SidecarPrefetcher.getInstance();
+
+        if (sidecarPrefetcher.isEnabled()) {
+            if (sidecarPrefetcher.take(repositoryUrl, resourceName, destination, transferProgress, transferDigests)) {
+                return;
+            }
+            sidecarPrefetcher.prefetchSidecars(repositoryUrl, resourceName, download);
+        }
+
+        SingleFlightDownloads.getInstance().download(repositoryUrl, resourceName, destination, transferProgress, transferDigests,
+                (staging, progress, digests) -> download.download(resourceName, staging, progress, digests));
+    }
+
+    /**
+     * Answers existence checks and listings from the published key index of the repository, if enabled,
+     * rebuilding the index from a listing of the repository first if asked to
+     */
+    protected void openKeyIndex(PublishedKeyIndex publishedKeyIndex) throws ConnectionException {
+        KeyIndexProperty keyIndexProperty = KeyIndexProperty.empty();
+
+        if (keyIndexProperty.isEnabled()) {
+            this.keyIndexManager = KeyIndexManager.forRepository(repository.getUrl(), keyIndexProperty);
+            this.publishedKeyIndex = publishedKeyIndex;
+
+            if (keyIndexProperty.isRebuild()) {
+                try {
+                    keyIndexManager.rebuild(publishedKeyIndex);
+                } catch (IOException e) {
+                    throw new ConnectionException("Could not rebuild the key index of " + repository.getUrl(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * The index is authoritative, a resource it does not have is reported missing without a request. Resources put
+     * by clients that do not maintain the index stay missing until the index is rebuilt.
+     *
+     * @return whether the key index has the resource, null if there is no index to tell
+     */
+    protected Boolean indexedExists(String resourceName) {
+        KeyIndex keyIndex = keyIndex();
+        if (keyIndex == null) {
+            return null;
+        }
+        return keyIndex.contains(resourceName);
+    }
+
+    /**
+     * Fails without a request if the key index does not have the resource
+     */
+    protected void throwIfNotIndexed(String resourceName) throws ResourceDoesNotExistException {
+        if (Boolean.FALSE.equals(indexedExists(resourceName))) {
+            throw new ResourceDoesNotExistException(resourceName + " is not in the key index of " + repository.getUrl());
+        }
+    }
+
+    /**
+     * @return the immediate children of the path in the key index, null if there is no index to tell
+     */
+    protected List<String> indexedFileList(String path) {
+        KeyIndex keyIndex = keyIndex();
+        if (keyIndex == null) {
+            return null;
+        }
+        return keyIndex.listChildren(path);
+    }
+
+    /**
+     * Records a resource put through the wagon, to be added to the key index on disconnect
+     */
+    protected void recordIndexedPut(String resourceName) {
+        if (keyIndexManager != null) {
+            unpublishedKeys.add(resourceName);
+        }
+    }
+
+    /**
+     * Adds the resources put through the wagon to the published key index
+     */
+    protected void publishKeyIndex() throws ConnectionException {
+        if (keyIndexManager == null || unpublishedKeys.isEmpty()) {
+            return;
+        }
+
+        List<String> resourceNames = new ArrayList<>(unpublishedKeys);
+        try {
+            keyIndexManager.publish(resourceNames, publishedKeyIndex);
+            unpublishedKeys.removeAll(resourceNames);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Could not publish the key index, the deployed resources are missing from it", e);
+            throw new ConnectionException("Could not publish the key index of " + repository.getUrl(), e);
+        }
+    }
+
+    private KeyIndex keyIndex() {
+        if (keyIndexManager == null) {
+            return null;
+        }
+        return keyIndexManager.get(publishedKeyIndex);
+    }
+
 }
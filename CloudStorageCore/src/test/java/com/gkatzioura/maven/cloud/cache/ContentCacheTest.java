@@ -0,0 +1,116 @@
+package com.gkatzioura.maven.cloud.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.gkatzioura.maven.cloud.transfer.TransferDigests;
+
+public class ContentCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File cacheDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheDirectory = temporaryFolder.newFolder("cache");
+    }
+
+    @Test
+    public void testSameContentIsStoredOnceAndLinkedOnHit() throws IOException {
+        ContentCache contentCache = new ContentCache(new ContentCacheProperty(true, cacheDirectory.getAbsolutePath(), null));
+
+        contentCache.put("s3://bucket", "a/artifact-1.0.jar", download("0123456789"), "etag", 1000L, null);
+        contentCache.put("gs://bucket", "a/artifact-1.0.jar", download("0123456789"), "1", 2000L, null);
+        Assert.assertEquals(1, objectCount());
+
+        CachedFile cachedFile = contentCache.get("gs://bucket", "a/artifact-1.0.jar");
+        Assert.assertEquals("1", cachedFile.getValidator());
+        Assert.assertEquals(2000L, cachedFile.getLastModified());
+        Assert.assertNull(contentCache.get("gs://bucket", "a/artifact-2.0.jar"));
+
+        File destination = new File(temporaryFolder.getRoot(), "repository/artifact-1.0.jar");
+        TransferDigests transferDigests = new TransferDigests();
+        cachedFile.writeTo(destination, null, transferDigests);
+
+        Assert.assertEquals("0123456789", new String(Files.readAllBytes(destination.toPath()), StandardCharsets.UTF_8));
+        Assert.assertEquals(10, transferDigests.getLength());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedFilesAreEvicted() throws IOException {
+        ContentCache contentCache = new ContentCache(new ContentCacheProperty(true, cacheDirectory.getAbsolutePath(), 25L));
+
+        contentCache.put("s3://bucket", "first.jar", download("aaaaaaaaaa"), "etag", 1000L, null);
+        try (Stream<Path> objects = Files.walk(new File(cacheDirectory, "access").toPath())) {
+            objects.forEach(path -> path.toFile().setLastModified(System.currentTimeMillis() - 60000));
+        }
+
+        contentCache.put("s3://bucket", "second.jar", download("bbbbbbbbbb"), "etag", 1000L, null);
+        contentCache.put("s3://bucket", "third.jar", download("cccccccccc"), "etag", 1000L, null);
+
+        Assert.assertNull(contentCache.get("s3://bucket", "first.jar"));
+        Assert.assertNotNull(contentCache.get("s3://bucket", "second.jar"));
+        Assert.assertNotNull(contentCache.get("s3://bucket", "third.jar"));
+        Assert.assertEquals(2, objectCount());
+    }
+
+    @Test
+    public void testHitKeepsTheModificationTimeOfTheLinkedFile() throws IOException {
+        ContentCache contentCache = new ContentCache(new ContentCacheProperty(true, cacheDirectory.getAbsolutePath(), null));
+
+        File download = download("0123456789");
+        TransferDigests downloadDigests = new TransferDigests();
+        downloadDigests.update(Files.readAllBytes(download.toPath()), 0, 10);
+        contentCache.put("s3://bucket", "artifact-1.0.jar", download, "etag", 1000L, downloadDigests);
+
+        File destination = new File(temporaryFolder.getRoot(), "repository/artifact-1.0.jar");
+        contentCache.get("s3://bucket", "artifact-1.0.jar").writeTo(destination, null, null);
+        destination.setLastModified(100000L);
+
+        contentCache.get("s3://bucket", "artifact-1.0.jar").writeTo(new File(temporaryFolder.getRoot(), "other/artifact-1.0.jar"), null, null);
+        Assert.assertEquals(100000L, destination.lastModified());
+    }
+
+    @Test
+    public void testFileModifiedThroughItsLinkIsReplaced() throws IOException {
+        ContentCache contentCache = new ContentCache(new ContentCacheProperty(true, cacheDirectory.getAbsolutePath(), null));
+
+        contentCache.put("s3://bucket", "artifact-1.0.jar", download("0123456789"), "etag", 1000L, null);
+        File destination = new File(temporaryFolder.getRoot(), "repository/artifact-1.0.jar");
+        contentCache.get("s3://bucket", "artifact-1.0.jar").writeTo(destination, null, null);
+
+        Files.write(destination.toPath(), "corrupt".getBytes(StandardCharsets.UTF_8));
+        Assert.assertNull(contentCache.get("s3://bucket", "artifact-1.0.jar"));
+
+        contentCache.put("s3://bucket", "artifact-1.0.jar", download("0123456789"), "etag", 1000L, null);
+        File other = new File(temporaryFolder.getRoot(), "other/artifact-1.0.jar");
+        contentCache.get("s3://bucket", "artifact-1.0.jar").writeTo(other, null, null);
+        Assert.assertEquals("0123456789", new String(Files.readAllBytes(other.toPath()), StandardCharsets.UTF_8));
+        Assert.assertEquals(1, objectCount());
+    }
+
+    private File download(String content) throws IOException {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private long objectCount() throws IOException {
+        try (Stream<Path> objects = Files.walk(new File(cacheDirectory, "objects").toPath())) {
+            return objects.filter(Files::isRegularFile).count();
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MetadataCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void testExpiresAfterTtl() {
+
+        MetadataCache metadataCache = new MetadataCache(10, clock::get);
+        metadataCache.put("s3://bucket", "key", ResourceMetadata.of(1000, 10), 100);
+
+        clock.set(99);
+        Assert.assertEquals(1000, metadataCache.get("s3://bucket", "key").getLastModified());
+
+        clock.set(100);
+        Assert.assertNull(metadataCache.get("s3://bucket", "key"));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+
+        MetadataCache metadataCache = new MetadataCache(2, clock::get);
+        metadataCache.put("s3://bucket", "first", ResourceMetadata.missing(), 100);
+        metadataCache.put("s3://bucket", "second", ResourceMetadata.missing(), 100);
+        metadataCache.get("s3://bucket", "first");
+        metadataCache.put("s3://bucket", "third", ResourceMetadata.missing(), 100);
+
+        Assert.assertNotNull(metadataCache.get("s3://bucket", "first"));
+        Assert.assertNull(metadataCache.get("s3://bucket", "second"));
+        Assert.assertNotNull(metadataCache.get("s3://bucket", "third"));
+    }
+
+    @Test
+    public void testScopedByRepository() {
+
+        MetadataCache metadataCache = new MetadataCache(10, clock::get);
+        metadataCache.put("s3://bucket", "key", ResourceMetadata.missing(), 100);
+        metadataCache.put("gs://bucket", "key", ResourceMetadata.of(1, 1), 100);
+
+        metadataCache.invalidate("s3://bucket", "key");
+
+        Assert.assertNull(metadataCache.get("s3://bucket", "key"));
+        Assert.assertTrue(metadataCache.get("gs://bucket", "key").exists());
+    }
+
+}
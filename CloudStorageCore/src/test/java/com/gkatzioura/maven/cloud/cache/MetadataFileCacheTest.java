@@ -0,0 +1,58 @@
+package com.gkatzioura.maven.cloud.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MetadataFileCacheTest {
+
+    private static final String KEY = "com/test/artifact/1.0-SNAPSHOT/maven-metadata.xml";
+    private static final byte[] CONTENT = "<metadata><version>1.0-SNAPSHOT</version></metadata>".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private MetadataFileCache metadataFileCache;
+
+    @Before
+    public void setUp() throws IOException {
+        metadataFileCache = new MetadataFileCache(new MetadataFileCacheProperty(true, temporaryFolder.newFolder("cache").getAbsolutePath()));
+    }
+
+    @Test
+    public void testOnlyMetadataFilesAreCacheable() {
+        Assert.assertTrue(metadataFileCache.isCacheable(KEY));
+        Assert.assertTrue(metadataFileCache.isCacheable("maven-metadata.xml"));
+        Assert.assertFalse(metadataFileCache.isCacheable("com/test/artifact/1.0/artifact-1.0.pom"));
+        Assert.assertFalse(metadataFileCache.isCacheable("com/test/artifact/1.0-SNAPSHOT/maven-metadata.xml.sha1"));
+        Assert.assertFalse(new MetadataFileCache(new MetadataFileCacheProperty(false, null)).isCacheable(KEY));
+    }
+
+    @Test
+    public void testCachedBodyIsWrittenWithItsValidator() throws IOException {
+        File downloaded = temporaryFolder.newFile();
+        Files.write(downloaded.toPath(), CONTENT);
+
+        metadataFileCache.put("s3://bucket", KEY, downloaded, "etag", 1000L);
+        Assert.assertNull(metadataFileCache.get("s3://other", KEY));
+
+        MetadataFileCache.Entry entry = metadataFileCache.get("s3://bucket", KEY);
+        Assert.assertEquals("etag", entry.getValidator());
+        Assert.assertEquals(1000L, entry.getLastModified());
+
+        File destination = new File(temporaryFolder.getRoot(), "copy/maven-metadata.xml");
+        entry.writeTo(destination, null, null);
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+
+        metadataFileCache.invalidate("s3://bucket", KEY);
+        Assert.assertNull(metadataFileCache.get("s3://bucket", KEY));
+    }
+
+}
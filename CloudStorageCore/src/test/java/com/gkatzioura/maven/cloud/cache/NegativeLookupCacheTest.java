@@ -0,0 +1,46 @@
+package com.gkatzioura.maven.cloud.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NegativeLookupCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void testMissExpiresAfterTtl() {
+        NegativeLookupCache negativeLookupCache = new NegativeLookupCache(new NegativeLookupCacheProperty(100L, 10), clock::get);
+        negativeLookupCache.putMissing("s3://bucket", "key");
+
+        clock.set(99);
+        Assert.assertTrue(negativeLookupCache.isMissing("s3://bucket", "key"));
+        Assert.assertFalse(negativeLookupCache.isMissing("gs://bucket", "key"));
+
+        clock.set(100);
+        Assert.assertFalse(negativeLookupCache.isMissing("s3://bucket", "key"));
+    }
+
+    @Test
+    public void testInvalidateAndBound() {
+        NegativeLookupCache negativeLookupCache = new NegativeLookupCache(new NegativeLookupCacheProperty(100L, 2), clock::get);
+        negativeLookupCache.putMissing("s3://bucket", "first");
+        negativeLookupCache.putMissing("s3://bucket", "second");
+        negativeLookupCache.invalidate("s3://bucket", "second");
+        Assert.assertFalse(negativeLookupCache.isMissing("s3://bucket", "second"));
+
+        negativeLookupCache.putMissing("s3://bucket", "second");
+        negativeLookupCache.putMissing("s3://bucket", "third");
+        Assert.assertFalse(negativeLookupCache.isMissing("s3://bucket", "first"));
+        Assert.assertTrue(negativeLookupCache.isMissing("s3://bucket", "third"));
+    }
+
+    @Test
+    public void testZeroTtlDisablesTheCache() {
+        NegativeLookupCache negativeLookupCache = new NegativeLookupCache(new NegativeLookupCacheProperty(0L, 10), clock::get);
+        negativeLookupCache.putMissing("s3://bucket", "key");
+        Assert.assertFalse(negativeLookupCache.isMissing("s3://bucket", "key"));
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.gkatzioura.maven.cloud.compress;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.gkatzioura.maven.cloud.transfer.TransferDigests;
+
+public class GzipContentEncodingTest {
+
+    private static final byte[] CONTENT = "<project><modelVersion>4.0.0</modelVersion></project>".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testCompressedFileIsInflatedWithDigestsOfTheOriginal() throws IOException {
+        File file = temporaryFolder.newFile("artifact.pom");
+        Files.write(file.toPath(), CONTENT);
+        TransferDigests transferDigests = new TransferDigests();
+
+        File compressed = GzipContentEncoding.compress(file, transferDigests);
+        try (InputStream inputStream = GzipContentEncoding.decompress(Files.newInputStream(compressed.toPath()))) {
+            Assert.assertArrayEquals(CONTENT, readAll(inputStream));
+        } finally {
+            compressed.delete();
+        }
+
+        Assert.assertEquals(CONTENT.length, transferDigests.getLength());
+    }
+
+    @Test
+    public void testInflatedStreamIsPassedThrough() throws IOException {
+        try (InputStream inputStream = GzipContentEncoding.decompress(new ByteArrayInputStream(CONTENT))) {
+            Assert.assertArrayEquals(CONTENT, readAll(inputStream));
+        }
+    }
+
+    @Test
+    public void testArchivesAreNotCompressible() {
+        Assert.assertEquals("application/xml", CompressibleContentTypeResolver.getContentType("com/example/lib/1.0/lib-1.0.pom"));
+        Assert.assertEquals("text/plain", CompressibleContentTypeResolver.getContentType("com/example/lib/1.0/lib-1.0.jar.sha1"));
+        Assert.assertNull(CompressibleContentTypeResolver.getContentType("com/example/lib/1.0/lib-1.0.jar"));
+        Assert.assertNull(CompressibleContentTypeResolver.getContentType("com/example/lib/1.0/lib-1.0.zip"));
+        Assert.assertNull(CompressibleContentTypeResolver.getContentType("com/example.xml/README"));
+    }
+
+    private static byte[] readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[16];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+    }
+
+}
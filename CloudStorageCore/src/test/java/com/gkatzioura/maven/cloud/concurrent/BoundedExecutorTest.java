@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.concurrent;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BoundedExecutorTest {
+
+    @Test
+    public void testRunsAllTasks() throws Exception {
+
+        AtomicInteger counter = new AtomicInteger();
+
+        try (BoundedExecutor boundedExecutor = new BoundedExecutor("test", 4, 2)) {
+            for (int i = 0; i < 100; i++) {
+                boundedExecutor.submit(counter::incrementAndGet);
+            }
+            boundedExecutor.await();
+        }
+
+        Assert.assertEquals(100, counter.get());
+    }
+
+    @Test
+    public void testFirstFailureAborts() throws Exception {
+
+        AtomicInteger counter = new AtomicInteger();
+        IOException failure = new IOException("first");
+
+        try (BoundedExecutor boundedExecutor = new BoundedExecutor("test", 1, 1)) {
+            boundedExecutor.submit(() -> {
+                throw failure;
+            });
+            boundedExecutor.submit(counter::incrementAndGet);
+            boundedExecutor.await();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertSame(failure, e.getCause());
+        }
+
+        Assert.assertEquals(0, counter.get());
+    }
+
+}
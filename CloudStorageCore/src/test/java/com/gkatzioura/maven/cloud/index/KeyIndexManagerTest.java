@@ -0,0 +1,191 @@
+package com.gkatzioura.maven.cloud.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class KeyIndexManagerTest {
+
+    private static final String REPOSITORY = "s3://bucket";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final AtomicLong clock = new AtomicLong();
+    private final FakePublishedKeyIndex published = new FakePublishedKeyIndex();
+    private KeyIndexManager keyIndexManager;
+
+    @Before
+    public void setUp() throws IOException {
+        keyIndexManager = manager();
+    }
+
+    @Test
+    public void testNoIndexIsPublishedUntilTheFirstDeploy() throws IOException {
+        Assert.assertNull(keyIndexManager.get(published));
+
+        published.resourceNames = Collections.singletonList("com/test/artifact/1.0/artifact-1.0.pom");
+        keyIndexManager.publish(Collections.singletonList("com/test/artifact/1.0/artifact-1.0.jar"), published);
+
+        KeyIndex keyIndex = keyIndexManager.get(published);
+        Assert.assertEquals(1, keyIndex.getGeneration());
+        Assert.assertTrue(keyIndex.contains("com/test/artifact/1.0/artifact-1.0.pom"));
+        Assert.assertTrue(keyIndex.contains("com/test/artifact/1.0/artifact-1.0.jar"));
+    }
+
+    @Test
+    public void testLocalCopyIsRevalidatedAfterTheTtl() throws IOException {
+        keyIndexManager.publish(Collections.singletonList("a.jar"), published);
+        manager().publish(Collections.singletonList("b.jar"), published);
+        int downloads = published.downloads;
+
+        Assert.assertFalse(keyIndexManager.get(published).contains("b.jar"));
+        Assert.assertEquals(downloads, published.downloads);
+
+        clock.addAndGet(1000);
+        Assert.assertTrue(keyIndexManager.get(published).contains("b.jar"));
+        Assert.assertEquals(downloads + 1, published.downloads);
+    }
+
+    @Test
+    public void testPublishRetriesWhenTheIndexChangedMeanwhile() throws IOException {
+        keyIndexManager.publish(Collections.singletonList("a.jar"), published);
+        published.concurrentKeys = Collections.singletonList("b.jar");
+
+        keyIndexManager.publish(Collections.singletonList("c.jar"), published);
+
+        KeyIndex keyIndex = keyIndexManager.get(published);
+        Assert.assertEquals(3, keyIndex.getGeneration());
+        Assert.assertEquals(Arrays.asList("a.jar", "b.jar", "c.jar"), keyIndex.keys());
+    }
+
+    @Test
+    public void testStaleCopyIsIgnored() throws IOException {
+        keyIndexManager.publish(Arrays.asList("a.jar", "b.jar"), published);
+
+        File stale = temporaryFolder.newFile();
+        KeyIndex.write(stale, 0, Collections.singletonList("a.jar"));
+        published.store(stale);
+
+        clock.addAndGet(1000);
+        KeyIndex keyIndex = keyIndexManager.get(published);
+        Assert.assertEquals(1, keyIndex.getGeneration());
+        Assert.assertTrue(keyIndex.contains("b.jar"));
+    }
+
+    @Test
+    public void testUpdateRemovesKeysAndDoesNotCreateAMissingIndex() throws IOException {
+        keyIndexManager.update(Collections.singletonList("a.jar"), Collections.emptyList(), false, published);
+        Assert.assertNull(keyIndexManager.get(published));
+
+        keyIndexManager.publish(Arrays.asList("a.jar", "b.jar"), published);
+        keyIndexManager.update(Collections.singletonList("c.jar"), Collections.singletonList("a.jar"), false, published);
+
+        Assert.assertEquals(Arrays.asList("b.jar", "c.jar"), keyIndexManager.get(published).keys());
+    }
+
+    @Test
+    public void testRebuildReplacesTheIndexWithTheListingOnce() throws IOException {
+        keyIndexManager.publish(Arrays.asList("a.jar", "b.jar"), published);
+        published.resourceNames = Arrays.asList("a.jar", "c.jar");
+
+        keyIndexManager.rebuild(published);
+
+        KeyIndex keyIndex = keyIndexManager.get(published);
+        Assert.assertEquals(2, keyIndex.getGeneration());
+        Assert.assertEquals(Arrays.asList("a.jar", "c.jar"), keyIndex.keys());
+
+        published.resourceNames = Collections.singletonList("d.jar");
+        keyIndexManager.rebuild(published);
+        Assert.assertEquals(2, keyIndexManager.get(published).getGeneration());
+    }
+
+    @Test
+    public void testKeyIndexUpdateOnlyPublishesKeysUnderTheBaseDirectory() throws IOException {
+        String directory = new File(temporaryFolder.getRoot(), "update").getAbsolutePath();
+        KeyIndexUpdate keyIndexUpdate = new KeyIndexUpdate("s3://update-bucket/releases", "releases", new KeyIndexProperty(true, 0L, directory, null));
+
+        keyIndexUpdate.added("releases/a.jar");
+        keyIndexUpdate.added("releases/b.jar");
+        keyIndexUpdate.added("snapshots/c.jar");
+        keyIndexUpdate.removed("releases/b.jar");
+        keyIndexUpdate.publish(published);
+
+        Assert.assertEquals(Collections.singletonList("a.jar"), KeyIndex.map(published.index).keys());
+    }
+
+    private KeyIndexManager manager() throws IOException {
+        String directory = new File(temporaryFolder.getRoot(), "index").getAbsolutePath();
+        return new KeyIndexManager(REPOSITORY, new KeyIndexProperty(true, 1000L, directory, null), clock::get);
+    }
+
+    private class FakePublishedKeyIndex implements PublishedKeyIndex {
+
+        private File index;
+        private int version;
+        private int downloads;
+        private List<String> resourceNames = Collections.emptyList();
+        private List<String> concurrentKeys;
+
+        @Override
+        public String downloadKeyIndex(File destination, String validator) throws IOException {
+            if (index == null) {
+                return null;
+            }
+            if (String.valueOf(version).equals(validator)) {
+                return validator;
+            }
+            downloads++;
+            Files.copy(index.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return String.valueOf(version);
+        }
+
+        @Override
+        public String uploadKeyIndex(File upload, String validator) throws IOException {
+            if (concurrentKeys != null) {
+                //another deploy publishes right before this one
+                File concurrent = temporaryFolder.newFile();
+                KeyIndex.write(concurrent, KeyIndex.readGeneration(index) + 1, concat(KeyIndex.map(index).keys(), concurrentKeys));
+                concurrentKeys = null;
+                store(concurrent);
+            }
+            if (index == null ? validator != null : !String.valueOf(version).equals(validator)) {
+                return null;
+            }
+            store(upload);
+            return String.valueOf(version);
+        }
+
+        @Override
+        public List<String> listResourceNames() {
+            return resourceNames;
+        }
+
+        private void store(File file) throws IOException {
+            File copy = temporaryFolder.newFile();
+            Files.copy(file.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            index = copy;
+            version++;
+        }
+
+        private List<String> concat(List<String> first, List<String> second) {
+            List<String> keys = new ArrayList<>(first);
+            keys.addAll(second);
+            return keys;
+        }
+
+    }
+
+}
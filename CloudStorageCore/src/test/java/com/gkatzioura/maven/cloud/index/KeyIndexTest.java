@@ -0,0 +1,95 @@
+package com.gkatzioura.maven.cloud.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class KeyIndexTest {
+
+    private static final List<String> KEYS = Arrays.asList(
+            "com/test/artifact/1.0/artifact-1.0.jar",
+            "com/test/artifact/1.0/artifact-1.0.pom",
+            "com/test/artifact/maven-metadata.xml",
+            "com/test/artifact-other/2.0/artifact-other-2.0.jar",
+            "com/test/\u00e9lan/1.0/\u00e9lan-1.0.jar",
+            "README");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testContainsOnlyTheIndexedKeys() throws IOException {
+        KeyIndex keyIndex = write(7, KEYS);
+
+        Assert.assertEquals(7, keyIndex.getGeneration());
+        Assert.assertEquals(KEYS.size(), keyIndex.size());
+        for (String key : KEYS) {
+            Assert.assertTrue(key, keyIndex.contains(key));
+        }
+        Assert.assertTrue(keyIndex.contains("/com/test/artifact/1.0/artifact-1.0.jar"));
+        Assert.assertFalse(keyIndex.contains("com/test/artifact/1.0/artifact-1.0.jar.sha1"));
+        Assert.assertFalse(keyIndex.contains("com/test/artifact"));
+        Assert.assertFalse(keyIndex.contains(""));
+    }
+
+    @Test
+    public void testBloomFilterRejectsMostMisses() throws IOException {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add("com/test/artifact/" + i + "/artifact-" + i + ".jar");
+        }
+        KeyIndex keyIndex = write(1, keys);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 1000; i++) {
+            byte[] missing = ("com/test/artifact/" + i + "/artifact-" + i + ".pom").getBytes(StandardCharsets.UTF_8);
+            if (keyIndex.mightContain(missing)) {
+                falsePositives++;
+            }
+        }
+        Assert.assertTrue("false positives " + falsePositives, falsePositives < 50);
+    }
+
+    @Test
+    public void testListsImmediateChildren() throws IOException {
+        KeyIndex keyIndex = write(1, KEYS);
+
+        Assert.assertEquals(Arrays.asList("1.0/", "maven-metadata.xml"), keyIndex.listChildren("com/test/artifact"));
+        Assert.assertEquals(Arrays.asList("artifact-other/", "artifact/", "\u00e9lan/"), keyIndex.listChildren("com/test/"));
+        Assert.assertEquals(Arrays.asList("README", "com/"), keyIndex.listChildren(""));
+        Assert.assertTrue(keyIndex.listChildren("org").isEmpty());
+    }
+
+    @Test
+    public void testKeysRoundTrip() throws IOException {
+        KeyIndex keyIndex = write(3, KEYS);
+
+        KeyIndex rewritten = write(4, keyIndex.keys());
+
+        Assert.assertEquals(4, rewritten.getGeneration());
+        Assert.assertEquals(keyIndex.keys(), rewritten.keys());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherFiles() throws IOException {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), "not an index at all, just some text".getBytes(StandardCharsets.UTF_8));
+        KeyIndex.map(file);
+    }
+
+    private KeyIndex write(long generation, List<String> keys) throws IOException {
+        File file = temporaryFolder.newFile();
+        KeyIndex.write(file, generation, keys);
+        return KeyIndex.map(file);
+    }
+
+}
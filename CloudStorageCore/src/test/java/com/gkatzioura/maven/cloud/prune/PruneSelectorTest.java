@@ -0,0 +1,68 @@
+package com.gkatzioura.maven.cloud.prune;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PruneSelectorTest {
+
+    @Test
+    public void testSelectsByAge() {
+        PruneSelector pruneSelector = new PruneSelector(100L, null);
+
+        List<String> selected = new ArrayList<>();
+        selected.addAll(pruneSelector.offer("a/old.jar", 50));
+        selected.addAll(pruneSelector.offer("a/new.jar", 150));
+        selected.addAll(pruneSelector.finish());
+
+        Assert.assertEquals(Arrays.asList("a/old.jar"), selected);
+    }
+
+    @Test
+    public void testKeepsLatestBuildsPerDirectory() {
+        PruneSelector pruneSelector = new PruneSelector(null, 1);
+
+        List<String> selected = new ArrayList<>();
+        selected.addAll(pruneSelector.offer("a/1.0-SNAPSHOT/a-1.0-20200101.100000-1.jar", 10));
+        selected.addAll(pruneSelector.offer("a/1.0-SNAPSHOT/a-1.0-20200101.100000-1.pom", 10));
+        selected.addAll(pruneSelector.offer("a/1.0-SNAPSHOT/a-1.0-20200102.100000-2.jar", 20));
+        selected.addAll(pruneSelector.offer("a/1.0-SNAPSHOT/maven-metadata.xml", 30));
+        Assert.assertTrue(selected.isEmpty());
+
+        selected.addAll(pruneSelector.offer("b/1.0-SNAPSHOT/b-1.0-20200101.100000-1.jar", 10));
+        Assert.assertEquals(Arrays.asList("a/1.0-SNAPSHOT/a-1.0-20200101.100000-1.jar", "a/1.0-SNAPSHOT/a-1.0-20200101.100000-1.pom"), selected);
+
+        Assert.assertTrue(pruneSelector.finish().isEmpty());
+    }
+
+    @Test
+    public void testRetentionAndAgeBothApply() {
+        PruneSelector pruneSelector = new PruneSelector(15L, 1);
+
+        pruneSelector.offer("a/a-1.0-20200101.100000-1.jar", 10);
+        pruneSelector.offer("a/a-1.0-20200102.100000-2.jar", 20);
+        pruneSelector.offer("a/a-1.0-20200103.100000-3.jar", 30);
+
+        Assert.assertEquals(Arrays.asList("a/a-1.0-20200101.100000-1.jar"), pruneSelector.finish());
+    }
+
+    @Test
+    public void testKeepsOldMetadataOfDirectoriesWithKeptBuilds() {
+        PruneSelector pruneSelector = new PruneSelector(100L, 1);
+
+        List<String> selected = new ArrayList<>();
+        selected.addAll(pruneSelector.offer("a/1.0-SNAPSHOT/a-1.0-20200101.100000-1.jar", 10));
+        selected.addAll(pruneSelector.offer("a/1.0-SNAPSHOT/a-1.0-20200102.100000-2.jar", 20));
+        selected.addAll(pruneSelector.offer("a/1.0-SNAPSHOT/maven-metadata.xml", 20));
+        selected.addAll(pruneSelector.offer("a/1.0-SNAPSHOT/maven-metadata.xml.sha1", 20));
+        selected.addAll(pruneSelector.offer("b/1.0/b-1.0.jar", 10));
+        selected.addAll(pruneSelector.offer("b/1.0/maven-metadata.xml", 10));
+        selected.addAll(pruneSelector.finish());
+
+        Assert.assertEquals(Arrays.asList("a/1.0-SNAPSHOT/a-1.0-20200101.100000-1.jar", "b/1.0/b-1.0.jar", "b/1.0/maven-metadata.xml"), selected);
+    }
+
+}
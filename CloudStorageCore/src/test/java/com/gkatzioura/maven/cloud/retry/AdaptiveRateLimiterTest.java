@@ -0,0 +1,50 @@
+package com.gkatzioura.maven.cloud.retry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(clock::get);
+
+    @Test
+    public void testRateIsHalvedOnThrottleAndRecoversOnSuccess() {
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(0, rateLimiter.reserve());
+        }
+
+        rateLimiter.onThrottle();
+        Assert.assertEquals(10, rateLimiter.getRate(), 0);
+
+        //a second throttle within the same second is the same burst
+        rateLimiter.onThrottle();
+        Assert.assertEquals(10, rateLimiter.getRate(), 0);
+
+        for (int i = 0; i < 19; i++) {
+            rateLimiter.onSuccess();
+        }
+        Assert.assertEquals(19.5, rateLimiter.getRate(), 0);
+
+        rateLimiter.onSuccess();
+        Assert.assertTrue(Double.isInfinite(rateLimiter.getRate()));
+    }
+
+    @Test
+    public void testRequestsWaitForTokens() {
+        for (int i = 0; i < 4; i++) {
+            rateLimiter.reserve();
+        }
+        rateLimiter.onThrottle();
+        Assert.assertEquals(2, rateLimiter.getRate(), 0);
+
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(500), rateLimiter.reserve());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        Assert.assertEquals(0, rateLimiter.reserve());
+    }
+
+}
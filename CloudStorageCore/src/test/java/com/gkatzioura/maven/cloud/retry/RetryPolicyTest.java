@@ -0,0 +1,75 @@
+package com.gkatzioura.maven.cloud.retry;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RetryPolicyTest {
+
+    private static final RetryClassifier CLASSIFIER = e -> {
+        if (e.getMessage().equals("slow down")) {
+            return RetryClassifier.Outcome.THROTTLED;
+        }
+        return e instanceof IOException ? RetryClassifier.Outcome.TRANSIENT : RetryClassifier.Outcome.FATAL;
+    };
+
+    @Test
+    public void testTransientErrorsAreRetried() throws IOException {
+        RetryPolicy retryPolicy = new RetryPolicy(new RetryProperty(3, 0L, 0L), CLASSIFIER, new AdaptiveRateLimiter(System::nanoTime));
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retryPolicy.execute("get", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IOException("reset");
+            }
+            return "done";
+        });
+
+        Assert.assertEquals("done", result);
+        Assert.assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void testFatalErrorsAreNotRetried() {
+        RetryPolicy retryPolicy = new RetryPolicy(new RetryProperty(3, 0L, 0L), CLASSIFIER, new AdaptiveRateLimiter(System::nanoTime));
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            retryPolicy.execute("get", () -> {
+                attempts.incrementAndGet();
+                throw new IllegalArgumentException("denied");
+            });
+            Assert.fail("The fatal error should have been thrown");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(1, attempts.get());
+        }
+    }
+
+    @Test
+    public void testThrottlingLowersTheRate() {
+        AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(System::nanoTime);
+        RetryPolicy retryPolicy = new RetryPolicy(new RetryProperty(2, 0L, 0L), CLASSIFIER, rateLimiter);
+
+        try {
+            retryPolicy.execute("put", () -> {
+                throw new IOException("slow down");
+            });
+            Assert.fail("The throttling error should have been thrown once attempts ran out");
+        } catch (IOException e) {
+            Assert.assertFalse(Double.isInfinite(rateLimiter.getRate()));
+        }
+    }
+
+    @Test
+    public void testBackoffIsCapped() {
+        RetryPolicy retryPolicy = new RetryPolicy(new RetryProperty(10, 100L, 1000L), CLASSIFIER, new AdaptiveRateLimiter(System::nanoTime));
+
+        for (int attempt = 1; attempt < 10; attempt++) {
+            long backoff = retryPolicy.backoff(attempt);
+            Assert.assertTrue(backoff >= 0 && backoff <= Math.min(1000, 100L << (attempt - 1)));
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedFileInputStreamTest {
+
+    private static final byte[] CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReadsAcrossWindows() throws IOException {
+        AtomicLong progress = new AtomicLong();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (InputStream inputStream = new MappedFileInputStream(createFile(), 0, CONTENT.length, (b, l) -> progress.addAndGet(l), 8)) {
+            byte[] buffer = new byte[5];
+            int read;
+            while ((read = inputStream.read(buffer, 0, buffer.length)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        }
+
+        Assert.assertArrayEquals(CONTENT, outputStream.toByteArray());
+        Assert.assertEquals(CONTENT.length, progress.get());
+    }
+
+    @Test
+    public void testReplayedBytesAreReportedOnce() throws IOException {
+        ByteArrayOutputStream reported = new ByteArrayOutputStream();
+
+        try (InputStream inputStream = new MappedFileInputStream(createFile(), 0, CONTENT.length, (b, l) -> reported.write(b, 0, l), 8)) {
+            byte[] buffer = new byte[10];
+            inputStream.mark(Integer.MAX_VALUE);
+            Assert.assertEquals(8, inputStream.read(buffer, 0, 10));
+            inputStream.reset();
+
+            Assert.assertEquals(8, inputStream.read(buffer, 0, 10));
+            Assert.assertEquals(8, inputStream.read(buffer, 2, 8));
+            Assert.assertEquals('8', buffer[2]);
+        }
+
+        Assert.assertArrayEquals("0123456789abcdef".getBytes(StandardCharsets.US_ASCII), reported.toByteArray());
+    }
+
+    @Test
+    public void testSkippedBytesAreNotReported() throws IOException {
+        ByteArrayOutputStream reported = new ByteArrayOutputStream();
+
+        try (InputStream inputStream = new MappedFileInputStream(createFile(), 0, CONTENT.length, (b, l) -> reported.write(b, 0, l), 8)) {
+            byte[] buffer = new byte[10];
+            Assert.assertEquals(5, inputStream.skip(5));
+            Assert.assertEquals(3, inputStream.read(buffer, 4, 3));
+            Assert.assertEquals('5', buffer[4]);
+            Assert.assertEquals(10, inputStream.skip(10));
+            Assert.assertEquals(1, inputStream.read(buffer, 0, 1));
+            Assert.assertEquals('i', buffer[0]);
+        }
+
+        Assert.assertArrayEquals("567i".getBytes(StandardCharsets.US_ASCII), reported.toByteArray());
+    }
+
+    @Test
+    public void testReadsRegion() throws IOException {
+        byte[] buffer = new byte[5];
+
+        try (InputStream inputStream = new MappedFileInputStream(createFile(), 10, 5, (b, l) -> {}, 3)) {
+            Assert.assertEquals(3, inputStream.read(buffer, 0, buffer.length));
+            Assert.assertEquals(2, inputStream.read(buffer, 3, 2));
+            Assert.assertEquals(-1, inputStream.read(buffer, 0, buffer.length));
+        }
+
+        Assert.assertArrayEquals("abcde".getBytes(StandardCharsets.US_ASCII), buffer);
+    }
+
+    private File createFile() throws IOException {
+        File file = temporaryFolder.newFile("artifact.jar");
+        Files.write(file.toPath(), CONTENT);
+        return file;
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResumableDownloadTest {
+
+    private static final byte[] CONTENT = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testDownloadIsResumedFromWrittenBytes() throws IOException {
+        File destination = new File(temporaryFolder.getRoot(), "artifact.jar");
+        TransferDigests transferDigests = new TransferDigests();
+
+        new ResumableDownload(new ResumableDownloadProperty(2)).download(destination, CONTENT.length, failingAfter(0, 4),
+                offset -> offset < 7 ? failingAfter((int) offset, 3) : new ByteArrayInputStream(CONTENT, (int) offset, CONTENT.length - (int) offset),
+                null, transferDigests);
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+        Assert.assertEquals("25f9e794323b453885f5181f1b624d0b", transferDigests.getMd5Hex());
+        Assert.assertFalse(new File(temporaryFolder.getRoot(), "artifact.jar.part").exists());
+    }
+
+    @Test
+    public void testDestinationIsUntouchedWhenAttemptsAreExhausted() throws IOException {
+        File destination = temporaryFolder.newFile("artifact.jar");
+
+        try {
+            new ResumableDownload(new ResumableDownloadProperty(1)).download(destination, CONTENT.length, failingAfter(0, 4),
+                    offset -> failingAfter((int) offset, 1), null, null);
+            Assert.fail("Download should have failed");
+        } catch (IOException e) {
+            //expected
+        }
+
+        Assert.assertEquals(0, destination.length());
+        Assert.assertFalse(new File(temporaryFolder.getRoot(), "artifact.jar.part").exists());
+    }
+
+    @Test
+    public void testEarlyEndOfStreamIsResumed() throws IOException {
+        File destination = new File(temporaryFolder.getRoot(), "artifact.jar");
+
+        new ResumableDownload(new ResumableDownloadProperty(1)).download(destination, CONTENT.length, new ByteArrayInputStream(CONTENT, 0, 5),
+                offset -> new ByteArrayInputStream(CONTENT, (int) offset, CONTENT.length - (int) offset), null, null);
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+    }
+
+    /**
+     * A stream of the content from the offset which fails after the given bytes
+     */
+    private static InputStream failingAfter(int offset, int bytes) {
+        byte[] served = Arrays.copyOfRange(CONTENT, offset, offset + bytes);
+        return new InputStream() {
+
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (position == served.length) {
+                    throw new IOException("Connection reset");
+                }
+                return served[position++];
+            }
+        };
+    }
+
+}
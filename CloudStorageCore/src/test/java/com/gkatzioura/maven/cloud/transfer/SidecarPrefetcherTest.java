@@ -0,0 +1,80 @@
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SidecarPrefetcherTest {
+
+    private static final String REPOSITORY = "s3://bucket";
+    private static final String JAR = "com/test/artifact/1.0/artifact-1.0.jar";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<String> downloads = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void testSidecarsOfAJarAreTakenFromTheStagingArea() throws IOException {
+        SidecarPrefetcher sidecarPrefetcher = new SidecarPrefetcher(new PrefetchProperty(true, "sha1,md5", 2, null), clock::get);
+
+        sidecarPrefetcher.prefetchSidecars(REPOSITORY, JAR, this::download);
+        sidecarPrefetcher.prefetchSidecars(REPOSITORY, JAR + ".sha1", this::download);
+
+        File destination = new File(temporaryFolder.getRoot(), "artifact-1.0.jar.sha1");
+        AtomicLong progressed = new AtomicLong();
+        Assert.assertTrue(sidecarPrefetcher.take(REPOSITORY, JAR + ".sha1", destination, (buffer, length) -> progressed.addAndGet(length), null));
+        Assert.assertEquals(JAR + ".sha1", new String(Files.readAllBytes(destination.toPath()), StandardCharsets.UTF_8));
+        Assert.assertEquals(destination.length(), progressed.get());
+
+        Assert.assertFalse(sidecarPrefetcher.take(REPOSITORY, JAR + ".sha1", destination, null, null));
+        Assert.assertFalse(sidecarPrefetcher.take("gs://bucket", JAR + ".md5", destination, null, null));
+        Assert.assertTrue(sidecarPrefetcher.take(REPOSITORY, JAR + ".md5", destination, null, null));
+        Assert.assertEquals(2, downloads.size());
+        Assert.assertEquals(0, sidecarPrefetcher.getStagedBytes());
+    }
+
+    @Test
+    public void testFailedPrefetchIsLeftToTheGet() {
+        SidecarPrefetcher sidecarPrefetcher = new SidecarPrefetcher(new PrefetchProperty(true, null, 1, null), clock::get);
+
+        sidecarPrefetcher.prefetchSidecars(REPOSITORY, JAR, (name, destination, progress, digests) -> {
+            throw new ResourceDoesNotExistException(name);
+        });
+
+        Assert.assertFalse(sidecarPrefetcher.take(REPOSITORY, JAR + ".sha1", new File(temporaryFolder.getRoot(), "sha1"), null, null));
+    }
+
+    @Test
+    public void testNothingIsPrefetchedOnceTheStagingAreaIsFull() {
+        SidecarPrefetcher sidecarPrefetcher = new SidecarPrefetcher(new PrefetchProperty(true, null, 1, 0L), clock::get);
+
+        sidecarPrefetcher.prefetchSidecars(REPOSITORY, JAR, this::download);
+
+        Assert.assertFalse(sidecarPrefetcher.take(REPOSITORY, JAR + ".sha1", new File(temporaryFolder.getRoot(), "sha1"), null, null));
+        Assert.assertEquals(Collections.emptyList(), downloads);
+    }
+
+    private void download(String resourceName, File destination, TransferProgress transferProgress, TransferDigests transferDigests) throws TransferFailedException {
+        downloads.add(resourceName);
+        try {
+            Files.write(destination.toPath(), resourceName.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new TransferFailedException(resourceName, e);
+        }
+    }
+
+}
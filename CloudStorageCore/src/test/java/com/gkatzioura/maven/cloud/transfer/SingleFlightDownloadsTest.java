@@ -0,0 +1,109 @@
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SingleFlightDownloadsTest {
+
+    private static final byte[] CONTENT = "artifact content".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentGetsShareOneDownload() throws Exception {
+        SingleFlightDownloads singleFlightDownloads = new SingleFlightDownloads();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger downloads = new AtomicInteger();
+
+        File first = new File(temporaryFolder.getRoot(), "first.jar");
+        File second = new File(temporaryFolder.getRoot(), "second.jar");
+
+        Future<?> leader = executorService.submit(() -> {
+            singleFlightDownloads.download("s3://bucket", "artifact.jar", first, null, null, (destination, progress, digests) -> {
+                downloads.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                    Files.write(destination.toPath(), CONTENT);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            return null;
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        AtomicLong progressed = new AtomicLong();
+        TransferDigests transferDigests = new TransferDigests();
+        Future<?> waiter = executorService.submit(() -> {
+            singleFlightDownloads.download("s3://bucket", "artifact.jar", second, (buffer, length) -> progressed.addAndGet(length), transferDigests,
+                    (destination, progress, digests) -> downloads.incrementAndGet());
+            return null;
+        });
+
+        while (singleFlightDownloads.participants("s3://bucket", "artifact.jar") < 2) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        leader.get(5, TimeUnit.SECONDS);
+        waiter.get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(1, downloads.get());
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(first.toPath()));
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(second.toPath()));
+        Assert.assertEquals(CONTENT.length, progressed.get());
+        Assert.assertEquals(CONTENT.length, transferDigests.getLength());
+        Assert.assertEquals(0, singleFlightDownloads.inFlight());
+        Assert.assertEquals(2, temporaryFolder.getRoot().list().length);
+    }
+
+    @Test
+    public void testFailureIsNotCached() throws Exception {
+        SingleFlightDownloads singleFlightDownloads = new SingleFlightDownloads();
+        File destination = new File(temporaryFolder.getRoot(), "artifact.jar");
+
+        try {
+            singleFlightDownloads.download("s3://bucket", "artifact.jar", destination, null, null, (staging, progress, digests) -> {
+                throw new ResourceDoesNotExistException("artifact.jar");
+            });
+            Assert.fail();
+        } catch (ResourceDoesNotExistException e) {
+            Assert.assertEquals(0, singleFlightDownloads.inFlight());
+        }
+
+        singleFlightDownloads.download("s3://bucket", "artifact.jar", destination, null, null, (staging, progress, digests) -> {
+            try {
+                Files.write(staging.toPath(), CONTENT);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+        Assert.assertEquals(1, temporaryFolder.getRoot().list().length);
+    }
+
+}
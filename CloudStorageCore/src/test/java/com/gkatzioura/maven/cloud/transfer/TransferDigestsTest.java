@@ -0,0 +1,46 @@
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TransferDigestsTest {
+
+    private static final byte[] CONTENT = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    public void testDigestsOfReadBytes() throws IOException {
+        TransferDigests transferDigests = new TransferDigests();
+
+        try (InputStream inputStream = new DigestingInputStream(new ByteArrayInputStream(CONTENT), transferDigests)) {
+            byte[] buffer = new byte[4];
+            while (inputStream.read(buffer, 0, buffer.length) != -1) {
+                //digested while read
+            }
+        }
+
+        Assert.assertEquals("25f9e794323b453885f5181f1b624d0b", transferDigests.getMd5Hex());
+        Assert.assertEquals("f7c3bc1d808e04732adf679965ccc34ca7ae3441", transferDigests.getSha1Hex());
+        Assert.assertEquals("15e2b0d3c33891ebb0f1ef609ec419420c20e320ce94c65fbc8c3312448eb225", transferDigests.getSha256Hex());
+        Assert.assertEquals(0xE3069283L, transferDigests.getCrc32c());
+    }
+
+    @Test
+    public void testDigestsOfWrittenBytes() throws IOException {
+        TransferDigests transferDigests = new TransferDigests();
+
+        try (DigestingOutputStream outputStream = new DigestingOutputStream(new ByteArrayOutputStream(), transferDigests)) {
+            outputStream.write(CONTENT, 0, 4);
+            outputStream.write(CONTENT, 4, CONTENT.length - 4);
+        }
+
+        Assert.assertEquals("25f9e794323b453885f5181f1b624d0b", transferDigests.getMd5Hex());
+        Assert.assertEquals("4waSgw==", transferDigests.getCrc32cBase64());
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TransferProgressFileRegionInputStreamTest {
+
+    private static final byte[] CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReplayedBytesAreReportedOnce() throws IOException {
+        File file = temporaryFolder.newFile("artifact.jar");
+        Files.write(file.toPath(), CONTENT);
+        ByteArrayOutputStream reported = new ByteArrayOutputStream();
+
+        try (InputStream inputStream = new TransferProgressFileRegionInputStream(file, 10, 12, (b, l) -> reported.write(b, 0, l))) {
+            byte[] buffer = new byte[12];
+            inputStream.mark(Integer.MAX_VALUE);
+            Assert.assertEquals(8, inputStream.read(buffer, 0, 8));
+            inputStream.reset();
+
+            Assert.assertEquals(6, inputStream.read(buffer, 0, 6));
+            Assert.assertEquals(5, inputStream.read(buffer, 6, 5));
+            Assert.assertEquals('l', inputStream.read());
+            Assert.assertEquals(-1, inputStream.read());
+            Assert.assertEquals('g', buffer[6]);
+        }
+
+        Assert.assertArrayEquals("abcdefghijkl".getBytes(StandardCharsets.US_ASCII), reported.toByteArray());
+    }
+
+    @Test
+    public void testSkippedBytesAreNotReported() throws IOException {
+        File file = temporaryFolder.newFile("artifact.jar");
+        Files.write(file.toPath(), CONTENT);
+        ByteArrayOutputStream reported = new ByteArrayOutputStream();
+
+        try (InputStream inputStream = new TransferProgressFileRegionInputStream(file, 10, 12, (b, l) -> reported.write(b, 0, l))) {
+            byte[] buffer = new byte[12];
+            inputStream.mark(Integer.MAX_VALUE);
+            Assert.assertEquals(5, inputStream.skip(5));
+            Assert.assertEquals(3, inputStream.read(buffer, 4, 3));
+            Assert.assertEquals('f', buffer[4]);
+
+            inputStream.reset();
+            Assert.assertEquals(10, inputStream.read(buffer, 0, 10));
+        }
+
+        Assert.assertArrayEquals("fghij".getBytes(StandardCharsets.US_ASCII), reported.toByteArray());
+    }
+
+}
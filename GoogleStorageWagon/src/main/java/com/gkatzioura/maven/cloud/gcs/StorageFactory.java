@@ -6,8 +6,10 @@ import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.google.api.gax.retrying.RetrySettings;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.auth.oauth2.ServiceAccountCredentials;
+import com.google.cloud.ServiceOptions;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
 
@@ -15,11 +17,31 @@ public class StorageFactory {
 
     private static final Logger LOGGER = Logger.getLogger(StorageFactory.class.getName());
 
+    private final RetrySettings retrySettings;
+
+    /**
+     * Creates clients that retry with the default retry settings of the client library
+     */
+    public StorageFactory() {
+        this(StorageOptions.getDefaultRetrySettings());
+    }
+
+    private StorageFactory(RetrySettings retrySettings) {
+        this.retrySettings = retrySettings;
+    }
+
+    /**
+     * @return a factory of clients issuing every request once, for callers retrying through a RetryPolicy
+     */
+    public static StorageFactory withoutRetries() {
+        return new StorageFactory(ServiceOptions.getNoRetrySettings());
+    }
+
     public Storage createWithKeyFile(String keyPath) throws IOException {
         File credentialsPath = new File(keyPath);
         try(FileInputStream serviceAccountStream = new FileInputStream(credentialsPath)) {
             GoogleCredentials googleCredentials = ServiceAccountCredentials.fromStream(serviceAccountStream);
-            return StorageOptions.newBuilder().setCredentials(googleCredentials).build().getService();
+            return StorageOptions.newBuilder().setCredentials(googleCredentials).setRetrySettings(retrySettings).build().getService();
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Could not parse properly service account key file", e);
             throw e;
@@ -27,6 +49,6 @@ public class StorageFactory {
     }
 
     public Storage createDefault() {
-        return StorageOptions.getDefaultInstance().getService();
+        return StorageOptions.newBuilder().setRetrySettings(retrySettings).build().getService();
     }
 }
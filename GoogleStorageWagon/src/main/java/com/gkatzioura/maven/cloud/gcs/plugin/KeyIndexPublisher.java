@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.gcs.plugin;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.wagon.authentication.AuthenticationException;
+
+import com.gkatzioura.maven.cloud.gcs.wagon.GoogleStorageRepository;
+import com.gkatzioura.maven.cloud.index.KeyIndexProperty;
+import com.gkatzioura.maven.cloud.index.KeyIndexUpdate;
+import com.gkatzioura.maven.cloud.wagon.PublicReadProperty;
+
+/**
+ * Publishes the blobs a goal puts or deletes to the key index of the repository with the base directory in the bucket
+ */
+public final class KeyIndexPublisher {
+
+    private KeyIndexPublisher() {
+    }
+
+    public static KeyIndexUpdate update(String bucket, String baseDirectory) {
+        return new KeyIndexUpdate("gs://" + bucket + (baseDirectory == null || baseDirectory.isEmpty() ? "" : "/" + baseDirectory),
+                baseDirectory, KeyIndexProperty.empty());
+    }
+
+    public static void publish(KeyIndexUpdate keyIndexUpdate, String bucket, String baseDirectory, String keyPath) throws MojoExecutionException {
+        if (keyIndexUpdate.isEmpty()) {
+            return;
+        }
+
+        GoogleStorageRepository googleStorageRepository = new GoogleStorageRepository(Optional.ofNullable(keyPath), bucket,
+                baseDirectory == null ? "" : baseDirectory, new PublicReadProperty(false));
+        try {
+            googleStorageRepository.connect();
+            keyIndexUpdate.publish(googleStorageRepository);
+        } catch (AuthenticationException | IOException e) {
+            throw new MojoExecutionException("Could not update the key index of bucket " + bucket, e);
+        } finally {
+            googleStorageRepository.disconnect();
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.gkatzioura.maven.cloud.gcs.plugin.promote;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Logger;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import com.gkatzioura.maven.cloud.concurrent.BoundedExecutor;
+import com.gkatzioura.maven.cloud.gcs.StorageFactory;
+import com.gkatzioura.maven.cloud.gcs.plugin.KeyIndexPublisher;
+import com.gkatzioura.maven.cloud.gcs.plugin.PrefixKeysIterator;
+import com.gkatzioura.maven.cloud.index.KeyIndexUpdate;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+
+/**
+ * Copies every blob under a prefix to another bucket and prefix with server side rewrites,
+ * so that promoting a release never moves its bytes through the build host. The copied blobs are added to the key index
+ * of the destination repository with the index base directory.
+ */
+@Mojo(name = "gcs-promote")
+public class GCSPromoteMojo extends AbstractMojo {
+
+    @Parameter(property = "gcs-promote.sourceBucket")
+    private String sourceBucket;
+
+    @Parameter(property = "gcs-promote.sourcePrefix", defaultValue = "")
+    private String sourcePrefix = "";
+
+    @Parameter(property = "gcs-promote.destinationBucket")
+    private String destinationBucket;
+
+    @Parameter(property = "gcs-promote.destinationPrefix", defaultValue = "")
+    private String destinationPrefix = "";
+
+    @Parameter(property = "gcs-promote.keyPath")
+    private String keyPath;
+
+    @Parameter(property = "gcs-promote.concurrency", defaultValue = "8")
+    private int concurrency = 8;
+
+    @Parameter(property = "gcs-promote.indexBaseDirectory", defaultValue = "")
+    private String indexBaseDirectory = "";
+
+    private final StorageFactory storageFactory = new StorageFactory();
+
+    private static final Logger LOGGER = Logger.getLogger(GCSPromoteMojo.class.getName());
+
+    public GCSPromoteMojo() {
+    }
+
+    public GCSPromoteMojo(String sourceBucket, String sourcePrefix, String destinationBucket, String destinationPrefix) {
+        this.sourceBucket = sourceBucket;
+        this.sourcePrefix = sourcePrefix;
+        this.destinationBucket = destinationBucket;
+        this.destinationPrefix = destinationPrefix;
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        Storage storage = initializeStorage();
+
+        KeyIndexUpdate keyIndexUpdate = KeyIndexPublisher.update(destinationBucket, indexBaseDirectory);
+
+        try (BoundedExecutor boundedExecutor = new BoundedExecutor("gcs-promote", Math.max(1, concurrency), Math.max(1, concurrency) * 2)) {
+            PrefixKeysIterator prefixKeysIterator = new PrefixKeysIterator(storage, sourceBucket, sourcePrefix);
+
+            while (prefixKeysIterator.hasNext()) {
+                Blob blob = prefixKeysIterator.next();
+                boundedExecutor.submit(() -> keyIndexUpdate.added(copy(storage, blob)));
+            }
+            boundedExecutor.await();
+            KeyIndexPublisher.publish(keyIndexUpdate, destinationBucket, indexBaseDirectory, keyPath);
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException("Could not promote " + sourceBucket + "/" + sourcePrefix, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while promoting " + sourceBucket + "/" + sourcePrefix, e);
+        }
+    }
+
+    private Storage initializeStorage() throws MojoExecutionException {
+        if(keyPath==null) {
+            return storageFactory.createDefault();
+        } else {
+            try {
+                return storageFactory.createWithKeyFile(keyPath);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to set Authentication to Google Cloud");
+            }
+        }
+    }
+
+    /**
+     * @return the destination key
+     */
+    private String copy(Storage storage, Blob blob) {
+        String destinationKey = destinationPrefix + blob.getName().substring(sourcePrefix.length());
+
+        LOGGER.info("Copying " + sourceBucket + "/" + blob.getName() + " to " + destinationBucket + "/" + destinationKey);
+
+        //the copy writer keeps issuing rewrite calls until large objects are fully copied
+        storage.copy(Storage.CopyRequest.of(blob.getBlobId(), BlobId.of(destinationBucket, destinationKey))).getResult();
+        return destinationKey;
+    }
+
+}
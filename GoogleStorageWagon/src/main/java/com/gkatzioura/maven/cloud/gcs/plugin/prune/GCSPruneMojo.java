@@ -0,0 +1,134 @@
+package com.gkatzioura.maven.cloud.gcs.plugin.prune;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import com.gkatzioura.maven.cloud.gcs.StorageFactory;
+import com.gkatzioura.maven.cloud.gcs.plugin.KeyIndexPublisher;
+import com.gkatzioura.maven.cloud.gcs.plugin.PrefixKeysIterator;
+import com.gkatzioura.maven.cloud.index.KeyIndexUpdate;
+import com.gkatzioura.maven.cloud.prune.BatchDeleter;
+import com.gkatzioura.maven.cloud.prune.PruneSelector;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageBatch;
+import com.google.cloud.storage.StorageBatchResult;
+
+/**
+ * Deletes the blobs under the given prefixes which are older than a number of days, or which belong to timestamped
+ * SNAPSHOT builds beyond the newest ones kept, using storage batches. The deleted blobs are removed from the key index
+ * of the repository with the index base directory.
+ */
+@Mojo(name = "gcs-prune")
+public class GCSPruneMojo extends AbstractMojo {
+
+    /**
+     * The maximum number of calls accepted in a single batch request
+     */
+    private static final int BATCH_SIZE = 100;
+
+    @Parameter(property = "gcs-prune.bucket")
+    private String bucket;
+
+    @Parameter(property = "gcs-prune.keys")
+    private List<String> keys;
+
+    @Parameter(property = "gcs-prune.keyPath")
+    private String keyPath;
+
+    @Parameter(property = "gcs-prune.olderThanDays")
+    private Integer olderThanDays;
+
+    @Parameter(property = "gcs-prune.keepLatest")
+    private Integer keepLatest;
+
+    @Parameter(property = "gcs-prune.dryRun", defaultValue = "false")
+    private boolean dryRun;
+
+    @Parameter(property = "gcs-prune.concurrency", defaultValue = "4")
+    private int concurrency = 4;
+
+    @Parameter(property = "gcs-prune.indexBaseDirectory", defaultValue = "")
+    private String indexBaseDirectory = "";
+
+    private final StorageFactory storageFactory = new StorageFactory();
+
+    public GCSPruneMojo() {
+    }
+
+    public GCSPruneMojo(String bucket, List<String> keys, Integer olderThanDays, Integer keepLatest, boolean dryRun) {
+        this.bucket = bucket;
+        this.keys = keys;
+        this.olderThanDays = olderThanDays;
+        this.keepLatest = keepLatest;
+        this.dryRun = dryRun;
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (olderThanDays == null && keepLatest == null) {
+            throw new MojoExecutionException("Set olderThanDays or keepLatest to select the blobs to prune");
+        }
+
+        Storage storage = initializeStorage();
+        Long cutoff = olderThanDays == null ? null : System.currentTimeMillis() - TimeUnit.DAYS.toMillis(olderThanDays);
+
+        KeyIndexUpdate keyIndexUpdate = KeyIndexPublisher.update(bucket, indexBaseDirectory);
+
+        try (BatchDeleter batchDeleter = new BatchDeleter("gcs-prune", BATCH_SIZE, concurrency, dryRun, batch -> delete(storage, batch), keyIndexUpdate)) {
+            for (String prefix : keys) {
+                PruneSelector pruneSelector = new PruneSelector(cutoff, keepLatest);
+
+                PrefixKeysIterator prefixKeysIterator = new PrefixKeysIterator(storage, bucket, prefix);
+                while (prefixKeysIterator.hasNext()) {
+                    Blob blob = prefixKeysIterator.next();
+                    batchDeleter.addAll(pruneSelector.offer(blob.getName(), blob.getUpdateTime()));
+                }
+
+                batchDeleter.addAll(pruneSelector.finish());
+            }
+            batchDeleter.finish();
+            KeyIndexPublisher.publish(keyIndexUpdate, bucket, indexBaseDirectory, keyPath);
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException("Could not prune bucket " + bucket, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while pruning bucket " + bucket, e);
+        }
+    }
+
+    private Storage initializeStorage() throws MojoExecutionException {
+        if(keyPath==null) {
+            return storageFactory.createDefault();
+        } else {
+            try {
+                return storageFactory.createWithKeyFile(keyPath);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to set Authentication to Google Cloud");
+            }
+        }
+    }
+
+    private void delete(Storage storage, List<String> batch) {
+        StorageBatch storageBatch = storage.batch();
+        List<StorageBatchResult<Boolean>> results = new ArrayList<>(batch.size());
+
+        for (String key : batch) {
+            results.add(storageBatch.delete(bucket, key));
+        }
+        storageBatch.submit();
+
+        //a blob deleted in the meantime is reported as false, a failed delete is thrown
+        results.forEach(StorageBatchResult::get);
+    }
+
+}
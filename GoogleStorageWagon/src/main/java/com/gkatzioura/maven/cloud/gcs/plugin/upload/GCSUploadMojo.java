@@ -15,6 +15,8 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
 import com.gkatzioura.maven.cloud.gcs.StorageFactory;
+import com.gkatzioura.maven.cloud.gcs.plugin.KeyIndexPublisher;
+import com.gkatzioura.maven.cloud.index.KeyIndexUpdate;
 import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
@@ -34,6 +36,9 @@ public class GCSUploadMojo extends AbstractMojo {
     @Parameter(property = "gcs-upload.keyPath")
     private String keyPath;
 
+    @Parameter(property = "gcs-upload.indexBaseDirectory", defaultValue = "")
+    private String indexBaseDirectory = "";
+
     private final StorageFactory storageFactory = new StorageFactory();
 
     public GCSUploadMojo() {
@@ -59,16 +64,19 @@ public class GCSUploadMojo extends AbstractMojo {
         }
 
         Storage storage = initializeStorage();
+        KeyIndexUpdate keyIndexUpdate = KeyIndexPublisher.update(bucket, indexBaseDirectory);
 
         if(isDirectory()){
             List<String> filesToUpload = findFilesToUpload(path);
 
             for(String fileToUpload: filesToUpload) {
-                keyUpload(storage, generateKeyName(fileToUpload), new File(fileToUpload));
+                keyUpload(storage, generateKeyName(fileToUpload), new File(fileToUpload), keyIndexUpdate);
             }
         } else {
-            keyUpload(storage, keyIfNull(), new File(path));
+            keyUpload(storage, keyIfNull(), new File(path), keyIndexUpdate);
         }
+
+        KeyIndexPublisher.publish(keyIndexUpdate, bucket, indexBaseDirectory, keyPath);
     }
 
     private Storage initializeStorage() throws MojoExecutionException {
@@ -107,11 +115,12 @@ public class GCSUploadMojo extends AbstractMojo {
         return totalFiles;
     }
 
-    private void keyUpload(Storage storage, String keyName, File file) throws MojoExecutionException {
+    private void keyUpload(Storage storage, String keyName, File file, KeyIndexUpdate keyIndexUpdate) throws MojoExecutionException {
         BlobInfo blobInfo = BlobInfo.newBuilder(bucket, keyName).build();
 
         try (InputStream inputStream = new FileInputStream(file)) {
             storage.create(blobInfo,IOUtils.toByteArray(inputStream));
+            keyIndexUpdate.added(keyName);
         } catch (IOException e) {
             throw new MojoExecutionException("Failed to upload mojo",e);
         }
@@ -20,6 +20,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -28,42 +30,93 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 
+import com.gkatzioura.maven.cloud.cache.MetadataCache;
+import com.gkatzioura.maven.cloud.cache.MetadataCacheProperty;
+import com.gkatzioura.maven.cloud.cache.NegativeLookupCache;
+import com.gkatzioura.maven.cloud.cache.CachedFile;
+import com.gkatzioura.maven.cloud.cache.DownloadCache;
+import com.gkatzioura.maven.cloud.cache.ResourceMetadata;
+import com.gkatzioura.maven.cloud.compress.CompressibleContentTypeResolver;
+import com.gkatzioura.maven.cloud.compress.CompressionProperty;
+import com.gkatzioura.maven.cloud.compress.GzipContentEncoding;
 import com.gkatzioura.maven.cloud.gcs.StorageFactory;
+import com.gkatzioura.maven.cloud.index.KeyIndex;
+import com.gkatzioura.maven.cloud.index.PublishedKeyIndex;
 import com.gkatzioura.maven.cloud.resolver.KeyResolver;
+import com.gkatzioura.maven.cloud.retry.AdaptiveRateLimiter;
+import com.gkatzioura.maven.cloud.retry.RetryPolicy;
+import com.gkatzioura.maven.cloud.retry.RetryProperty;
+import com.gkatzioura.maven.cloud.transfer.DigestingInputStream;
+import com.gkatzioura.maven.cloud.transfer.MappedUploadProperty;
+import com.gkatzioura.maven.cloud.transfer.ResumableDownload;
+import com.gkatzioura.maven.cloud.transfer.ResumableDownloadProperty;
+import com.gkatzioura.maven.cloud.transfer.TransferDigests;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+import com.gkatzioura.maven.cloud.transfer.UploadStreamFactory;
 import com.gkatzioura.maven.cloud.wagon.PublicReadProperty;
 import com.google.api.gax.paging.Page;
+import com.google.cloud.ReadChannel;
 import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.Acl;
 import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
 
-public class GoogleStorageRepository {
+public class GoogleStorageRepository implements PublishedKeyIndex {
+
+    private static final int UPLOAD_BUFFER_SIZE = 64 * 1024;
 
     private final String bucket;
     private final String baseDirectory;
     private final KeyResolver keyResolver = new KeyResolver();
-    private final StorageFactory storageFactory = new StorageFactory();
+    private final StorageFactory storageFactory = StorageFactory.withoutRetries();
     private final Optional<String> keyPath;
     private final PublicReadProperty publicReadProperty;
+    private final MetadataCacheProperty metadataCacheProperty;
+    private final MetadataCache metadataCache = MetadataCache.getInstance();
+    private final DownloadCache downloadCache = DownloadCache.create();
+    private final NegativeLookupCache negativeLookupCache = NegativeLookupCache.getInstance();
+    private final ResumableDownloadProperty resumableDownloadProperty = ResumableDownloadProperty.empty();
+    private final MappedUploadProperty mappedUploadProperty = MappedUploadProperty.empty();
+    private final UploadStreamFactory uploadStreamFactory = new UploadStreamFactory(mappedUploadProperty);
+    private final CompressionProperty compressionProperty = CompressionProperty.empty();
+    private final RetryPolicy retryPolicy;
 
     private Storage storage;
 
     private static final Logger LOGGER = Logger.getLogger(GoogleStorageRepository.class.getName());
 
     public GoogleStorageRepository(Optional<String> keyPath,String bucket, String directory, PublicReadProperty publicReadProperty) {
+        this(keyPath, bucket, directory, publicReadProperty, new MetadataCacheProperty(null));
+    }
+
+    public GoogleStorageRepository(Optional<String> keyPath,String bucket, String directory, PublicReadProperty publicReadProperty, MetadataCacheProperty metadataCacheProperty) {
         this.keyPath = keyPath;
         this.bucket = bucket;
         this.baseDirectory = directory;
         this.publicReadProperty = publicReadProperty;
+        this.metadataCacheProperty = metadataCacheProperty;
+        this.retryPolicy = new RetryPolicy(RetryProperty.empty(), new GoogleStorageRetryClassifier(), AdaptiveRateLimiter.forRepository(repositoryId()));
     }
 
     public void connect() throws AuthenticationException {
         try {
-            storage = createStorage();
-            storage.list(bucket, Storage.BlobListOption.pageSize(1));
+            connect(createStorage());
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE,"Could not establish connection with google cloud",e);
+            throw new AuthenticationException("Please configure you google cloud account by logging using gcloud and specify a default project");
+        }
+    }
+
+    public void connect(Storage storage) throws AuthenticationException {
+        try {
+            this.storage = storage;
+            retryPolicy.execute("Listing of "+bucket, () -> storage.list(bucket, Storage.BlobListOption.pageSize(1)));
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE,"Could not establish connection with google cloud",e);
             throw new AuthenticationException("Please configure you google cloud account by logging using gcloud and specify a default project");
@@ -78,19 +131,81 @@ public class GoogleStorageRepository {
         }
     }
 
-    public void copy(String resourceName, File destination) throws ResourceDoesNotExistException {
+    public void copy(String resourceName, File destination) throws ResourceDoesNotExistException, TransferFailedException {
+        copy(resourceName, destination, null);
+    }
+
+    /**
+     * @param transferDigests fed with the downloaded bytes and checked against the MD5 and CRC32C of the blob, may be null
+     */
+    public void copy(String resourceName, File destination, TransferDigests transferDigests) throws ResourceDoesNotExistException, TransferFailedException {
 
         final String key = resolveKey(resourceName);
 
         LOGGER.log(Level.FINER,String.format("Downloading key %s from bucket %s into %s",key,bucket ,destination.getAbsolutePath()));
 
-        Blob blob = storage.get(bucket, resolveKey(resourceName));
+        if(negativeLookupCache.isMissing(repositoryId(), key)) {
+            LOGGER.log(Level.FINER,String.format("Blob %s was reported missing recently",key));
+            throw new ResourceDoesNotExistException(key);
+        }
+
+        Blob blob = retryPolicy.execute("Download of "+key, () -> storage.get(bucket, key));
 
         if(blob==null) {
             LOGGER.log(Level.FINER,String.format("Blob %s does not exist",key));
+            negativeLookupCache.putMissing(repositoryId(), key);
             throw new ResourceDoesNotExistException(key);
         }
-        blob.downloadTo(destination.toPath());
+        cacheMetadata(key, blob);
+
+        //the metadata request above already tells whether the cached file is still current
+        String generation = String.valueOf(blob.getGeneration());
+        CachedFile cachedFile = downloadCache.get(repositoryId(), key);
+        if(cachedFile != null && cachedFile.getValidator().equals(generation)) {
+            LOGGER.log(Level.FINER,String.format("Blob %s not modified, using the cached file",key));
+            try {
+                cachedFile.writeTo(destination, null, transferDigests);
+                return;
+            } catch (IOException e) {
+                //evicted meanwhile, download it instead
+                LOGGER.log(Level.WARNING,"Could not write cached file",e);
+            }
+        }
+
+        boolean gzip = GzipContentEncoding.isGzip(blob.getContentEncoding());
+
+        try {
+            InputStream inputStream = new ReadChannelInputStream(blob.reader(Blob.BlobSourceOption.generationMatch()));
+            if(gzip) {
+                new ResumableDownload(resumableDownloadProperty).download(destination, -1, GzipContentEncoding.decompress(inputStream),
+                        ResumableDownload.NOT_RESUMABLE, null, transferDigests);
+            } else {
+                new ResumableDownload(resumableDownloadProperty).download(destination, blob.getSize(), inputStream,
+                        offset -> openRange(blob, offset), null, transferDigests);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE,"Could not download blob",e);
+            throw new TransferFailedException("Could not download resource "+key, e);
+        }
+
+        //the checksums of a gzip encoded blob are those of the compressed bytes
+        if(transferDigests != null && !gzip
+                && ((blob.getMd5() != null && !blob.getMd5().equals(transferDigests.getMd5Base64()))
+                || (blob.getCrc32c() != null && !blob.getCrc32c().equals(transferDigests.getCrc32cBase64())))) {
+            destination.delete();
+            throw new TransferFailedException("Checksum mismatch for "+key);
+        }
+
+        downloadCache.put(repositoryId(), key, destination, generation, blob.getUpdateTime(), transferDigests);
+    }
+
+    /**
+     * Reads the blob again from the offset, as long as its generation is the one of the interrupted download
+     */
+    private InputStream openRange(Blob blob, long offset) throws IOException {
+        ReadChannel readChannel = blob.reader(Blob.BlobSourceOption.generationMatch());
+        readChannel.seek(offset);
+        return new ReadChannelInputStream(readChannel);
     }
 
     public boolean newResourceAvailable(String resourceName,long timeStamp) {
@@ -99,31 +214,86 @@ public class GoogleStorageRepository {
 
         LOGGER.log(Level.FINER,String.format("Checking if new key %s exists",key));
 
-        Blob blob = storage.get(bucket, key);
+        ResourceMetadata metadata = fetchMetadata(key);
 
-        if(blob==null) {
+        if(!metadata.exists()) {
             return false;
         }
 
-        long updated = blob.getUpdateTime();
+        long updated = metadata.getLastModified();
         return updated>timeStamp;
     }
 
+    /**
+     * Uploads the file, reading it again from the start if the upload is retried
+     *
+     * @param transferDigests fed with the uploaded bytes, may be null
+     */
+    public void put(File file, String destination, TransferProgress transferProgress, TransferDigests transferDigests) throws IOException {
+        String key = resolveKey(destination);
+
+        if(compressionProperty.isCompressed(key)) {
+            putCompressed(file, key, transferProgress, transferDigests);
+            return;
+        }
+
+        retryPolicy.execute("Upload of "+key, () -> {
+            if(transferDigests != null) {
+                transferDigests.reset();
+            }
+
+            InputStream fileInputStream = uploadStreamFactory.create(file, transferProgress);
+            try(InputStream inputStream = transferDigests == null ? fileInputStream : new DigestingInputStream(fileInputStream, transferDigests)) {
+                put(inputStream, destination);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Uploads the gzipped file with a gzip Content-Encoding, the digests are those of the uncompressed file
+     */
+    private void putCompressed(File file, String key, TransferProgress transferProgress, TransferDigests transferDigests) throws IOException {
+        File compressed = GzipContentEncoding.compress(file, transferDigests);
+
+        try {
+            BlobInfo.Builder builder = BlobInfo.newBuilder(bucket, key)
+                    .setContentEncoding(GzipContentEncoding.GZIP)
+                    .setContentType(CompressibleContentTypeResolver.getContentType(key));
+
+            retryPolicy.execute("Upload of "+key, () -> {
+                try(InputStream inputStream = uploadStreamFactory.create(compressed, transferProgress)) {
+                    upload(inputStream, key, builder);
+                }
+                return null;
+            });
+        } finally {
+            compressed.delete();
+        }
+    }
+
     public void put(InputStream inputStream,String destination) throws IOException {
         String key = resolveKey(destination);
+        upload(inputStream, key, BlobInfo.newBuilder(bucket,key));
+    }
+
+    private void upload(InputStream inputStream, String key, BlobInfo.Builder builder) throws IOException {
 
         LOGGER.log(Level.FINER,String.format("Uploading key %s ",key));
 
-        BlobInfo blobInfo = applyPublicRead(BlobInfo.newBuilder(bucket,key)).build();
+        BlobInfo blobInfo = applyPublicRead(builder).build();
 
         try(WriteChannel writeChannel = storage.writer(blobInfo)) {
 
-            byte[] buffer = new byte[1024];
+            byte[] buffer = new byte[UPLOAD_BUFFER_SIZE];
             int read;
 
             while ((read = inputStream.read(buffer, 0, buffer.length)) != -1) {
                 writeChannel.write(ByteBuffer.wrap(buffer,0, read));
             }
+        } finally {
+            metadataCache.invalidate(repositoryId(), key);
+            negativeLookupCache.invalidate(repositoryId(), key);
         }
     }
 
@@ -138,32 +308,133 @@ public class GoogleStorageRepository {
         }
     }
 
+    /**
+     * @return the immediate children of the path, directories end with a "/"
+     */
     public List<String> list(String path) {
 
         String key = resolveKey(path);
+        final String prefix = key.isEmpty() || key.endsWith("/") ? key : key + "/";
 
         LOGGER.log(Level.FINER,String.format("Listing files for %s",path));
 
-        Page<Blob> page = storage.list(bucket, Storage.BlobListOption.prefix(key));
-        return totalBlobs(page);
+        //the pages are fetched while iterating, so the whole listing is retried
+        return retryPolicy.execute("Listing of "+prefix, () -> {
+            List<String> children = new ArrayList<>();
+            Page<Blob> page = storage.list(bucket, Storage.BlobListOption.prefix(prefix), Storage.BlobListOption.currentDirectory());
+            for(Blob blob : page.iterateAll()) {
+                String name = blob.getName().substring(prefix.length());
+                //the directory marker of the path itself is not a child
+                if(!name.isEmpty()) {
+                    children.add(name);
+                }
+            }
+            return children;
+        });
+    }
+
+    @Override
+    public String downloadKeyIndex(File destination, String validator) throws IOException {
+        String key = resolveKey(KeyIndex.RESOURCE_NAME);
+
+        try {
+            Blob blob = retryPolicy.execute("Metadata of the key index", () -> storage.get(bucket, key));
+            if(blob == null) {
+                return null;
+            }
+
+            String generation = String.valueOf(blob.getGeneration());
+            if(generation.equals(validator)) {
+                return validator;
+            }
+
+            retryPolicy.execute("Download of the key index", () -> {
+                try(InputStream inputStream = new ReadChannelInputStream(blob.reader(Blob.BlobSourceOption.generationMatch()))) {
+                    Files.copy(inputStream, destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                return null;
+            });
+            return generation;
+        } catch (StorageException e) {
+            throw new IOException("Could not download the key index of "+repositoryId(), e);
+        }
     }
 
-    private List<String> totalBlobs(Page<Blob> page) {
+    @Override
+    public String uploadKeyIndex(File index, String validator) throws IOException {
+        String key = resolveKey(KeyIndex.RESOURCE_NAME);
+
+        BlobId blobId = validator == null ? BlobId.of(bucket, key) : BlobId.of(bucket, key, Long.valueOf(validator));
+        Storage.BlobTargetOption precondition = validator == null ? Storage.BlobTargetOption.doesNotExist() : Storage.BlobTargetOption.generationMatch();
 
-        List<String> blobs = new ArrayList<>();
-        page.getValues().forEach(bv->blobs.add(bv.getName()));
-        if(page.hasNextPage()) {
-            Page<Blob> newPage = storage.list(bucket,Storage.BlobListOption.pageToken(page.getNextPageToken()));
-            blobs.addAll(totalBlobs(newPage));
+        try {
+            byte[] content = Files.readAllBytes(index.toPath());
+            Blob blob = retryPolicy.execute("Upload of the key index", () -> storage.create(applyPublicRead(BlobInfo.newBuilder(blobId)).build(), content, precondition));
+            return String.valueOf(blob.getGeneration());
+        } catch (StorageException e) {
+            if(e.getCode() == 412) {
+                return null;
+            }
+            throw new IOException("Could not upload the key index of "+repositoryId(), e);
         }
+    }
 
-        return blobs;
+    @Override
+    public List<String> listResourceNames() throws IOException {
+        String baseKey = resolveKey("");
+        String prefix = baseKey.isEmpty() ? baseKey : baseKey + "/";
+
+        try {
+            return retryPolicy.execute("Listing of "+prefix, () -> {
+                List<String> resourceNames = new ArrayList<>();
+                for(Blob blob : storage.list(bucket, Storage.BlobListOption.prefix(prefix)).iterateAll()) {
+                    String resourceName = blob.getName().substring(prefix.length());
+                    if(!resourceName.isEmpty() && !resourceName.endsWith("/")) {
+                        resourceNames.add(resourceName);
+                    }
+                }
+                return resourceNames;
+            });
+        } catch (StorageException e) {
+            throw new IOException("Could not list the resources of "+repositoryId(), e);
+        }
     }
 
     public boolean exists(String resourceName) {
         final String key = resolveKey(resourceName);
-        Blob blob = storage.get(bucket, key);
-        return blob.exists();
+        return fetchMetadata(key).exists();
+    }
+
+    /**
+     * Returns the metadata of a key from the metadata and negative lookup caches, or from the storage which is then cached
+     */
+    private ResourceMetadata fetchMetadata(String key) {
+        if(negativeLookupCache.isMissing(repositoryId(), key)) {
+            return ResourceMetadata.missing();
+        }
+
+        ResourceMetadata metadata = metadataCache.get(repositoryId(), key);
+        if(metadata != null) {
+            return metadata;
+        }
+
+        Blob blob = retryPolicy.execute("Metadata of "+key, () -> storage.get(bucket, key));
+        if(blob == null) {
+            negativeLookupCache.putMissing(repositoryId(), key);
+            return ResourceMetadata.missing();
+        }
+
+        return cacheMetadata(key, blob);
+    }
+
+    private ResourceMetadata cacheMetadata(String key, Blob blob) {
+        ResourceMetadata metadata = ResourceMetadata.of(blob.getUpdateTime(), blob.getSize());
+        metadataCache.put(repositoryId(), key, metadata, metadataCacheProperty.get());
+        return metadata;
+    }
+
+    private String repositoryId() {
+        return "gs://"+bucket;
     }
 
     public void disconnect() {
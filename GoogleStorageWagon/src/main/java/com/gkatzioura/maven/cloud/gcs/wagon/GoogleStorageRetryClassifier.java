@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.gcs.wagon;
+
+import com.gkatzioura.maven.cloud.retry.RetryClassifier;
+import com.google.cloud.storage.StorageException;
+
+/**
+ * 429 and 503 are throttles, the other errors the client considers retryable are transient.
+ */
+class GoogleStorageRetryClassifier implements RetryClassifier {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVICE_UNAVAILABLE = 503;
+
+    @Override
+    public Outcome classify(Exception exception) {
+        if (!(exception instanceof StorageException)) {
+            return Outcome.FATAL;
+        }
+
+        StorageException storageException = (StorageException) exception;
+        if (storageException.getCode() == TOO_MANY_REQUESTS || storageException.getCode() == SERVICE_UNAVAILABLE) {
+            return Outcome.THROTTLED;
+        }
+        return storageException.isRetryable() ? Outcome.TRANSIENT : Outcome.FATAL;
+    }
+
+}
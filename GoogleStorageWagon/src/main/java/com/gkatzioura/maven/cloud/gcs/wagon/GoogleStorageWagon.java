@@ -19,7 +19,6 @@ package com.gkatzioura.maven.cloud.gcs.wagon;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 import java.util.logging.Level;
@@ -36,8 +35,9 @@ import org.apache.maven.wagon.proxy.ProxyInfoProvider;
 import org.apache.maven.wagon.repository.Repository;
 import org.apache.maven.wagon.resource.Resource;
 
+import com.gkatzioura.maven.cloud.cache.MetadataCacheProperty;
+import com.gkatzioura.maven.cloud.transfer.TransferDigests;
 import com.gkatzioura.maven.cloud.transfer.TransferProgress;
-import com.gkatzioura.maven.cloud.transfer.TransferProgressFileInputStream;
 import com.gkatzioura.maven.cloud.transfer.TransferProgressImpl;
 import com.gkatzioura.maven.cloud.wagon.AbstractStorageWagon;
 import com.gkatzioura.maven.cloud.wagon.PublicReadProperty;
@@ -58,7 +58,10 @@ public class GoogleStorageWagon extends AbstractStorageWagon {
         transferListenerContainer.fireTransferStarted(resource, TransferEvent.REQUEST_GET, destination);
 
         try {
-            googleStorageRepository.copy(resourceName, destination);
+            TransferDigests transferDigests = new TransferDigests();
+            getResource(resourceName, destination, null, transferDigests,
+                    (name, staging, progress, digests) -> googleStorageRepository.copy(name, staging, digests));
+            recordTransferDigests(resourceName, transferDigests, destination);
             transferListenerContainer.fireTransferCompleted(resource,TransferEvent.REQUEST_GET);
         } catch (Exception e) {
             transferListenerContainer.fireTransferError(resource,TransferEvent.REQUEST_GET,e);
@@ -68,6 +71,7 @@ public class GoogleStorageWagon extends AbstractStorageWagon {
 
     @Override
     public boolean getIfNewer(String s, File file, long l) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        throwIfNotIndexed(s);
         if(googleStorageRepository.newResourceAvailable(s, l)) {
             get(s,file);
             return true;
@@ -87,8 +91,12 @@ public class GoogleStorageWagon extends AbstractStorageWagon {
         transferListenerContainer.fireTransferStarted(resource,TransferEvent.REQUEST_PUT, file);
         final TransferProgress transferProgress = new TransferProgressImpl(resource, TransferEvent.REQUEST_PUT, transferListenerContainer);
 
-        try(InputStream inputStream = new TransferProgressFileInputStream(file, transferProgress)) {
-            googleStorageRepository.put(inputStream, resourceName);
+        final TransferDigests transferDigests = new TransferDigests();
+
+        try {
+            googleStorageRepository.put(file, resourceName, transferProgress, transferDigests);
+            recordTransferDigests(resourceName, transferDigests, file);
+            recordIndexedPut(resourceName);
             transferListenerContainer.fireTransferCompleted(resource,TransferEvent.REQUEST_PUT);
         } catch (FileNotFoundException e) {
             transferListenerContainer.fireTransferError(resource,TransferEvent.REQUEST_PUT,e);
@@ -111,12 +119,20 @@ public class GoogleStorageWagon extends AbstractStorageWagon {
 
     @Override
     public boolean resourceExists(String resourceName) throws TransferFailedException, AuthorizationException {
-
+        Boolean indexed = indexedExists(resourceName);
+        if (indexed != null) {
+            return indexed;
+        }
         return googleStorageRepository.exists(resourceName);
     }
 
     @Override
     public List<String> getFileList(String resourceName) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        List<String> indexed = indexedFileList(resourceName);
+        if (indexed != null) {
+            return indexed;
+        }
+
         try {
             return googleStorageRepository.list(resourceName);
         } catch (Exception e) {
@@ -126,7 +142,7 @@ public class GoogleStorageWagon extends AbstractStorageWagon {
     }
 
     @Override
-    public void connect(Repository repository, AuthenticationInfo authenticationInfo, ProxyInfoProvider proxyInfoProvider) throws AuthenticationException {
+    public void connect(Repository repository, AuthenticationInfo authenticationInfo, ProxyInfoProvider proxyInfoProvider) throws ConnectionException, AuthenticationException {
         this.repository = repository;
         this.sessionListenerContainer.fireSessionOpening();
         try {
@@ -135,11 +151,12 @@ public class GoogleStorageWagon extends AbstractStorageWagon {
 
             LOGGER.log(Level.FINER,String.format("Opening connection for bucket %s and directory %s",bucket,directory));
 
-            googleStorageRepository = new GoogleStorageRepository(keyPath ,bucket, directory, new PublicReadProperty(publicRepository));
+            googleStorageRepository = new GoogleStorageRepository(keyPath ,bucket, directory, new PublicReadProperty(publicRepository), new MetadataCacheProperty(getMetadataCacheTtl()));
             googleStorageRepository.connect();
+            openKeyIndex(googleStorageRepository);
             sessionListenerContainer.fireSessionLoggedIn();
             sessionListenerContainer.fireSessionOpened();
-        } catch (AuthenticationException e) {
+        } catch (AuthenticationException |ConnectionException e) {
             this.sessionListenerContainer.fireSessionConnectionRefused();
             throw e;
         }
@@ -148,7 +165,12 @@ public class GoogleStorageWagon extends AbstractStorageWagon {
     @Override
     public void disconnect() throws ConnectionException {
         sessionListenerContainer.fireSessionDisconnecting();
-        googleStorageRepository.disconnect();
+        try {
+            publishKeyIndex();
+        } finally {
+            googleStorageRepository.disconnect();
+            clearTransferDigests();
+        }
         sessionListenerContainer.fireSessionLoggedOff();
         sessionListenerContainer.fireSessionDisconnected();
     }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.gcs.wagon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.StorageException;
+
+/**
+ * Reads a blob channel as a stream, reporting failures of the underlying requests as IOExceptions
+ * so that interrupted downloads can be resumed.
+ */
+class ReadChannelInputStream extends InputStream {
+
+    private final ReadChannel readChannel;
+
+    ReadChannelInputStream(ReadChannel readChannel) {
+        this.readChannel = readChannel;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        try {
+            int read = readChannel.read(ByteBuffer.wrap(b, off, len));
+            while (read == 0 && len > 0) {
+                read = readChannel.read(ByteBuffer.wrap(b, off, len));
+            }
+            return read;
+        } catch (StorageException e) {
+            throw new IOException("Could not read blob", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        readChannel.close();
+    }
+
+}
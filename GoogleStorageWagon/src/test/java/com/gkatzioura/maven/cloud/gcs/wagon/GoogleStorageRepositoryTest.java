@@ -0,0 +1,61 @@
+package com.gkatzioura.maven.cloud.gcs.wagon;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.maven.wagon.authentication.AuthenticationException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.gkatzioura.maven.cloud.index.KeyIndex;
+import com.gkatzioura.maven.cloud.wagon.PublicReadProperty;
+import com.google.api.gax.paging.Page;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.Storage;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GoogleStorageRepositoryTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testListingHasTheShapeOfTheKeyIndex() throws AuthenticationException, IOException {
+        Storage storage = mock(Storage.class);
+        Page<Blob> page = mock(Page.class);
+        List<Blob> blobs = Arrays.asList(blob("repo/com/example/"), blob("repo/com/example/1.0/"), blob("repo/com/example/maven-metadata.xml"));
+        when(page.iterateAll()).thenReturn(blobs);
+        when(storage.list(eq("bucket"), eq(Storage.BlobListOption.prefix("repo/com/example/")), eq(Storage.BlobListOption.currentDirectory())))
+                .thenReturn(page);
+
+        GoogleStorageRepository googleStorageRepository = new GoogleStorageRepository(Optional.empty(), "bucket", "repo", new PublicReadProperty(false));
+        googleStorageRepository.connect(storage);
+
+        List<String> children = googleStorageRepository.list("com/example");
+        Assert.assertEquals(Arrays.asList("1.0/", "maven-metadata.xml"), children);
+
+        File index = temporaryFolder.newFile();
+        KeyIndex.write(index, 1, Arrays.asList("com/example/1.0/example-1.0.jar", "com/example/maven-metadata.xml"));
+        List<String> indexed = new ArrayList<>(KeyIndex.map(index).listChildren("com/example"));
+        Collections.sort(indexed);
+        Assert.assertEquals(indexed, children);
+    }
+
+    private Blob blob(String name) {
+        Blob blob = mock(Blob.class);
+        when(blob.getName()).thenReturn(name);
+        return blob;
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.s3;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+
+/**
+ * HTTP connection pool and socket settings of the S3 client. Values neither set in the constructor nor through their
+ * system property keep the SDK defaults. The client does not retry, requests are retried by the RetryPolicy of the repository.
+ */
+public class ClientConfigurationProperty {
+
+    private static final String MAX_CONNECTIONS_PROP = "S3_MAX_CONNECTIONS";
+    private static final String TCP_KEEP_ALIVE_PROP = "S3_TCP_KEEP_ALIVE";
+    private static final String SOCKET_SEND_BUFFER_SIZE_PROP = "S3_SOCKET_SEND_BUFFER_SIZE";
+    private static final String SOCKET_RECEIVE_BUFFER_SIZE_PROP = "S3_SOCKET_RECEIVE_BUFFER_SIZE";
+    private static final String CONNECTION_TTL_PROP = "S3_CONNECTION_TTL";
+    private static final String CONNECTION_MAX_IDLE_PROP = "S3_CONNECTION_MAX_IDLE";
+    private static final String USE_REAPER_PROP = "S3_USE_REAPER";
+
+    private Integer maxConnections;
+    private Boolean tcpKeepAlive;
+    private Integer socketSendBufferSize;
+    private Integer socketReceiveBufferSize;
+    private Long connectionTtl;
+    private Long connectionMaxIdle;
+    private Boolean useReaper;
+    private Integer connectionTimeout;
+    private Integer socketTimeout;
+
+    /**
+     *
+     * @param maxConnections size of the connection pool, may be null
+     * @param tcpKeepAlive whether TCP keep-alive is enabled on pooled connections, may be null
+     * @param socketSendBufferSize socket send buffer size in bytes, may be null
+     * @param socketReceiveBufferSize socket receive buffer size in bytes, may be null
+     * @param connectionTtl milliseconds after which a pooled connection is no longer reused, may be null
+     * @param connectionMaxIdle milliseconds a pooled connection may stay idle before it is closed, may be null
+     * @param useReaper whether idle connections are closed in the background, may be null
+     * @param connectionTimeout connect timeout in milliseconds, not applied if null or 0
+     * @param socketTimeout read timeout in milliseconds, not applied if null or 0
+     */
+    public ClientConfigurationProperty(Integer maxConnections, Boolean tcpKeepAlive, Integer socketSendBufferSize, Integer socketReceiveBufferSize,
+                                       Long connectionTtl, Long connectionMaxIdle, Boolean useReaper, Integer connectionTimeout, Integer socketTimeout) {
+        this.maxConnections = maxConnections;
+        this.tcpKeepAlive = tcpKeepAlive;
+        this.socketSendBufferSize = socketSendBufferSize;
+        this.socketReceiveBufferSize = socketReceiveBufferSize;
+        this.connectionTtl = connectionTtl;
+        this.connectionMaxIdle = connectionMaxIdle;
+        this.useReaper = useReaper;
+        this.connectionTimeout = connectionTimeout;
+        this.socketTimeout = socketTimeout;
+    }
+
+    public static final ClientConfigurationProperty empty() {
+        return new ClientConfigurationProperty(null, null, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * @return a client configuration with the values set in the constructor or through the S3_MAX_CONNECTIONS,
+     * S3_TCP_KEEP_ALIVE, S3_SOCKET_SEND_BUFFER_SIZE, S3_SOCKET_RECEIVE_BUFFER_SIZE, S3_CONNECTION_TTL,
+     * S3_CONNECTION_MAX_IDLE and S3_USE_REAPER system properties applied
+     * */
+    public ClientConfiguration get() {
+        ClientConfiguration clientConfiguration = new ClientConfiguration();
+        clientConfiguration.setRetryPolicy(PredefinedRetryPolicies.NO_RETRY_POLICY);
+
+        Long resolvedMaxConnections = resolve(maxConnections, MAX_CONNECTIONS_PROP);
+        if (resolvedMaxConnections != null) {
+            clientConfiguration.setMaxConnections(resolvedMaxConnections.intValue());
+        }
+
+        Boolean resolvedTcpKeepAlive = resolve(tcpKeepAlive, TCP_KEEP_ALIVE_PROP);
+        if (resolvedTcpKeepAlive != null) {
+            clientConfiguration.setUseTcpKeepAlive(resolvedTcpKeepAlive);
+        }
+
+        Long resolvedSendBufferSize = resolve(socketSendBufferSize, SOCKET_SEND_BUFFER_SIZE_PROP);
+        Long resolvedReceiveBufferSize = resolve(socketReceiveBufferSize, SOCKET_RECEIVE_BUFFER_SIZE_PROP);
+        if (resolvedSendBufferSize != null || resolvedReceiveBufferSize != null) {
+            int[] defaultHints = clientConfiguration.getSocketBufferSizeHints();
+            clientConfiguration.setSocketBufferSizeHints(
+                    resolvedSendBufferSize == null ? defaultHints[0] : resolvedSendBufferSize.intValue(),
+                    resolvedReceiveBufferSize == null ? defaultHints[1] : resolvedReceiveBufferSize.intValue());
+        }
+
+        Long resolvedConnectionTtl = resolve(connectionTtl, CONNECTION_TTL_PROP);
+        if (resolvedConnectionTtl != null) {
+            clientConfiguration.setConnectionTTL(resolvedConnectionTtl);
+        }
+
+        Long resolvedConnectionMaxIdle = resolve(connectionMaxIdle, CONNECTION_MAX_IDLE_PROP);
+        if (resolvedConnectionMaxIdle != null) {
+            clientConfiguration.setConnectionMaxIdleMillis(resolvedConnectionMaxIdle);
+        }
+
+        Boolean resolvedUseReaper = resolve(useReaper, USE_REAPER_PROP);
+        if (resolvedUseReaper != null) {
+            clientConfiguration.setUseReaper(resolvedUseReaper);
+        }
+
+        if (connectionTimeout != null && connectionTimeout > 0) {
+            clientConfiguration.setConnectionTimeout(connectionTimeout);
+        }
+
+        if (socketTimeout != null && socketTimeout > 0) {
+            clientConfiguration.setSocketTimeout(socketTimeout);
+        }
+
+        return clientConfiguration;
+    }
+
+    private List<Object> resolvedValues() {
+        return Arrays.asList(
+                resolve(maxConnections, MAX_CONNECTIONS_PROP),
+                resolve(tcpKeepAlive, TCP_KEEP_ALIVE_PROP),
+                resolve(socketSendBufferSize, SOCKET_SEND_BUFFER_SIZE_PROP),
+                resolve(socketReceiveBufferSize, SOCKET_RECEIVE_BUFFER_SIZE_PROP),
+                resolve(connectionTtl, CONNECTION_TTL_PROP),
+                resolve(connectionMaxIdle, CONNECTION_MAX_IDLE_PROP),
+                resolve(useReaper, USE_REAPER_PROP),
+                connectionTimeout,
+                socketTimeout);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return resolvedValues().equals(((ClientConfigurationProperty) o).resolvedValues());
+    }
+
+    @Override
+    public int hashCode() {
+        return resolvedValues().hashCode();
+    }
+
+    private Long resolve(Number value, String property) {
+        if (value != null) {
+            return value.longValue();
+        }
+        String propertyValue = System.getProperty(property);
+        if (propertyValue != null) {
+            return Long.valueOf(propertyValue);
+        }
+        return null;
+    }
+
+    private Boolean resolve(Boolean value, String property) {
+        if (value != null) {
+            return value;
+        }
+        String propertyValue = System.getProperty(property);
+        if (propertyValue != null) {
+            return Boolean.valueOf(propertyValue);
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.s3;
+
+public class MultipartUploadProperty {
+
+    private static final String THRESHOLD_PROP = "S3_MULTIPART_THRESHOLD";
+    private static final String PART_SIZE_PROP = "S3_MULTIPART_PART_SIZE";
+    private static final String CONCURRENCY_PROP = "S3_MULTIPART_CONCURRENCY";
+
+    public static final long DEFAULT_THRESHOLD = 32L * 1024 * 1024;
+    public static final long DEFAULT_PART_SIZE = 16L * 1024 * 1024;
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    /**
+     * S3 rejects parts smaller than 5 MB, apart from the last one
+     */
+    public static final long MINIMUM_PART_SIZE = 5L * 1024 * 1024;
+
+    private Long threshold;
+    private Long partSize;
+    private Integer concurrency;
+
+    /**
+     *
+     * @param threshold file size in bytes from which on a multipart upload is used, may be null
+     * @param partSize size in bytes of each uploaded part, may be null
+     * @param concurrency number of parts uploaded in parallel, may be null
+     */
+    public MultipartUploadProperty(Long threshold, Long partSize, Integer concurrency) {
+        this.threshold = threshold;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+    }
+
+    public static final MultipartUploadProperty empty() {
+        return new MultipartUploadProperty(null, null, null);
+    }
+
+    /**
+     * @return the threshold set in the constructor or set using the S3_MULTIPART_THRESHOLD system property or the default
+     * */
+    public long getThreshold() {
+        return resolve(threshold, THRESHOLD_PROP, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @return the part size set in the constructor or set using the S3_MULTIPART_PART_SIZE system property or the default,
+     * never less than the minimum part size accepted by S3
+     * */
+    public long getPartSize() {
+        return Math.max(MINIMUM_PART_SIZE, resolve(partSize, PART_SIZE_PROP, DEFAULT_PART_SIZE));
+    }
+
+    /**
+     * @return the concurrency set in the constructor or set using the S3_MULTIPART_CONCURRENCY system property or the default
+     * */
+    public int getConcurrency() {
+        return (int) Math.max(1, resolve(concurrency == null ? null : concurrency.longValue(), CONCURRENCY_PROP, DEFAULT_CONCURRENCY));
+    }
+
+    public boolean isMultipart(long contentLength) {
+        return contentLength >= getThreshold();
+    }
+
+    private long resolve(Long value, String property, long defaultValue) {
+        if (value != null) {
+            return value;
+        }
+        String propertyValue = System.getProperty(property);
+        if (propertyValue != null) {
+            return Long.valueOf(propertyValue);
+        }
+        return defaultValue;
+    }
+
+}
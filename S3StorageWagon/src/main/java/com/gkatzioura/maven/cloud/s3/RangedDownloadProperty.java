@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.s3;
+
+public class RangedDownloadProperty {
+
+    private static final String THRESHOLD_PROP = "S3_RANGED_DOWNLOAD_THRESHOLD";
+    private static final String RANGE_SIZE_PROP = "S3_RANGED_DOWNLOAD_RANGE_SIZE";
+    private static final String CONCURRENCY_PROP = "S3_RANGED_DOWNLOAD_CONCURRENCY";
+
+    public static final long DEFAULT_THRESHOLD = 32L * 1024 * 1024;
+    public static final long DEFAULT_RANGE_SIZE = 16L * 1024 * 1024;
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    private static final long MINIMUM_RANGE_SIZE = 1024L * 1024;
+
+    private Long threshold;
+    private Long rangeSize;
+    private Integer concurrency;
+
+    /**
+     *
+     * @param threshold object size in bytes from which on the object is fetched in parallel ranges, may be null
+     * @param rangeSize size in bytes of each fetched range, may be null
+     * @param concurrency number of ranges fetched in parallel, may be null
+     */
+    public RangedDownloadProperty(Long threshold, Long rangeSize, Integer concurrency) {
+        this.threshold = threshold;
+        this.rangeSize = rangeSize;
+        this.concurrency = concurrency;
+    }
+
+    public static final RangedDownloadProperty empty() {
+        return new RangedDownloadProperty(null, null, null);
+    }
+
+    /**
+     * @return the threshold set in the constructor or set using the S3_RANGED_DOWNLOAD_THRESHOLD system property or the default
+     * */
+    public long getThreshold() {
+        return resolve(threshold, THRESHOLD_PROP, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @return the range size set in the constructor or set using the S3_RANGED_DOWNLOAD_RANGE_SIZE system property or the default
+     * */
+    public long getRangeSize() {
+        return Math.max(MINIMUM_RANGE_SIZE, resolve(rangeSize, RANGE_SIZE_PROP, DEFAULT_RANGE_SIZE));
+    }
+
+    /**
+     * @return the concurrency set in the constructor or set using the S3_RANGED_DOWNLOAD_CONCURRENCY system property or the default
+     * */
+    public int getConcurrency() {
+        return (int) Math.max(1, resolve(concurrency == null ? null : concurrency.longValue(), CONCURRENCY_PROP, DEFAULT_CONCURRENCY));
+    }
+
+    public boolean isRanged(long contentLength) {
+        return contentLength >= getThreshold() && contentLength > getRangeSize();
+    }
+
+    private long resolve(Long value, String property, long defaultValue) {
+        if (value != null) {
+            return value;
+        }
+        String propertyValue = System.getProperty(property);
+        if (propertyValue != null) {
+            return Long.valueOf(propertyValue);
+        }
+        return defaultValue;
+    }
+
+}
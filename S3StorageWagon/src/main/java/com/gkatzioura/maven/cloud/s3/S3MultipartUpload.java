@@ -0,0 +1,220 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.s3;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.gkatzioura.maven.cloud.concurrent.DaemonThreadFactory;
+import com.gkatzioura.maven.cloud.retry.RetryPolicy;
+import com.gkatzioura.maven.cloud.transfer.MappedFileInputStream;
+import com.gkatzioura.maven.cloud.transfer.MappedUploadProperty;
+import com.gkatzioura.maven.cloud.transfer.SynchronizedTransferProgress;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+import com.gkatzioura.maven.cloud.transfer.TransferProgressFileRegionInputStream;
+
+/**
+ * Uploads a file as an S3 multipart upload. The parts are read straight from the file and sent
+ * in parallel on a pool bounded by the configured concurrency. Every request goes through the retry policy
+ * of the repository, a part being read again from the file on every attempt. A part failing for good aborts
+ * the upload so that no orphan parts are left behind in the bucket.
+ */
+class S3MultipartUpload {
+
+    private static final int MAXIMUM_PARTS = 10000;
+
+    private final AmazonS3 amazonS3;
+    private final MultipartUploadProperty multipartUploadProperty;
+    private final MappedUploadProperty mappedUploadProperty;
+    private final RetryPolicy retryPolicy;
+
+    private static final Logger LOGGER = Logger.getLogger(S3MultipartUpload.class.getName());
+
+    S3MultipartUpload(AmazonS3 amazonS3, MultipartUploadProperty multipartUploadProperty, MappedUploadProperty mappedUploadProperty, RetryPolicy retryPolicy) {
+        this.amazonS3 = amazonS3;
+        this.multipartUploadProperty = multipartUploadProperty;
+        this.mappedUploadProperty = mappedUploadProperty;
+        this.retryPolicy = retryPolicy;
+    }
+
+    void upload(String bucket, String key, File file, CannedAccessControlList cannedAcl, TransferProgress transferProgress) throws IOException {
+
+        final long contentLength = file.length();
+        final long partSize = resolvePartSize(contentLength);
+
+        InitiateMultipartUploadRequest initiateRequest = new InitiateMultipartUploadRequest(bucket, key, new ObjectMetadata());
+        if (cannedAcl != null) {
+            initiateRequest.withCannedACL(cannedAcl);
+        }
+
+        final String uploadId = retryPolicy.execute("Initiation of multipart upload of " + key,
+                () -> amazonS3.initiateMultipartUpload(initiateRequest)).getUploadId();
+
+        LOGGER.log(Level.FINER, String.format("Started multipart upload %s for key %s with part size %d", uploadId, key, partSize));
+
+        final TransferProgress partProgress = new SynchronizedTransferProgress(transferProgress);
+        final ExecutorService executorService = Executors.newFixedThreadPool(multipartUploadProperty.getConcurrency(), new DaemonThreadFactory("s3-multipart-upload"));
+        final CompletionService<PartETag> completionService = new ExecutorCompletionService<>(executorService);
+        final List<Future<PartETag>> futures = new ArrayList<>();
+
+        try {
+            int partNumber = 1;
+            for (long offset = 0; offset < contentLength; offset += partSize, partNumber++) {
+                final long length = Math.min(partSize, contentLength - offset);
+                final UploadPartRequest uploadPartRequest = createUploadPartRequest(bucket, key, uploadId, partNumber, offset, length, contentLength);
+                final long partOffset = offset;
+                futures.add(completionService.submit(() -> uploadPart(file, partOffset, uploadPartRequest, partProgress)));
+            }
+
+            List<PartETag> partETags = new ArrayList<>(futures.size());
+            for (int i = 0; i < futures.size(); i++) {
+                partETags.add(completionService.take().get());
+            }
+            partETags.sort(Comparator.comparingInt(PartETag::getPartNumber));
+
+            retryPolicy.execute("Completion of multipart upload of " + key,
+                    () -> amazonS3.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, uploadId, partETags)));
+        } catch (ExecutionException e) {
+            abort(bucket, key, uploadId, futures);
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            abort(bucket, key, uploadId, futures);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while uploading " + key, e);
+        } catch (RuntimeException e) {
+            abort(bucket, key, uploadId, futures);
+            throw e;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private InputStream openPart(File file, long offset, long partSize, TransferProgress transferProgress) throws IOException {
+        if (mappedUploadProperty.isMapped(file.length())) {
+            return new MappedFileInputStream(file, offset, partSize, transferProgress);
+        }
+        return new TransferProgressFileRegionInputStream(file, offset, partSize, transferProgress);
+    }
+
+    private PartETag uploadPart(File file, long offset, UploadPartRequest uploadPartRequest, TransferProgress transferProgress) throws IOException {
+        PartProgress partProgress = new PartProgress(transferProgress);
+
+        return retryPolicy.execute("Upload of part " + uploadPartRequest.getPartNumber() + " of " + uploadPartRequest.getKey(), () -> {
+            try (InputStream inputStream = openPart(file, offset, uploadPartRequest.getPartSize(), partProgress.nextAttempt())) {
+                return amazonS3.uploadPart(uploadPartRequest.withInputStream(inputStream)).getPartETag();
+            }
+        });
+    }
+
+    private UploadPartRequest createUploadPartRequest(String bucket, String key, String uploadId, int partNumber, long offset, long length, long contentLength) {
+        return new UploadPartRequest()
+                .withBucketName(bucket)
+                .withKey(key)
+                .withUploadId(uploadId)
+                .withPartNumber(partNumber)
+                .withPartSize(length)
+                .withLastPart(offset + length >= contentLength);
+    }
+
+    private long resolvePartSize(long contentLength) {
+        long partSize = multipartUploadProperty.getPartSize();
+        long minimumForPartLimit = (contentLength + MAXIMUM_PARTS - 1) / MAXIMUM_PARTS;
+        return Math.max(partSize, minimumForPartLimit);
+    }
+
+    private void abort(String bucket, String key, String uploadId, List<Future<PartETag>> futures) {
+        futures.forEach(f -> f.cancel(true));
+        try {
+            retryPolicy.execute("Abort of multipart upload of " + key,
+                    () -> {
+                        amazonS3.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, uploadId));
+                        return null;
+                    });
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not abort multipart upload %s for key %s", uploadId, key), e);
+        }
+    }
+
+    private IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        return new IOException(cause);
+    }
+
+    /**
+     * Every attempt at a part reads it again from its first byte, so an attempt only reports the bytes beyond
+     * those reported by the previous attempts
+     */
+    private static final class PartProgress {
+
+        private final TransferProgress transferProgress;
+        private long reported;
+
+        private PartProgress(TransferProgress transferProgress) {
+            this.transferProgress = transferProgress;
+        }
+
+        private TransferProgress nextAttempt() {
+            long[] position = {0};
+
+            return (buffer, length) -> {
+                position[0] += length;
+                if (position[0] <= reported) {
+                    return;
+                }
+
+                int fresh = (int) Math.min(length, position[0] - reported);
+                reported = position[0];
+
+                if (fresh == length) {
+                    transferProgress.progress(buffer, length);
+                } else {
+                    byte[] bytes = new byte[fresh];
+                    System.arraycopy(buffer, length - fresh, bytes, 0, fresh);
+                    transferProgress.progress(bytes, fresh);
+                }
+            };
+        }
+
+    }
+
+}
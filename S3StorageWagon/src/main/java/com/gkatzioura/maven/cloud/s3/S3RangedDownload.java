@@ -0,0 +1,230 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.s3;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.gkatzioura.maven.cloud.concurrent.DaemonThreadFactory;
+import com.gkatzioura.maven.cloud.retry.RetryPolicy;
+import com.gkatzioura.maven.cloud.transfer.ResumableDownload;
+import com.gkatzioura.maven.cloud.transfer.ResumableDownloadProperty;
+import com.gkatzioura.maven.cloud.transfer.SynchronizedTransferProgress;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+
+/**
+ * Downloads an object as parallel byte ranges written at their offsets into a preallocated temporary file next to
+ * the destination. The response of the initial GET is reused for the first range, so no extra request is spent on
+ * finding out the object size. The remaining ranges are pinned to the ETag of that response.
+ * Range requests go through the retry policy of the repository. A range whose stream fails is requested again
+ * from its last written byte, a bounded number of times, and the temporary file is moved into place only once
+ * every range has completed.
+ */
+class S3RangedDownload {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AmazonS3 amazonS3;
+    private final RangedDownloadProperty rangedDownloadProperty;
+    private final ResumableDownloadProperty resumableDownloadProperty;
+    private final RetryPolicy retryPolicy;
+
+    private static final Logger LOGGER = Logger.getLogger(S3RangedDownload.class.getName());
+
+    S3RangedDownload(AmazonS3 amazonS3, RangedDownloadProperty rangedDownloadProperty, ResumableDownloadProperty resumableDownloadProperty, RetryPolicy retryPolicy) {
+        this.amazonS3 = amazonS3;
+        this.rangedDownloadProperty = rangedDownloadProperty;
+        this.resumableDownloadProperty = resumableDownloadProperty;
+        this.retryPolicy = retryPolicy;
+    }
+
+    void download(S3Object s3Object, File destination, TransferProgress transferProgress) throws IOException {
+
+        final String bucket = s3Object.getBucketName();
+        final String key = s3Object.getKey();
+        final String eTag = s3Object.getObjectMetadata().getETag();
+        final long contentLength = s3Object.getObjectMetadata().getContentLength();
+        final long rangeSize = rangedDownloadProperty.getRangeSize();
+
+        LOGGER.log(Level.FINER, String.format("Downloading key %s of %d bytes in ranges of %d bytes", key, contentLength, rangeSize));
+
+        final TransferProgress rangeProgress = new SynchronizedTransferProgress(transferProgress);
+        final ExecutorService executorService = Executors.newFixedThreadPool(rangedDownloadProperty.getConcurrency(), new DaemonThreadFactory("s3-ranged-download"));
+        final CompletionService<Long> completionService = new ExecutorCompletionService<>(executorService);
+        final List<Future<Long>> futures = new ArrayList<>();
+
+        //the destination may be a hard link into a cache, so it is replaced rather than written in place
+        final File partFile = ResumableDownload.partFile(destination);
+        Files.deleteIfExists(partFile.toPath());
+
+        boolean completed = false;
+
+        try {
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(partFile, "rw")) {
+                randomAccessFile.setLength(contentLength);
+                final FileChannel fileChannel = randomAccessFile.getChannel();
+
+                final Range firstRange = new Range(0, Math.min(rangeSize, contentLength) - 1);
+                futures.add(completionService.submit(() -> downloadRange(bucket, key, eTag, fileChannel, firstRange, s3Object.getObjectContent(), rangeProgress)));
+
+                for (long start = rangeSize; start < contentLength; start += rangeSize) {
+                    final Range range = new Range(start, Math.min(start + rangeSize, contentLength) - 1);
+                    futures.add(completionService.submit(() -> downloadRange(bucket, key, eTag, fileChannel, range, null, rangeProgress)));
+                }
+
+                for (int i = 0; i < futures.size(); i++) {
+                    completionService.take().get();
+                }
+
+                fileChannel.force(false);
+            }
+
+            ResumableDownload.moveIntoPlace(partFile, destination);
+            completed = true;
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading " + key, e);
+        } finally {
+            if (!completed) {
+                futures.forEach(f -> f.cancel(true));
+                s3Object.getObjectContent().abort();
+            }
+            executorService.shutdownNow();
+            if (!completed && partFile.exists() && !partFile.delete()) {
+                LOGGER.log(Level.WARNING, String.format("Could not delete partially downloaded file %s", partFile.getAbsolutePath()));
+            }
+        }
+    }
+
+    /**
+     * @param initial the stream of the range, or null if it has to be requested
+     */
+    private long downloadRange(String bucket, String key, String eTag, FileChannel fileChannel, Range range, S3ObjectInputStream initial, TransferProgress transferProgress) throws IOException {
+        int resumeAttempts = resumableDownloadProperty.get();
+        int attempt = 0;
+        S3ObjectInputStream inputStream = initial;
+
+        while (true) {
+            if (inputStream == null) {
+                inputStream = openRange(bucket, key, eTag, range.start + range.written, range.end);
+            }
+
+            try {
+                writeRange(inputStream, fileChannel, range, transferProgress);
+            } catch (IOException e) {
+                inputStream.abort();
+                inputStream = null;
+
+                if (++attempt > resumeAttempts) {
+                    throw e;
+                }
+                LOGGER.log(Level.WARNING, String.format("Range at offset %d of key %s interrupted after %d bytes, resuming", range.start, key, range.written), e);
+                continue;
+            }
+
+            if (inputStream == initial) {
+                //the rest of the object is fetched by the other ranges, there is no point in draining it
+                inputStream.abort();
+            } else {
+                inputStream.close();
+            }
+            return range.written;
+        }
+    }
+
+    private S3ObjectInputStream openRange(String bucket, String key, String eTag, long start, long end) throws IOException {
+        GetObjectRequest getObjectRequest = new GetObjectRequest(bucket, key)
+                .withRange(start, end)
+                .withMatchingETagConstraint(eTag);
+
+        S3Object rangeObject = retryPolicy.execute(String.format("Download of range %d-%d of %s", start, end, key),
+                () -> amazonS3.getObject(getObjectRequest));
+        if (rangeObject == null) {
+            throw new IOException(String.format("Key %s changed while it was being downloaded", key));
+        }
+        return rangeObject.getObjectContent();
+    }
+
+    /**
+     * Writes the rest of the range, counting every byte that reached the file as written
+     */
+    private void writeRange(S3ObjectInputStream inputStream, FileChannel fileChannel, Range range, TransferProgress transferProgress) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long length = range.end - range.start + 1;
+
+        while (range.written < length) {
+            int read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, length - range.written));
+            if (read == -1) {
+                throw new IOException(String.format("Range at offset %d ended after %d of %d bytes", range.start, range.written, length));
+            }
+
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+            long position = range.start + range.written;
+            while (byteBuffer.hasRemaining()) {
+                position += fileChannel.write(byteBuffer, position);
+            }
+
+            range.written += read;
+            transferProgress.progress(buffer, read);
+        }
+    }
+
+    private IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        return new IOException(cause);
+    }
+
+    private static final class Range {
+
+        private final long start;
+        private final long end;
+        private long written;
+
+        private Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.s3;
+
+import org.apache.http.HttpStatus;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.retry.RetryUtils;
+import com.gkatzioura.maven.cloud.retry.RetryClassifier;
+
+/**
+ * SlowDown, 503 and the other throttling codes are throttles, 5xx errors and client side network errors are transient.
+ */
+public class S3RetryClassifier implements RetryClassifier {
+
+    @Override
+    public Outcome classify(Exception exception) {
+        if (exception instanceof AmazonServiceException) {
+            AmazonServiceException serviceException = (AmazonServiceException) exception;
+
+            if (RetryUtils.isThrottlingException(serviceException) || serviceException.getStatusCode() == HttpStatus.SC_SERVICE_UNAVAILABLE) {
+                return Outcome.THROTTLED;
+            }
+            return RetryUtils.isRetryableServiceException(serviceException) ? Outcome.TRANSIENT : Outcome.FATAL;
+        }
+
+        if (exception instanceof SdkClientException && ((SdkClientException) exception).isRetryable()) {
+            return Outcome.TRANSIENT;
+        }
+
+        return Outcome.FATAL;
+    }
+
+}
@@ -19,34 +19,58 @@ package com.gkatzioura.maven.cloud.s3;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import com.gkatzioura.maven.cloud.s3.utils.S3Connect;
-import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpStatus;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
 import org.apache.maven.wagon.TransferFailedException;
 
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.SSEAlgorithm;
+import com.gkatzioura.maven.cloud.cache.MetadataCache;
+import com.gkatzioura.maven.cloud.cache.MetadataCacheProperty;
+import com.gkatzioura.maven.cloud.cache.NegativeLookupCache;
+import com.gkatzioura.maven.cloud.cache.CachedFile;
+import com.gkatzioura.maven.cloud.cache.DownloadCache;
+import com.gkatzioura.maven.cloud.cache.ResourceMetadata;
+import com.gkatzioura.maven.cloud.compress.CompressibleContentTypeResolver;
+import com.gkatzioura.maven.cloud.compress.CompressionProperty;
+import com.gkatzioura.maven.cloud.compress.GzipContentEncoding;
+import com.gkatzioura.maven.cloud.index.KeyIndex;
+import com.gkatzioura.maven.cloud.index.PublishedKeyIndex;
 import com.gkatzioura.maven.cloud.resolver.KeyResolver;
+import com.gkatzioura.maven.cloud.retry.AdaptiveRateLimiter;
+import com.gkatzioura.maven.cloud.retry.RetryPolicy;
+import com.gkatzioura.maven.cloud.retry.RetryProperty;
+import com.gkatzioura.maven.cloud.transfer.DigestingInputStream;
+import com.gkatzioura.maven.cloud.transfer.MappedUploadProperty;
+import com.gkatzioura.maven.cloud.transfer.ResumableDownload;
+import com.gkatzioura.maven.cloud.transfer.ResumableDownloadProperty;
+import com.gkatzioura.maven.cloud.transfer.TransferDigests;
 import com.gkatzioura.maven.cloud.transfer.TransferProgress;
-import com.gkatzioura.maven.cloud.transfer.TransferProgressFileInputStream;
-import com.gkatzioura.maven.cloud.transfer.TransferProgressFileOutputStream;
+import com.gkatzioura.maven.cloud.transfer.UploadStreamFactory;
 import com.gkatzioura.maven.cloud.wagon.PublicReadProperty;
 
-public class S3StorageRepository {
+public class S3StorageRepository implements PublishedKeyIndex {
 
     private final String bucket;
     private final String baseDirectory;
@@ -55,6 +79,18 @@ public class S3StorageRepository {
 
     private AmazonS3 amazonS3;
     private PublicReadProperty publicReadProperty;
+    private MultipartUploadProperty multipartUploadProperty;
+    private RangedDownloadProperty rangedDownloadProperty;
+    private MetadataCacheProperty metadataCacheProperty;
+    private final ResumableDownloadProperty resumableDownloadProperty = ResumableDownloadProperty.empty();
+    private final MappedUploadProperty mappedUploadProperty = MappedUploadProperty.empty();
+    private final UploadStreamFactory uploadStreamFactory = new UploadStreamFactory(mappedUploadProperty);
+    private final CompressionProperty compressionProperty = CompressionProperty.empty();
+    private final RetryPolicy retryPolicy;
+
+    private final MetadataCache metadataCache = MetadataCache.getInstance();
+    private final DownloadCache downloadCache = DownloadCache.create();
+    private final NegativeLookupCache negativeLookupCache = NegativeLookupCache.getInstance();
 
     private static final Logger LOGGER = Logger.getLogger(S3StorageRepository.class.getName());
 
@@ -62,47 +98,224 @@ public class S3StorageRepository {
         this.bucket = bucket;
         this.baseDirectory = "";
         this.publicReadProperty = new PublicReadProperty(false);
+        this.multipartUploadProperty = MultipartUploadProperty.empty();
+        this.rangedDownloadProperty = RangedDownloadProperty.empty();
+        this.metadataCacheProperty = new MetadataCacheProperty(null);
+        this.retryPolicy = createRetryPolicy(bucket);
     }
 
     public S3StorageRepository(String bucket, PublicReadProperty publicReadProperty) {
         this.bucket = bucket;
         this.baseDirectory = "";
         this.publicReadProperty = publicReadProperty;
+        this.multipartUploadProperty = MultipartUploadProperty.empty();
+        this.rangedDownloadProperty = RangedDownloadProperty.empty();
+        this.metadataCacheProperty = new MetadataCacheProperty(null);
+        this.retryPolicy = createRetryPolicy(bucket);
     }
 
     public S3StorageRepository(String bucket, String baseDirectory) {
         this.bucket = bucket;
         this.baseDirectory = baseDirectory;
         this.publicReadProperty = new PublicReadProperty(false);
+        this.multipartUploadProperty = MultipartUploadProperty.empty();
+        this.rangedDownloadProperty = RangedDownloadProperty.empty();
+        this.metadataCacheProperty = new MetadataCacheProperty(null);
+        this.retryPolicy = createRetryPolicy(bucket);
     }
 
     public S3StorageRepository(String bucket, String baseDirectory, PublicReadProperty publicReadProperty) {
         this.bucket = bucket;
         this.baseDirectory = baseDirectory;
         this.publicReadProperty = publicReadProperty;
+        this.multipartUploadProperty = MultipartUploadProperty.empty();
+        this.rangedDownloadProperty = RangedDownloadProperty.empty();
+        this.metadataCacheProperty = new MetadataCacheProperty(null);
+        this.retryPolicy = createRetryPolicy(bucket);
     }
 
+    public S3StorageRepository(String bucket, String baseDirectory, PublicReadProperty publicReadProperty, MultipartUploadProperty multipartUploadProperty, RangedDownloadProperty rangedDownloadProperty, MetadataCacheProperty metadataCacheProperty) {
+        this.bucket = bucket;
+        this.baseDirectory = baseDirectory;
+        this.publicReadProperty = publicReadProperty;
+        this.multipartUploadProperty = multipartUploadProperty;
+        this.rangedDownloadProperty = rangedDownloadProperty;
+        this.metadataCacheProperty = metadataCacheProperty;
+        this.retryPolicy = createRetryPolicy(bucket);
+    }
+
+    private static RetryPolicy createRetryPolicy(String bucket) {
+        return new RetryPolicy(RetryProperty.empty(), new S3RetryClassifier(), AdaptiveRateLimiter.forRepository(repositoryId(bucket)));
+    }
 
     public void connect(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle) throws AuthenticationException {
-        this.amazonS3 = S3Connect.connect(authenticationInfo, region, endpoint, pathStyle);
+        connect(authenticationInfo, region, endpoint, pathStyle, ClientConfigurationProperty.empty());
+    }
+
+    public void connect(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, ClientConfigurationProperty clientConfiguration) throws AuthenticationException {
+        this.amazonS3 = S3Connect.acquire(authenticationInfo, region, endpoint, pathStyle, clientConfiguration);
     }
 
     public void copy(String resourceName, File destination, TransferProgress transferProgress) throws TransferFailedException, ResourceDoesNotExistException {
+        copy(resourceName, destination, transferProgress, null);
+    }
+
+    /**
+     * @param transferDigests fed with the downloaded bytes unless the download is ranged, may be null
+     */
+    public void copy(String resourceName, File destination, TransferProgress transferProgress, TransferDigests transferDigests) throws TransferFailedException, ResourceDoesNotExistException {
+
+        final String key = resolveKey(resourceName);
+        throwIfMissing(key);
+
+        CachedFile cachedFile = downloadCache.get(repositoryId(), key);
+        GetObjectRequest getObjectRequest = new GetObjectRequest(bucket, key);
+        if(cachedFile != null) {
+            getObjectRequest.withNonmatchingETagConstraint(cachedFile.getValidator());
+        }
+
+        S3Object s3Object = getObject(getObjectRequest);
+
+        //the cached file is still current, unless it has been evicted meanwhile
+        if(s3Object == null && cachedFile != null) {
+            if(writeCachedFile(key, cachedFile, destination, transferProgress, transferDigests)) {
+                return;
+            }
+            s3Object = getObject(new GetObjectRequest(bucket, key));
+        }
+
+        cacheMetadata(key, s3Object.getObjectMetadata());
+        download(s3Object, key, destination, transferProgress, transferDigests);
+        cacheFile(key, destination, s3Object.getObjectMetadata(), transferDigests);
+    }
+
+    /**
+     * Downloads the resource only if it was modified after the timestamp, using a single conditional GET.
+     *
+     * @param onTransferStarted invoked once the object is known to be newer, before any byte is written
+     * @return true if the resource was newer and has been downloaded
+     */
+    public boolean copyIfNewer(String resourceName, File destination, long timeStamp, Runnable onTransferStarted, TransferProgress transferProgress) throws TransferFailedException, ResourceDoesNotExistException {
+        return copyIfNewer(resourceName, destination, timeStamp, onTransferStarted, transferProgress, null);
+    }
+
+    public boolean copyIfNewer(String resourceName, File destination, long timeStamp, Runnable onTransferStarted, TransferProgress transferProgress, TransferDigests transferDigests) throws TransferFailedException, ResourceDoesNotExistException {
 
         final String key = resolveKey(resourceName);
 
+        LOGGER.log(Level.FINER,String.format("Fetching key %s if modified since %d",key,timeStamp));
+
+        throwIfMissing(key);
+
+        ResourceMetadata cachedMetadata = metadataCache.get(repositoryId(), key);
+        if(cachedMetadata != null && cachedMetadata.getLastModified() <= timeStamp) {
+            return false;
+        }
+
+        CachedFile cachedFile = downloadCache.get(repositoryId(), key);
+        GetObjectRequest getObjectRequest = new GetObjectRequest(bucket, key).withModifiedSinceConstraint(new Date(timeStamp));
+        if(cachedFile != null) {
+            getObjectRequest.withNonmatchingETagConstraint(cachedFile.getValidator());
+        }
+
+        S3Object s3Object = getObject(getObjectRequest);
+
+        //a not modified response is reported by the client as a null object
+        if(s3Object == null) {
+            //an object modified after the timestamp can only be unmodified by its ETag, so the cached file is current
+            if(cachedFile == null || cachedFile.getLastModified() <= timeStamp) {
+                return false;
+            }
+            onTransferStarted.run();
+            if(writeCachedFile(key, cachedFile, destination, transferProgress, transferDigests)) {
+                return true;
+            }
+            s3Object = getObject(new GetObjectRequest(bucket, key));
+        } else {
+            onTransferStarted.run();
+        }
+
+        cacheMetadata(key, s3Object.getObjectMetadata());
+        download(s3Object, key, destination, transferProgress, transferDigests);
+        cacheFile(key, destination, s3Object.getObjectMetadata(), transferDigests);
+        return true;
+    }
+
+    private void cacheFile(String key, File destination, ObjectMetadata objectMetadata, TransferDigests transferDigests) {
+        if(objectMetadata.getLastModified() != null) {
+            downloadCache.put(repositoryId(), key, destination, objectMetadata.getETag(), objectMetadata.getLastModified().getTime(), transferDigests);
+        }
+    }
+
+    /**
+     * @return false if the cached file could not be written, in which case it has to be downloaded
+     */
+    private boolean writeCachedFile(String key, CachedFile cachedFile, File destination, TransferProgress transferProgress, TransferDigests transferDigests) {
+        LOGGER.log(Level.FINER, String.format("Key %s not modified, using the cached file", key));
+
         try {
+            cachedFile.writeTo(destination, transferProgress, transferDigests);
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING,"Could not write cached file", e);
+            return false;
+        }
+    }
 
-            final S3Object s3Object;
-            try {
-                s3Object = amazonS3.getObject(bucket, key);
-            } catch (AmazonS3Exception e) {
-                throw new ResourceDoesNotExistException("Resource does not exist");
+    private S3Object getObject(GetObjectRequest getObjectRequest) throws ResourceDoesNotExistException, TransferFailedException {
+        try {
+            return retryPolicy.execute("Download of "+getObjectRequest.getKey(), () -> amazonS3.getObject(getObjectRequest));
+        } catch (AmazonS3Exception e) {
+            if(e.getStatusCode() != HttpStatus.SC_NOT_FOUND) {
+                throw new TransferFailedException("Could not download resource "+getObjectRequest.getKey(), e);
             }
+            negativeLookupCache.putMissing(repositoryId(), getObjectRequest.getKey());
+            throw new ResourceDoesNotExistException("Resource does not exist");
+        } catch (SdkClientException e) {
+            throw new TransferFailedException("Could not download resource "+getObjectRequest.getKey(), e);
+        }
+    }
+
+    /**
+     * Fails without a request if the key was reported missing recently
+     */
+    private void throwIfMissing(String key) throws ResourceDoesNotExistException {
+        if(negativeLookupCache.isMissing(repositoryId(), key)) {
+            LOGGER.log(Level.FINER,String.format("Key %s was reported missing recently",key));
+            throw new ResourceDoesNotExistException("Resource does not exist");
+        }
+    }
+
+    private void download(S3Object s3Object, String key, File destination, TransferProgress transferProgress, TransferDigests transferDigests) throws TransferFailedException {
+
+        try {
             destination.getParentFile().mkdirs();//make sure the folder exists or the outputStream will fail.
-            try(OutputStream outputStream = new TransferProgressFileOutputStream(destination,transferProgress);
-                InputStream inputStream = s3Object.getObjectContent()) {
-                IOUtils.copy(inputStream,outputStream);
+
+            ObjectMetadata objectMetadata = s3Object.getObjectMetadata();
+            long contentLength = objectMetadata.getContentLength();
+
+            if(GzipContentEncoding.isGzip(objectMetadata.getContentEncoding())) {
+                //the ETag is the MD5 of the compressed bytes, it cannot be checked against the inflated ones
+                new ResumableDownload(resumableDownloadProperty).download(destination, -1, GzipContentEncoding.decompress(s3Object.getObjectContent()),
+                        ResumableDownload.NOT_RESUMABLE, transferProgress, transferDigests);
+                return;
+            }
+
+            if(rangedDownloadProperty.isRanged(contentLength)) {
+                new S3RangedDownload(amazonS3, rangedDownloadProperty, resumableDownloadProperty, retryPolicy).download(s3Object, destination, transferProgress);
+                return;
+            }
+
+            new ResumableDownload(resumableDownloadProperty).download(destination, contentLength, s3Object.getObjectContent(),
+                    offset -> getRange(key, objectMetadata.getETag(), offset, contentLength), transferProgress, transferDigests);
+
+            if(transferDigests != null) {
+                try {
+                    verifyMd5(key, objectMetadata.getETag(), objectMetadata.getSSEAlgorithm(), objectMetadata.getSSECustomerAlgorithm(), transferDigests);
+                } catch (TransferFailedException e) {
+                    destination.delete();
+                    throw e;
+                }
             }
         } catch (AmazonS3Exception |IOException e) {
             LOGGER.log(Level.SEVERE,"Could not transfer file", e);
@@ -110,19 +323,103 @@ public class S3StorageRepository {
         }
     }
 
+    /**
+     * Reissues the GET from the offset, as long as the object still has the ETag of the interrupted download
+     */
+    private InputStream getRange(String key, String eTag, long offset, long contentLength) throws IOException {
+        try {
+            S3Object s3Object = retryPolicy.execute("Resumption of "+key, () -> amazonS3.getObject(new GetObjectRequest(bucket, key)
+                    .withRange(offset, contentLength - 1)
+                    .withMatchingETagConstraint(eTag)));
+            return s3Object == null ? null : s3Object.getObjectContent();
+        } catch (AmazonServiceException e) {
+            throw e;
+        } catch (SdkClientException e) {
+            throw new IOException("Could not resume download of "+key, e);
+        }
+    }
+
     public void put(File file, String destination,TransferProgress transferProgress) throws TransferFailedException {
+        put(file, destination, transferProgress, null);
+    }
+
+    /**
+     * @param transferDigests fed with the uploaded bytes unless the upload is multipart, may be null
+     */
+    public void put(File file, String destination,TransferProgress transferProgress, TransferDigests transferDigests) throws TransferFailedException {
 
         final String key = resolveKey(destination);
 
         try {
-            try(InputStream inputStream = new TransferProgressFileInputStream(file,transferProgress)) {
-                PutObjectRequest putObjectRequest = new PutObjectRequest(bucket,key,inputStream,createContentLengthMetadata(file));
-                applyPublicRead(putObjectRequest);
-                amazonS3.putObject(putObjectRequest);
+            if(compressionProperty.isCompressed(key)) {
+                putCompressed(file, key, transferProgress, transferDigests);
+                return;
+            }
+
+            if(multipartUploadProperty.isMultipart(file.length())) {
+                new S3MultipartUpload(amazonS3, multipartUploadProperty, mappedUploadProperty, retryPolicy).upload(bucket, key, file, resolveCannedAcl(), transferProgress);
+                return;
+            }
+
+            PutObjectResult putObjectResult = retryPolicy.execute("Upload of "+key, () -> {
+                if(transferDigests != null) {
+                    transferDigests.reset();
+                }
+
+                InputStream fileInputStream = uploadStreamFactory.create(file, transferProgress);
+                try(InputStream inputStream = transferDigests == null ? fileInputStream : new DigestingInputStream(fileInputStream, transferDigests)) {
+                    PutObjectRequest putObjectRequest = new PutObjectRequest(bucket,key,inputStream,createContentLengthMetadata(file));
+                    applyPublicRead(putObjectRequest);
+                    return amazonS3.putObject(putObjectRequest);
+                }
+            });
+
+            if(transferDigests != null) {
+                verifyMd5(key, putObjectResult.getETag(), putObjectResult.getSSEAlgorithm(), putObjectResult.getSSECustomerAlgorithm(), transferDigests);
             }
         } catch (AmazonS3Exception | IOException e) {
             LOGGER.log(Level.SEVERE,"Could not transfer file ",e);
             throw new TransferFailedException("Could not transfer file "+file.getName());
+        } finally {
+            metadataCache.invalidate(repositoryId(), key);
+            negativeLookupCache.invalidate(repositoryId(), key);
+        }
+    }
+
+    /**
+     * Uploads the gzipped file with a gzip Content-Encoding. The digests are those of the uncompressed file,
+     * so they are not checked against the ETag.
+     */
+    private void putCompressed(File file, String key, TransferProgress transferProgress, TransferDigests transferDigests) throws IOException {
+        File compressed = GzipContentEncoding.compress(file, transferDigests);
+
+        try {
+            ObjectMetadata metadata = createContentLengthMetadata(compressed);
+            metadata.setContentEncoding(GzipContentEncoding.GZIP);
+            metadata.setContentType(CompressibleContentTypeResolver.getContentType(key));
+
+            retryPolicy.execute("Upload of "+key, () -> {
+                try(InputStream inputStream = uploadStreamFactory.create(compressed, transferProgress)) {
+                    PutObjectRequest putObjectRequest = new PutObjectRequest(bucket,key,inputStream,metadata);
+                    applyPublicRead(putObjectRequest);
+                    return amazonS3.putObject(putObjectRequest);
+                }
+            });
+        } finally {
+            compressed.delete();
+        }
+    }
+
+    /**
+     * The ETag of an object uploaded in a single request is its MD5, unless it is encrypted with KMS or a customer key.
+     */
+    private void verifyMd5(String key, String eTag, String sseAlgorithm, String sseCustomerAlgorithm, TransferDigests transferDigests) throws TransferFailedException {
+        if(eTag == null || eTag.contains("-") || SSEAlgorithm.KMS.getAlgorithm().equals(sseAlgorithm) || sseCustomerAlgorithm != null) {
+            return;
+        }
+
+        if(!eTag.equalsIgnoreCase(transferDigests.getMd5Hex())) {
+            throw new TransferFailedException("Checksum mismatch for "+key+": expected MD5 "+eTag+" but was "+transferDigests.getMd5Hex());
         }
     }
 
@@ -139,22 +436,58 @@ public class S3StorageRepository {
         LOGGER.log(Level.FINER,String.format("Checking if new key %s exists",key));
 
         try {
-            ObjectMetadata objectMetadata = amazonS3.getObjectMetadata(bucket, key);
+            ResourceMetadata metadata = fetchMetadata(key);
+            if(!metadata.exists()) {
+                throw new ResourceDoesNotExistException("Could not retrieve key "+key);
+            }
 
-            long updated = objectMetadata.getLastModified().getTime();
-            return updated>timeStamp;
+            return metadata.getLastModified()>timeStamp;
         } catch (AmazonS3Exception e) {
             LOGGER.log(Level.SEVERE,String.format("Could not retrieve %s",key),e);
             throw new ResourceDoesNotExistException("Could not retrieve key "+key);
         }
     }
 
+    /**
+     * Returns the metadata of a key from the metadata and negative lookup caches, or from a HEAD request which is then cached
+     */
+    private ResourceMetadata fetchMetadata(String key) {
+
+        if(negativeLookupCache.isMissing(repositoryId(), key)) {
+            return ResourceMetadata.missing();
+        }
+
+        ResourceMetadata metadata = metadataCache.get(repositoryId(), key);
+        if(metadata != null) {
+            return metadata;
+        }
+
+        try {
+            ObjectMetadata objectMetadata = retryPolicy.execute("Metadata of "+key, () -> amazonS3.getObjectMetadata(bucket, key));
+            metadata = ResourceMetadata.of(objectMetadata.getLastModified().getTime(), objectMetadata.getContentLength());
+        } catch (AmazonS3Exception e) {
+            if(e.getStatusCode() != HttpStatus.SC_NOT_FOUND) {
+                throw e;
+            }
+            negativeLookupCache.putMissing(repositoryId(), key);
+            return ResourceMetadata.missing();
+        }
+
+        metadataCache.put(repositoryId(), key, metadata, metadataCacheProperty.get());
+        return metadata;
+    }
+
+    private void cacheMetadata(String key, ObjectMetadata objectMetadata) {
+        if(objectMetadata.getLastModified() != null) {
+            metadataCache.put(repositoryId(), key, ResourceMetadata.of(objectMetadata.getLastModified().getTime(), objectMetadata.getInstanceLength()), metadataCacheProperty.get());
+        }
+    }
 
     public List<String> list(String path) {
 
         String key = resolveKey(path);
 
-        ObjectListing objectListing = amazonS3.listObjects(new ListObjectsRequest()
+        ObjectListing objectListing = listObjects(new ListObjectsRequest()
                     .withBucketName(bucket)
                     .withPrefix(key));
         List<String> objects = new ArrayList<>();
@@ -162,20 +495,139 @@ public class S3StorageRepository {
         return objects;
     }
 
+    /**
+     * Lists only the immediate children of a path, using the "/" delimiter so that S3 folds
+     * everything deeper into common prefixes.
+     *
+     * @param path the directory to list
+     * @return the names relative to the path, directories end with a "/"
+     */
+    public List<String> listChildren(String path) {
+
+        String key = resolveKey(path);
+        final String prefix = key.isEmpty() || key.endsWith("/") ? key : key + "/";
+
+        ObjectListing objectListing = listObjects(new ListObjectsRequest()
+                    .withBucketName(bucket)
+                    .withPrefix(prefix)
+                    .withDelimiter("/"));
+
+        List<String> children = new ArrayList<>();
+
+        while (true) {
+            objectListing.getObjectSummaries().forEach(os -> {
+                String name = os.getKey().substring(prefix.length());
+                //the directory marker of the path itself is not a child
+                if (!name.isEmpty()) {
+                    children.add(name);
+                }
+            });
+            objectListing.getCommonPrefixes().forEach(cp -> children.add(cp.substring(prefix.length())));
+
+            if (!objectListing.isTruncated()) {
+                return children;
+            }
+            objectListing = listNextBatchOfObjects(objectListing);
+        }
+    }
+
     private void applyPublicRead(PutObjectRequest putObjectRequest) {
+        CannedAccessControlList cannedAcl = resolveCannedAcl();
+        if(cannedAcl != null) {
+            putObjectRequest.withCannedAcl(cannedAcl);
+        }
+    }
+
+    private CannedAccessControlList resolveCannedAcl() {
         if(publicReadProperty.get()) {
             LOGGER.info("Public read was set to true");
-            putObjectRequest.withCannedAcl(CannedAccessControlList.PublicRead);
+            return CannedAccessControlList.PublicRead;
         }
+        return null;
+    }
+
+    private ObjectListing listObjects(ListObjectsRequest listObjectsRequest) {
+        return retryPolicy.execute("Listing of "+listObjectsRequest.getPrefix(), () -> amazonS3.listObjects(listObjectsRequest));
+    }
+
+    private ObjectListing listNextBatchOfObjects(ObjectListing objectListing) {
+        return retryPolicy.execute("Listing of "+objectListing.getPrefix(), () -> amazonS3.listNextBatchOfObjects(objectListing));
     }
 
     private void retrieveAllObjects(ObjectListing objectListing, List<String> objects) {
 
         objectListing.getObjectSummaries().forEach( os-> objects.add(os.getKey()));
 
-        if(objectListing.isTruncated()) {
-            ObjectListing nextObjectListing = amazonS3.listNextBatchOfObjects(objectListing);
-            retrieveAllObjects(nextObjectListing, objects);
+        while (objectListing.isTruncated()) {
+            objectListing = listNextBatchOfObjects(objectListing);
+            objectListing.getObjectSummaries().forEach( os-> objects.add(os.getKey()));
+        }
+    }
+
+    @Override
+    public String downloadKeyIndex(File destination, String validator) throws IOException {
+        GetObjectRequest getObjectRequest = new GetObjectRequest(bucket, resolveKey(KeyIndex.RESOURCE_NAME));
+        if (validator != null) {
+            getObjectRequest.withNonmatchingETagConstraint(validator);
+        }
+
+        try {
+            ObjectMetadata objectMetadata = retryPolicy.execute("Download of the key index", () -> amazonS3.getObject(getObjectRequest, destination));
+            //no metadata means the index still has the ETag
+            return objectMetadata == null ? validator : objectMetadata.getETag();
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+                return null;
+            }
+            throw new IOException("Could not download the key index of "+repositoryId(), e);
+        } catch (SdkClientException e) {
+            throw new IOException("Could not download the key index of "+repositoryId(), e);
+        }
+    }
+
+    /**
+     * Conditional writes are sent as If-Match and If-None-Match headers, S3 compatible endpoints that ignore them
+     * let concurrent deploys overwrite each other's index.
+     */
+    @Override
+    public String uploadKeyIndex(File index, String validator) throws IOException {
+        PutObjectRequest putObjectRequest = new PutObjectRequest(bucket, resolveKey(KeyIndex.RESOURCE_NAME), index);
+        if (validator == null) {
+            putObjectRequest.putCustomRequestHeader("If-None-Match", "*");
+        } else {
+            putObjectRequest.putCustomRequestHeader("If-Match", "\""+validator+"\"");
+        }
+        applyPublicRead(putObjectRequest);
+
+        try {
+            return retryPolicy.execute("Upload of the key index", () -> amazonS3.putObject(putObjectRequest)).getETag();
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == HttpStatus.SC_PRECONDITION_FAILED || e.getStatusCode() == HttpStatus.SC_CONFLICT) {
+                return null;
+            }
+            throw new IOException("Could not upload the key index of "+repositoryId(), e);
+        } catch (SdkClientException e) {
+            throw new IOException("Could not upload the key index of "+repositoryId(), e);
+        }
+    }
+
+    @Override
+    public List<String> listResourceNames() throws IOException {
+        String baseKey = resolveKey("");
+        final String prefix = baseKey.isEmpty() ? baseKey : baseKey + "/";
+
+        try {
+            ObjectListing objectListing = listObjects(new ListObjectsRequest()
+                    .withBucketName(bucket)
+                    .withPrefix(prefix));
+            List<String> objects = new ArrayList<>();
+            retrieveAllObjects(objectListing, objects);
+            return objects.stream()
+                    .map(o -> o.substring(prefix.length()))
+                    .filter(n -> !n.isEmpty() && !n.endsWith("/"))
+                    .collect(Collectors.toList());
+        } catch (SdkClientException e) {
+            throw new IOException("Could not list the resources of "+repositoryId(), e);
         }
     }
 
@@ -184,17 +636,27 @@ public class S3StorageRepository {
         final String key = resolveKey(resourceName);
 
         try {
-            amazonS3.getObjectMetadata(bucket, key);
-            return true;
+            return fetchMetadata(key).exists();
         } catch (AmazonS3Exception e) {
             return false;
         }
     }
 
     public void disconnect() {
+        if (amazonS3 != null) {
+            S3Connect.release(amazonS3);
+        }
         amazonS3 = null;
     }
 
+    private String repositoryId() {
+        return repositoryId(bucket);
+    }
+
+    private static String repositoryId(String bucket) {
+        return "s3://"+bucket;
+    }
+
     private String resolveKey(String path) {
         return keyResolver.resolve(baseDirectory,path);
     }
@@ -17,16 +17,22 @@
 package com.gkatzioura.maven.cloud.s3;
 
 import java.io.File;
-import java.util.Collection;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import com.gkatzioura.maven.cloud.concurrent.BoundedExecutor;
 import com.gkatzioura.maven.cloud.resolver.KeyResolver;
-import org.apache.commons.io.FileUtils;
 import org.apache.maven.wagon.ConnectionException;
 import org.apache.maven.wagon.PathUtils;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
@@ -40,6 +46,8 @@ import org.apache.maven.wagon.repository.Repository;
 import org.apache.maven.wagon.resource.Resource;
 
 import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.gkatzioura.maven.cloud.cache.MetadataCacheProperty;
+import com.gkatzioura.maven.cloud.transfer.TransferDigests;
 import com.gkatzioura.maven.cloud.transfer.TransferProgress;
 import com.gkatzioura.maven.cloud.transfer.TransferProgressImpl;
 import com.gkatzioura.maven.cloud.wagon.AbstractStorageWagon;
@@ -53,9 +61,28 @@ public class S3StorageWagon extends AbstractStorageWagon {
     private String region;
     private Boolean publicRepository;
 
+    private Integer putDirectoryConcurrency;
+    private Boolean hierarchicalListing;
+
+    private static final String PUT_DIRECTORY_CONCURRENCY_PROP = "S3_PUT_DIRECTORY_CONCURRENCY";
+    private static final int DEFAULT_PUT_DIRECTORY_CONCURRENCY = 8;
+
     private static final Logger LOGGER = Logger.getLogger(S3StorageWagon.class.getName());
     private String endpoint;
     private String pathStyleEnabled;
+    private Long multipartThreshold;
+    private Long multipartPartSize;
+    private Integer multipartConcurrency;
+    private Long rangedDownloadThreshold;
+    private Long rangedDownloadRangeSize;
+    private Integer rangedDownloadConcurrency;
+    private Integer maxConnections;
+    private Boolean tcpKeepAlive;
+    private Integer socketSendBufferSize;
+    private Integer socketReceiveBufferSize;
+    private Long connectionTtl;
+    private Long connectionMaxIdle;
+    private Boolean useReaper;
 
     @Override
     public void get(String resourceName, File file) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
@@ -67,7 +94,9 @@ public class S3StorageWagon extends AbstractStorageWagon {
         final TransferProgress transferProgress = new TransferProgressImpl(resource, TransferEvent.REQUEST_GET, transferListenerContainer);
 
         try {
-            s3StorageRepository.copy(resourceName,file,transferProgress);
+            TransferDigests transferDigests = new TransferDigests();
+            getResource(resourceName, file, transferProgress, transferDigests, s3StorageRepository::copy);
+            recordTransferDigests(resourceName, transferDigests, file);
             transferListenerContainer.fireTransferCompleted(resource,TransferEvent.REQUEST_GET);
         } catch (Exception e) {
             transferListenerContainer.fireTransferError(resource,TransferEvent.REQUEST_GET,e);
@@ -87,7 +116,10 @@ public class S3StorageWagon extends AbstractStorageWagon {
         final TransferProgress transferProgress = new TransferProgressImpl(resource, TransferEvent.REQUEST_PUT, transferListenerContainer);
 
         try {
-            s3StorageRepository.put(file, resourceName,transferProgress);
+            TransferDigests transferDigests = new TransferDigests();
+            s3StorageRepository.put(file, resourceName,transferProgress,transferDigests);
+            recordTransferDigests(resourceName, transferDigests, file);
+            recordIndexedPut(resourceName);
             transferListenerContainer.fireTransferCompleted(resource, TransferEvent.REQUEST_PUT);
         } catch (TransferFailedException e) {
             transferListenerContainer.fireTransferError(resource,TransferEvent.REQUEST_PUT,e);
@@ -98,39 +130,100 @@ public class S3StorageWagon extends AbstractStorageWagon {
     @Override
     public boolean getIfNewer(String resourceName, File file, long timeStamp) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
 
-        if(s3StorageRepository.newResourceAvailable(resourceName,timeStamp)) {
-            get(resourceName,file);
-            return true;
-        }
+        Resource resource = new Resource(resourceName);
+        transferListenerContainer.fireTransferInitiated(resource, TransferEvent.REQUEST_GET);
 
-        return false;
+        final TransferProgress transferProgress = new TransferProgressImpl(resource, TransferEvent.REQUEST_GET, transferListenerContainer);
+
+        try {
+            throwIfNotIndexed(resourceName);
+            TransferDigests transferDigests = new TransferDigests();
+            boolean newer = s3StorageRepository.copyIfNewer(resourceName, file, timeStamp,
+                    () -> transferListenerContainer.fireTransferStarted(resource, TransferEvent.REQUEST_GET, file), transferProgress, transferDigests);
+            if (newer) {
+                recordTransferDigests(resourceName, transferDigests, file);
+                transferListenerContainer.fireTransferCompleted(resource, TransferEvent.REQUEST_GET);
+            }
+            return newer;
+        } catch (Exception e) {
+            transferListenerContainer.fireTransferError(resource, TransferEvent.REQUEST_GET, e);
+            throw e;
+        }
     }
 
     @Override
     public void putDirectory(File source, String destination) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
-        Collection<File> allFiles = FileUtils.listFiles(source, null, true);
         String relativeDestination = destination;
         //removes the initial .
         if (destination != null && destination.startsWith(".")){
             relativeDestination = destination.length() == 1 ? "" : destination.substring(1);
         }
-        for (File file : allFiles) {
-            //compute relative path
-            String relativePath = PathUtils.toRelative(source, file.getAbsolutePath());
-            put(file, relativeDestination +"/"+relativePath);
+        final String directoryDestination = relativeDestination;
+
+        try (BoundedExecutor boundedExecutor = new BoundedExecutor("s3-put-directory", resolvePutDirectoryConcurrency());
+             Stream<Path> paths = Files.walk(source.toPath())) {
+
+            Iterator<Path> files = paths.filter(Files::isRegularFile).iterator();
+            while (files.hasNext()) {
+                File file = files.next().toFile();
+                //compute relative path
+                String relativePath = PathUtils.toRelative(source, file.getAbsolutePath());
+                boundedExecutor.submit(() -> put(file, directoryDestination +"/"+relativePath));
+            }
+            boundedExecutor.await();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TransferFailedException) {
+                throw (TransferFailedException) cause;
+            } else if (cause instanceof ResourceDoesNotExistException) {
+                throw (ResourceDoesNotExistException) cause;
+            } else if (cause instanceof AuthorizationException) {
+                throw (AuthorizationException) cause;
+            }
+            throw new TransferFailedException("Could not upload directory "+source.getAbsolutePath(), cause);
+        } catch (IOException | UncheckedIOException e) {
+            throw new TransferFailedException("Could not read directory "+source.getAbsolutePath(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransferFailedException("Interrupted while uploading directory "+source.getAbsolutePath(), e);
+        }
+    }
+
+    private boolean isHierarchicalListing() {
+        return hierarchicalListing == null || hierarchicalListing;
+    }
+
+    private int resolvePutDirectoryConcurrency() {
+        if (putDirectoryConcurrency != null) {
+            return Math.max(1, putDirectoryConcurrency);
+        }
+        String concurrencyProp = System.getProperty(PUT_DIRECTORY_CONCURRENCY_PROP);
+        if (concurrencyProp != null) {
+            return Math.max(1, Integer.valueOf(concurrencyProp));
         }
+        return DEFAULT_PUT_DIRECTORY_CONCURRENCY;
     }
 
     @Override
     public boolean resourceExists(String resourceName) throws TransferFailedException, AuthorizationException {
+        Boolean indexed = indexedExists(resourceName);
+        if (indexed != null) {
+            return indexed;
+        }
         return s3StorageRepository.exists(resourceName);
     }
 
     @Override
     public List<String> getFileList(String s) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
         try {
-            List<String> list = s3StorageRepository.list(s);
-            list = convertS3ListToMavenFileList(list, s);
+            List<String> list = indexedFileList(s);
+            if (list == null) {
+                if (isHierarchicalListing()) {
+                    list = s3StorageRepository.listChildren(s);
+                } else {
+                    list = convertS3ListToMavenFileList(s3StorageRepository.list(s), s);
+                }
+            }
             if (list.isEmpty()){
                 throw new ResourceDoesNotExistException(s);//expected by maven
             }
@@ -180,8 +273,15 @@ public class S3StorageWagon extends AbstractStorageWagon {
         final String directory = containerResolver.resolve(repository);
 
         LOGGER.log(Level.FINER,String.format("Opening connection for bucket %s and directory %s",bucket,directory));
-        s3StorageRepository = new S3StorageRepository(bucket, directory, new PublicReadProperty(publicRepository));
-        s3StorageRepository.connect(authenticationInfo, region, new EndpointProperty(endpoint), new PathStyleEnabledProperty(pathStyleEnabled));
+        s3StorageRepository = new S3StorageRepository(bucket, directory, new PublicReadProperty(publicRepository),
+                new MultipartUploadProperty(multipartThreshold, multipartPartSize, multipartConcurrency),
+                new RangedDownloadProperty(rangedDownloadThreshold, rangedDownloadRangeSize, rangedDownloadConcurrency),
+                new MetadataCacheProperty(getMetadataCacheTtl()));
+        s3StorageRepository.connect(authenticationInfo, region, new EndpointProperty(endpoint), new PathStyleEnabledProperty(pathStyleEnabled),
+                new ClientConfigurationProperty(maxConnections, tcpKeepAlive, socketSendBufferSize, socketReceiveBufferSize,
+                        connectionTtl, connectionMaxIdle, useReaper, getTimeout(), getReadTimeout()));
+
+        openKeyIndex(s3StorageRepository);
 
         sessionListenerContainer.fireSessionLoggedIn();
         sessionListenerContainer.fireSessionOpened();
@@ -190,7 +290,12 @@ public class S3StorageWagon extends AbstractStorageWagon {
     @Override
     public void disconnect() throws ConnectionException {
         sessionListenerContainer.fireSessionDisconnecting();
-        s3StorageRepository.disconnect();
+        try {
+            publishKeyIndex();
+        } finally {
+            s3StorageRepository.disconnect();
+            clearTransferDigests();
+        }
         sessionListenerContainer.fireSessionLoggedOff();
         sessionListenerContainer.fireSessionDisconnected();
     }
@@ -227,4 +332,124 @@ public class S3StorageWagon extends AbstractStorageWagon {
         this.pathStyleEnabled = pathStyleEnabled;
     }
 
+    public Long getMultipartThreshold() {
+        return multipartThreshold;
+    }
+
+    public void setMultipartThreshold(Long multipartThreshold) {
+        this.multipartThreshold = multipartThreshold;
+    }
+
+    public Long getMultipartPartSize() {
+        return multipartPartSize;
+    }
+
+    public void setMultipartPartSize(Long multipartPartSize) {
+        this.multipartPartSize = multipartPartSize;
+    }
+
+    public Integer getMultipartConcurrency() {
+        return multipartConcurrency;
+    }
+
+    public void setMultipartConcurrency(Integer multipartConcurrency) {
+        this.multipartConcurrency = multipartConcurrency;
+    }
+
+    public Long getRangedDownloadThreshold() {
+        return rangedDownloadThreshold;
+    }
+
+    public void setRangedDownloadThreshold(Long rangedDownloadThreshold) {
+        this.rangedDownloadThreshold = rangedDownloadThreshold;
+    }
+
+    public Long getRangedDownloadRangeSize() {
+        return rangedDownloadRangeSize;
+    }
+
+    public void setRangedDownloadRangeSize(Long rangedDownloadRangeSize) {
+        this.rangedDownloadRangeSize = rangedDownloadRangeSize;
+    }
+
+    public Integer getRangedDownloadConcurrency() {
+        return rangedDownloadConcurrency;
+    }
+
+    public void setRangedDownloadConcurrency(Integer rangedDownloadConcurrency) {
+        this.rangedDownloadConcurrency = rangedDownloadConcurrency;
+    }
+
+    public Integer getPutDirectoryConcurrency() {
+        return putDirectoryConcurrency;
+    }
+
+    public void setPutDirectoryConcurrency(Integer putDirectoryConcurrency) {
+        this.putDirectoryConcurrency = putDirectoryConcurrency;
+    }
+
+    public Boolean getHierarchicalListing() {
+        return hierarchicalListing;
+    }
+
+    public void setHierarchicalListing(Boolean hierarchicalListing) {
+        this.hierarchicalListing = hierarchicalListing;
+    }
+
+    public Integer getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(Integer maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public Boolean getTcpKeepAlive() {
+        return tcpKeepAlive;
+    }
+
+    public void setTcpKeepAlive(Boolean tcpKeepAlive) {
+        this.tcpKeepAlive = tcpKeepAlive;
+    }
+
+    public Integer getSocketSendBufferSize() {
+        return socketSendBufferSize;
+    }
+
+    public void setSocketSendBufferSize(Integer socketSendBufferSize) {
+        this.socketSendBufferSize = socketSendBufferSize;
+    }
+
+    public Integer getSocketReceiveBufferSize() {
+        return socketReceiveBufferSize;
+    }
+
+    public void setSocketReceiveBufferSize(Integer socketReceiveBufferSize) {
+        this.socketReceiveBufferSize = socketReceiveBufferSize;
+    }
+
+    public Long getConnectionTtl() {
+        return connectionTtl;
+    }
+
+    public void setConnectionTtl(Long connectionTtl) {
+        this.connectionTtl = connectionTtl;
+    }
+
+    public Long getConnectionMaxIdle() {
+        return connectionMaxIdle;
+    }
+
+    public void setConnectionMaxIdle(Long connectionMaxIdle) {
+        this.connectionMaxIdle = connectionMaxIdle;
+    }
+
+    public Boolean getUseReaper() {
+        return useReaper;
+    }
+
+    public void setUseReaper(Boolean useReaper) {
+        this.useReaper = useReaper;
+    }
+
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.s3.plugin;
+
+import java.io.IOException;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.wagon.authentication.AuthenticationException;
+
+import com.amazonaws.services.s3.S3ClientOptions;
+import com.gkatzioura.maven.cloud.index.KeyIndexProperty;
+import com.gkatzioura.maven.cloud.index.KeyIndexUpdate;
+import com.gkatzioura.maven.cloud.s3.EndpointProperty;
+import com.gkatzioura.maven.cloud.s3.PathStyleEnabledProperty;
+import com.gkatzioura.maven.cloud.s3.S3StorageRepository;
+
+/**
+ * Publishes the keys a goal puts or deletes to the key index of the repository with the base directory in the bucket
+ */
+public final class KeyIndexPublisher {
+
+    private KeyIndexPublisher() {
+    }
+
+    public static KeyIndexUpdate update(String bucket, String baseDirectory) {
+        return new KeyIndexUpdate("s3://" + bucket + (baseDirectory == null || baseDirectory.isEmpty() ? "" : "/" + baseDirectory),
+                baseDirectory, KeyIndexProperty.empty());
+    }
+
+    public static void publish(KeyIndexUpdate keyIndexUpdate, String bucket, String baseDirectory, String region) throws MojoExecutionException {
+        if (keyIndexUpdate.isEmpty()) {
+            return;
+        }
+
+        S3StorageRepository s3StorageRepository = new S3StorageRepository(bucket, baseDirectory == null ? "" : baseDirectory);
+        try {
+            s3StorageRepository.connect(null, region, EndpointProperty.empty(), new PathStyleEnabledProperty(String.valueOf(S3ClientOptions.DEFAULT_PATH_STYLE_ACCESS)));
+            keyIndexUpdate.publish(s3StorageRepository);
+        } catch (AuthenticationException | IOException e) {
+            throw new MojoExecutionException("Could not update the key index of bucket " + bucket, e);
+        } finally {
+            s3StorageRepository.disconnect();
+        }
+    }
+
+}
@@ -16,29 +16,51 @@
 
 package com.gkatzioura.maven.cloud.s3.plugin;
 
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.function.Consumer;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.gkatzioura.maven.cloud.concurrent.DaemonThreadFactory;
 
-public class PrefixKeysIterator implements Iterator<String> {
+/**
+ * Iterates over the objects under a prefix. Listing pages are fetched by a background thread while
+ * the current page is being consumed, holding at most a bounded number of pages ahead.
+ */
+public class PrefixKeysIterator implements Iterator<S3ObjectSummary>, AutoCloseable {
+
+    private static final int DEFAULT_PAGES_AHEAD = 2;
 
     private AmazonS3 amazonS3;
     private String prefix;
     private String bucket;
 
-    private ObjectListing tempListing = null;
-    private List<S3ObjectSummary> currentKeys = new ArrayList<>();
+    private final BlockingQueue<ListingPage> pages;
+    private final Deque<S3ObjectSummary> currentKeys = new ArrayDeque<>();
+
+    private Thread fetcher = null;
+    private boolean exhausted = false;
 
     public PrefixKeysIterator(AmazonS3 amazonS3, String bucket, String prefix) {
+        this(amazonS3, bucket, prefix, DEFAULT_PAGES_AHEAD);
+    }
+
+    /**
+     * @param pagesAhead the maximum number of listing pages fetched ahead of the one being consumed
+     */
+    public PrefixKeysIterator(AmazonS3 amazonS3, String bucket, String prefix, int pagesAhead) {
         this.amazonS3 = amazonS3;
         this.bucket = bucket;
         this.prefix = prefix;
+        this.pages = new ArrayBlockingQueue<>(Math.max(1, pagesAhead));
     }
 
     @Override
@@ -46,29 +68,89 @@ public class PrefixKeysIterator implements Iterator<String> {
         throw new UnsupportedOperationException();
     }
 
-    @Override public void forEachRemaining(Consumer<? super String> action) {
+    @Override public void forEachRemaining(Consumer<? super S3ObjectSummary> action) {
         throw new UnsupportedOperationException();
     }
 
     @Override
     public boolean hasNext() {
-        if(currentKeys.size()>0) {
-            return true;
+        while (currentKeys.isEmpty()) {
+            if(exhausted) {
+                return false;
+            }
+
+            ListingPage listingPage = takePage();
+            if(listingPage.failure != null) {
+                exhausted = true;
+                throw listingPage.failure;
+            }
+
+            currentKeys.addAll(listingPage.objectSummaries);
+            exhausted = listingPage.last;
         }
 
-        fetchKeysIfExist();
-        return currentKeys.size()>0;
+        return true;
     }
 
-    private void fetchKeysIfExist() {
-        if(tempListing==null) {
-            tempListing = getObjectListing();
-            currentKeys.addAll(tempListing.getObjectSummaries());
-        } else {
-            if(tempListing.isTruncated()) {
-                tempListing = amazonS3.listNextBatchOfObjects(tempListing);
-                currentKeys.addAll(tempListing.getObjectSummaries());
+    @Override
+    public S3ObjectSummary next() {
+        if(!hasNext()) {
+            return null;
+        }
+
+        return currentKeys.poll();
+    }
+
+    /**
+     * Stops fetching pages in the background, for iterators that are abandoned before being exhausted
+     */
+    @Override
+    public void close() {
+        if(fetcher != null) {
+            fetcher.interrupt();
+        }
+    }
+
+    private ListingPage takePage() {
+        if(fetcher == null) {
+            fetcher = new DaemonThreadFactory("s3-prefix-listing").newThread(this::fetchPages);
+            fetcher.start();
+        }
+
+        try {
+            return pages.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while listing prefix "+prefix, e);
+        }
+    }
+
+    private void fetchPages() {
+        try {
+            ObjectListing objectListing = getObjectListing();
+
+            while (true) {
+                boolean last = !objectListing.isTruncated();
+                pages.put(new ListingPage(objectListing.getObjectSummaries(), last, null));
+
+                if(last) {
+                    return;
+                }
+
+                objectListing = amazonS3.listNextBatchOfObjects(objectListing);
             }
+        } catch (InterruptedException e) {
+            //closed by the consumer
+        } catch (RuntimeException e) {
+            publishFailure(e);
+        }
+    }
+
+    private void publishFailure(RuntimeException failure) {
+        try {
+            pages.put(new ListingPage(Collections.emptyList(), true, failure));
+        } catch (InterruptedException e) {
+            //closed by the consumer
         }
     }
 
@@ -79,13 +161,17 @@ public class PrefixKeysIterator implements Iterator<String> {
                                             .withPrefix(prefix));
     }
 
-    @Override
-    public String next() {
-        if(!hasNext()) {
-            return null;
-        }
+    private static final class ListingPage {
 
-        return currentKeys.remove(0).getKey();
+        private final List<S3ObjectSummary> objectSummaries;
+        private final boolean last;
+        private final RuntimeException failure;
+
+        private ListingPage(List<S3ObjectSummary> objectSummaries, boolean last, RuntimeException failure) {
+            this.objectSummaries = objectSummaries;
+            this.last = last;
+            this.failure = failure;
+        }
     }
 
 }
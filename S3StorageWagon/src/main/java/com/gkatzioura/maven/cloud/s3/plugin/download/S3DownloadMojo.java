@@ -19,8 +19,10 @@ package com.gkatzioura.maven.cloud.s3.plugin.download;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -38,7 +40,9 @@ import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.s3.S3ClientOptions;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.gkatzioura.maven.cloud.KeyIteratorConcated;
+import com.gkatzioura.maven.cloud.concurrent.BoundedExecutor;
 import com.gkatzioura.maven.cloud.s3.EndpointProperty;
 import com.gkatzioura.maven.cloud.s3.PathStyleEnabledProperty;
 import com.gkatzioura.maven.cloud.s3.plugin.PrefixKeysIterator;
@@ -59,7 +63,10 @@ public class S3DownloadMojo extends AbstractMojo {
     @Parameter(property = "s3-download.region")
     private String region;
 
-    private static final String DIRECTORY_CONTENT_TYPE = "application/x-directory";
+    @Parameter(property = "s3-download.concurrency", defaultValue = "4")
+    private int concurrency = DEFAULT_CONCURRENCY;
+
+    private static final int DEFAULT_CONCURRENCY = 4;
 
     private static final Logger LOGGER = Logger.getLogger(S3DownloadMojo.class.getName());
 
@@ -73,6 +80,11 @@ public class S3DownloadMojo extends AbstractMojo {
         this.region = region;
     }
 
+    public S3DownloadMojo(String bucket, List<String> keys, String downloadPath, String region, int concurrency) {
+        this(bucket, keys, downloadPath, region);
+        this.concurrency = concurrency;
+    }
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         AmazonS3 amazonS3;
@@ -93,19 +105,33 @@ public class S3DownloadMojo extends AbstractMojo {
             return;
         }
 
-        List<Iterator<String>> prefixKeysIterators = keys.stream()
+        List<PrefixKeysIterator> prefixKeysIterators = keys.stream()
                                                  .map(pi -> new PrefixKeysIterator(amazonS3, bucket, pi))
                                                  .collect(Collectors.toList());
-        Iterator<String> keyIteratorConcated = new KeyIteratorConcated(prefixKeysIterators);
-
-        while (keyIteratorConcated.hasNext()) {
-
-            String key = keyIteratorConcated.next();
-            downloadFile(amazonS3,key);
+        Iterator<S3ObjectSummary> keyIteratorConcated = new KeyIteratorConcated<>(new ArrayList<Iterator<S3ObjectSummary>>(prefixKeysIterators));
+
+        //the listing keeps feeding keys while the downloads of the previous ones are still in flight
+        try (BoundedExecutor boundedExecutor = new BoundedExecutor("s3-download", Math.max(1, concurrency), Math.max(1, concurrency) * 2)) {
+            while (keyIteratorConcated.hasNext()) {
+
+                S3ObjectSummary objectSummary = keyIteratorConcated.next();
+                boundedExecutor.submit(() -> downloadFile(amazonS3,objectSummary));
+            }
+            boundedExecutor.await();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MojoExecutionException) {
+                throw (MojoExecutionException) e.getCause();
+            }
+            throw new MojoExecutionException("Could not download s3 files", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while downloading s3 files", e);
+        } finally {
+            prefixKeysIterators.forEach(PrefixKeysIterator::close);
         }
     }
 
-    private void downloadSingleFile(AmazonS3 amazonS3,String key) {
+    private void downloadSingleFile(AmazonS3 amazonS3,String key) throws MojoExecutionException {
         File file = new File(downloadPath);
 
         if(file.getParentFile()!=null) {
@@ -120,11 +146,19 @@ public class S3DownloadMojo extends AbstractMojo {
             IOUtils.copy(s3ObjectInputStream,fileOutputStream);
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Could not download s3 file");
-            e.printStackTrace();
+            throw new MojoExecutionException("Could not download s3 file "+key, e);
         }
     }
 
-    private void downloadFile(AmazonS3 amazonS3,String key) {
+    private void downloadFile(AmazonS3 amazonS3,S3ObjectSummary objectSummary) throws MojoExecutionException {
+
+        final String key = objectSummary.getKey();
+
+        //directory markers are decided from the listing, so no request is spent on them
+        if(isDirectory(objectSummary)) {
+            new File(createFullFilePath(key)).mkdirs();
+            return;
+        }
 
         File file = new File(createFullFilePath(key));
 
@@ -132,19 +166,28 @@ public class S3DownloadMojo extends AbstractMojo {
             file.getParentFile().mkdirs();
         }
 
-        S3Object s3Object = amazonS3.getObject(bucket, key);
-
-        if(isDirectory(s3Object)) {
+        if(objectSummary.getSize()==0) {
+            createEmptyFile(file, key);
             return;
         }
 
+        S3Object s3Object = amazonS3.getObject(bucket, key);
+
         try(S3ObjectInputStream s3ObjectInputStream = s3Object.getObjectContent();
             FileOutputStream fileOutputStream = new FileOutputStream(file)
         ) {
             IOUtils.copy(s3ObjectInputStream,fileOutputStream);
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Could not download s3 file");
-            e.printStackTrace();
+            throw new MojoExecutionException("Could not download s3 file "+key, e);
+        }
+    }
+
+    private void createEmptyFile(File file, String key) throws MojoExecutionException {
+        try {
+            new FileOutputStream(file).close();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not create empty file for s3 key "+key, e);
         }
     }
 
@@ -154,8 +197,8 @@ public class S3DownloadMojo extends AbstractMojo {
         return fullPath;
     }
 
-    private final boolean isDirectory(S3Object s3Object) {
-        return s3Object.getObjectMetadata().getContentType().equals(DIRECTORY_CONTENT_TYPE);
+    private final boolean isDirectory(S3ObjectSummary objectSummary) {
+        return objectSummary.getKey().endsWith("/") && objectSummary.getSize()==0;
     }
 
 
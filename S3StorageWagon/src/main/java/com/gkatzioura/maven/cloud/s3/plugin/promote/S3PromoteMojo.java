@@ -0,0 +1,192 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.s3.plugin.promote;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Logger;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.wagon.authentication.AuthenticationException;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.S3ClientOptions;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.CopyPartRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.gkatzioura.maven.cloud.concurrent.BoundedExecutor;
+import com.gkatzioura.maven.cloud.index.KeyIndexUpdate;
+import com.gkatzioura.maven.cloud.s3.EndpointProperty;
+import com.gkatzioura.maven.cloud.s3.PathStyleEnabledProperty;
+import com.gkatzioura.maven.cloud.s3.plugin.KeyIndexPublisher;
+import com.gkatzioura.maven.cloud.s3.plugin.PrefixKeysIterator;
+import com.gkatzioura.maven.cloud.s3.utils.S3Connect;
+
+/**
+ * Copies every key under a prefix to another bucket and prefix with server side copies,
+ * so that promoting a release never moves its bytes through the build host. The copied keys are added to the key index
+ * of the destination repository with the index base directory.
+ */
+@Mojo(name = "s3-promote")
+public class S3PromoteMojo extends AbstractMojo {
+
+    /**
+     * The largest object a single CopyObject request accepts, larger ones are copied part by part
+     */
+    private static final long MAX_SINGLE_COPY_SIZE = 5L * 1024 * 1024 * 1024;
+    private static final long COPY_PART_SIZE = 512L * 1024 * 1024;
+    private static final int MAX_PARTS = 10000;
+    private static final String[] COPIED_HEADERS = {Headers.CONTENT_TYPE, Headers.CONTENT_ENCODING, Headers.CONTENT_DISPOSITION,
+            Headers.CONTENT_LANGUAGE, Headers.CACHE_CONTROL, Headers.EXPIRES};
+
+    @Parameter(property = "s3-promote.sourceBucket")
+    private String sourceBucket;
+
+    @Parameter(property = "s3-promote.sourcePrefix", defaultValue = "")
+    private String sourcePrefix = "";
+
+    @Parameter(property = "s3-promote.destinationBucket")
+    private String destinationBucket;
+
+    @Parameter(property = "s3-promote.destinationPrefix", defaultValue = "")
+    private String destinationPrefix = "";
+
+    @Parameter(property = "s3-promote.region")
+    private String region;
+
+    @Parameter(property = "s3-promote.concurrency", defaultValue = "8")
+    private int concurrency = 8;
+
+    @Parameter(property = "s3-promote.indexBaseDirectory", defaultValue = "")
+    private String indexBaseDirectory = "";
+
+    private static final Logger LOGGER = Logger.getLogger(S3PromoteMojo.class.getName());
+
+    public S3PromoteMojo() {
+    }
+
+    public S3PromoteMojo(String sourceBucket, String sourcePrefix, String destinationBucket, String destinationPrefix, String region) {
+        this.sourceBucket = sourceBucket;
+        this.sourcePrefix = sourcePrefix;
+        this.destinationBucket = destinationBucket;
+        this.destinationPrefix = destinationPrefix;
+        this.region = region;
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        AmazonS3 amazonS3;
+
+        try {
+            amazonS3 = S3Connect.connect(null, region, EndpointProperty.empty(), new PathStyleEnabledProperty(String.valueOf(S3ClientOptions.DEFAULT_PATH_STYLE_ACCESS)));
+        } catch (AuthenticationException e) {
+            throw new MojoExecutionException("Unable to authenticate to S3 with the available credentials", e);
+        }
+
+        KeyIndexUpdate keyIndexUpdate = KeyIndexPublisher.update(destinationBucket, indexBaseDirectory);
+
+        try (BoundedExecutor boundedExecutor = new BoundedExecutor("s3-promote", Math.max(1, concurrency), Math.max(1, concurrency) * 2);
+             PrefixKeysIterator prefixKeysIterator = new PrefixKeysIterator(amazonS3, sourceBucket, sourcePrefix)) {
+
+            while (prefixKeysIterator.hasNext()) {
+                S3ObjectSummary objectSummary = prefixKeysIterator.next();
+                boundedExecutor.submit(() -> keyIndexUpdate.added(copy(amazonS3, objectSummary)));
+            }
+            boundedExecutor.await();
+            KeyIndexPublisher.publish(keyIndexUpdate, destinationBucket, indexBaseDirectory, region);
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException("Could not promote " + sourceBucket + "/" + sourcePrefix, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while promoting " + sourceBucket + "/" + sourcePrefix, e);
+        } finally {
+            amazonS3.shutdown();
+        }
+    }
+
+    /**
+     * @return the destination key
+     */
+    private String copy(AmazonS3 amazonS3, S3ObjectSummary objectSummary) {
+        String sourceKey = objectSummary.getKey();
+        String destinationKey = destinationPrefix + sourceKey.substring(sourcePrefix.length());
+
+        LOGGER.info("Copying " + sourceBucket + "/" + sourceKey + " to " + destinationBucket + "/" + destinationKey);
+
+        if (objectSummary.getSize() <= MAX_SINGLE_COPY_SIZE) {
+            amazonS3.copyObject(new CopyObjectRequest(sourceBucket, sourceKey, destinationBucket, destinationKey));
+        } else {
+            copyParts(amazonS3, sourceKey, destinationKey, objectSummary.getSize());
+        }
+        return destinationKey;
+    }
+
+    private void copyParts(AmazonS3 amazonS3, String sourceKey, String destinationKey, long size) {
+        long partSize = Math.max(COPY_PART_SIZE, (size + MAX_PARTS - 1) / MAX_PARTS);
+        ObjectMetadata objectMetadata = copiedMetadata(amazonS3.getObjectMetadata(sourceBucket, sourceKey));
+        String uploadId = amazonS3.initiateMultipartUpload(new InitiateMultipartUploadRequest(destinationBucket, destinationKey, objectMetadata)).getUploadId();
+
+        try {
+            List<PartETag> partETags = new ArrayList<>();
+            int partNumber = 1;
+
+            for (long position = 0; position < size; position += partSize, partNumber++) {
+                CopyPartRequest copyPartRequest = new CopyPartRequest()
+                        .withSourceBucketName(sourceBucket)
+                        .withSourceKey(sourceKey)
+                        .withDestinationBucketName(destinationBucket)
+                        .withDestinationKey(destinationKey)
+                        .withUploadId(uploadId)
+                        .withPartNumber(partNumber)
+                        .withFirstByte(position)
+                        .withLastByte(Math.min(position + partSize, size) - 1);
+                partETags.add(amazonS3.copyPart(copyPartRequest).getPartETag());
+            }
+
+            amazonS3.completeMultipartUpload(new CompleteMultipartUploadRequest(destinationBucket, destinationKey, uploadId, partETags));
+        } catch (RuntimeException e) {
+            amazonS3.abortMultipartUpload(new AbortMultipartUploadRequest(destinationBucket, destinationKey, uploadId));
+            throw e;
+        }
+    }
+
+    /**
+     * The metadata a CopyObject request would carry over, the part copies supply the content itself
+     */
+    private static ObjectMetadata copiedMetadata(ObjectMetadata sourceMetadata) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        for (String header : COPIED_HEADERS) {
+            Object value = sourceMetadata.getRawMetadataValue(header);
+            if (value != null) {
+                objectMetadata.setHeader(header, value);
+            }
+        }
+        objectMetadata.setUserMetadata(sourceMetadata.getUserMetadata());
+        return objectMetadata;
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gkatzioura.maven.cloud.s3.plugin.prune;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.wagon.authentication.AuthenticationException;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.S3ClientOptions;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.gkatzioura.maven.cloud.index.KeyIndexUpdate;
+import com.gkatzioura.maven.cloud.prune.BatchDeleter;
+import com.gkatzioura.maven.cloud.prune.PruneSelector;
+import com.gkatzioura.maven.cloud.s3.EndpointProperty;
+import com.gkatzioura.maven.cloud.s3.PathStyleEnabledProperty;
+import com.gkatzioura.maven.cloud.s3.plugin.KeyIndexPublisher;
+import com.gkatzioura.maven.cloud.s3.plugin.PrefixKeysIterator;
+import com.gkatzioura.maven.cloud.s3.utils.S3Connect;
+
+/**
+ * Deletes the keys under the given prefixes which are older than a number of days, or which belong to timestamped
+ * SNAPSHOT builds beyond the newest ones kept, using multi-object deletes. The deleted keys are removed from the key index
+ * of the repository with the index base directory.
+ */
+@Mojo(name = "s3-prune")
+public class S3PruneMojo extends AbstractMojo {
+
+    /**
+     * The maximum number of keys accepted by a single multi-object delete
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    @Parameter(property = "s3-prune.bucket")
+    private String bucket;
+
+    @Parameter(property = "s3-prune.keys")
+    private List<String> keys;
+
+    @Parameter(property = "s3-prune.region")
+    private String region;
+
+    @Parameter(property = "s3-prune.olderThanDays")
+    private Integer olderThanDays;
+
+    @Parameter(property = "s3-prune.keepLatest")
+    private Integer keepLatest;
+
+    @Parameter(property = "s3-prune.dryRun", defaultValue = "false")
+    private boolean dryRun;
+
+    @Parameter(property = "s3-prune.concurrency", defaultValue = "4")
+    private int concurrency = 4;
+
+    @Parameter(property = "s3-prune.indexBaseDirectory", defaultValue = "")
+    private String indexBaseDirectory = "";
+
+    public S3PruneMojo() {
+    }
+
+    public S3PruneMojo(String bucket, List<String> keys, String region, Integer olderThanDays, Integer keepLatest, boolean dryRun) {
+        this.bucket = bucket;
+        this.keys = keys;
+        this.region = region;
+        this.olderThanDays = olderThanDays;
+        this.keepLatest = keepLatest;
+        this.dryRun = dryRun;
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (olderThanDays == null && keepLatest == null) {
+            throw new MojoExecutionException("Set olderThanDays or keepLatest to select the keys to prune");
+        }
+
+        AmazonS3 amazonS3;
+
+        try {
+            amazonS3 = S3Connect.connect(null, region, EndpointProperty.empty(), new PathStyleEnabledProperty(String.valueOf(S3ClientOptions.DEFAULT_PATH_STYLE_ACCESS)));
+        } catch (AuthenticationException e) {
+            throw new MojoExecutionException("Unable to authenticate to S3 with the available credentials", e);
+        }
+
+        Long cutoff = olderThanDays == null ? null : System.currentTimeMillis() - TimeUnit.DAYS.toMillis(olderThanDays);
+
+        KeyIndexUpdate keyIndexUpdate = KeyIndexPublisher.update(bucket, indexBaseDirectory);
+
+        try (BatchDeleter batchDeleter = new BatchDeleter("s3-prune", BATCH_SIZE, concurrency, dryRun, batch -> delete(amazonS3, batch), keyIndexUpdate)) {
+            for (String prefix : keys) {
+                PruneSelector pruneSelector = new PruneSelector(cutoff, keepLatest);
+
+                try (PrefixKeysIterator prefixKeysIterator = new PrefixKeysIterator(amazonS3, bucket, prefix)) {
+                    while (prefixKeysIterator.hasNext()) {
+                        S3ObjectSummary objectSummary = prefixKeysIterator.next();
+                        batchDeleter.addAll(pruneSelector.offer(objectSummary.getKey(), objectSummary.getLastModified().getTime()));
+                    }
+                }
+
+                batchDeleter.addAll(pruneSelector.finish());
+            }
+            batchDeleter.finish();
+            KeyIndexPublisher.publish(keyIndexUpdate, bucket, indexBaseDirectory, region);
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException("Could not prune bucket " + bucket, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while pruning bucket " + bucket, e);
+        } finally {
+            amazonS3.shutdown();
+        }
+    }
+
+    private void delete(AmazonS3 amazonS3, List<String> batch) throws MojoExecutionException {
+        List<DeleteObjectsRequest.KeyVersion> keyVersions = batch.stream()
+                                                                 .map(DeleteObjectsRequest.KeyVersion::new)
+                                                                 .collect(Collectors.toList());
+        try {
+            amazonS3.deleteObjects(new DeleteObjectsRequest(bucket).withKeys(keyVersions).withQuiet(true));
+        } catch (MultiObjectDeleteException e) {
+            throw new MojoExecutionException("Could not delete " + e.getErrors().size() + " of " + batch.size() + " keys, first failure: "
+                    + e.getErrors().get(0).getKey() + " " + e.getErrors().get(0).getMessage(), e);
+        }
+    }
+
+}
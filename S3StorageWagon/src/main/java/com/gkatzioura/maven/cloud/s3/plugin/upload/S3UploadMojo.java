@@ -35,8 +35,10 @@ import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.S3ClientOptions;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 
+import com.gkatzioura.maven.cloud.index.KeyIndexUpdate;
 import com.gkatzioura.maven.cloud.s3.EndpointProperty;
 import com.gkatzioura.maven.cloud.s3.PathStyleEnabledProperty;
+import com.gkatzioura.maven.cloud.s3.plugin.KeyIndexPublisher;
 import com.gkatzioura.maven.cloud.s3.utils.S3Connect;
 
 @Mojo(name = "s3-upload")
@@ -54,6 +56,9 @@ public class S3UploadMojo extends AbstractMojo {
     @Parameter(property = "s3-upload.region")
     private String region;
 
+    @Parameter(property = "s3-upload.indexBaseDirectory", defaultValue = "")
+    private String indexBaseDirectory = "";
+
     public S3UploadMojo() {
     }
 
@@ -95,24 +100,29 @@ public class S3UploadMojo extends AbstractMojo {
                     e);
         }
 
+        KeyIndexUpdate keyIndexUpdate = KeyIndexPublisher.update(bucket, indexBaseDirectory);
+
         if(isDirectory()){
             List<String> filesToUpload = findFilesToUpload(path);
 
             for(String fileToUpload: filesToUpload) {
-                keyUpload(amazonS3, generateKeyName(fileToUpload), new File(fileToUpload));
+                keyUpload(amazonS3, generateKeyName(fileToUpload), new File(fileToUpload), keyIndexUpdate);
             }
         } else {
-            keyUpload(amazonS3, keyIfNull(), new File(path));
+            keyUpload(amazonS3, keyIfNull(), new File(path), keyIndexUpdate);
         }
+
+        KeyIndexPublisher.publish(keyIndexUpdate, bucket, indexBaseDirectory, region);
     }
 
-    private void keyUpload(AmazonS3 amazonS3, String keyName, File file) throws MojoExecutionException {
+    private void keyUpload(AmazonS3 amazonS3, String keyName, File file, KeyIndexUpdate keyIndexUpdate) throws MojoExecutionException {
         try (InputStream inputStream = new FileInputStream(file)) {
             ObjectMetadata objectMetadata = new ObjectMetadata();
             objectMetadata.setContentLength(file.length());
 
             PutObjectRequest putObjectRequest = new PutObjectRequest(bucket, keyName, inputStream, objectMetadata);
             amazonS3.putObject(putObjectRequest);
+            keyIndexUpdate.added(keyName);
         } catch (IOException e) {
             throw new MojoExecutionException("Failed to upload mojo",e);
         }
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.s3.utils;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.maven.wagon.authentication.AuthenticationException;
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.gkatzioura.maven.cloud.concurrent.DaemonThreadFactory;
+import com.gkatzioura.maven.cloud.s3.ClientConfigurationProperty;
+import com.gkatzioura.maven.cloud.s3.EndpointProperty;
+import com.gkatzioura.maven.cloud.s3.PathStyleEnabledProperty;
+
+/**
+ * Process wide cache of {@link AmazonS3} clients, so that wagons connecting with the same credentials, region,
+ * endpoint, path-style and client configuration share one client and its connection pool.
+ * A client is reference counted and shut down once every user released it and it stayed idle for the idle timeout.
+ */
+public class S3ClientCache {
+
+    private static final Logger LOGGER = Logger.getLogger(S3ClientCache.class.getName());
+
+    private static final String S3_CLIENT_IDLE_TIMEOUT = "S3_CLIENT_IDLE_TIMEOUT";
+
+    public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+
+    private static final S3ClientCache INSTANCE = new S3ClientCache(idleTimeout());
+
+    private final long idleTimeoutMillis;
+    private final Map<ClientKey, CachedClient> clients = new HashMap<>();
+    private final Map<AmazonS3, CachedClient> leases = new IdentityHashMap<>();
+    private ScheduledThreadPoolExecutor reaper;
+
+    S3ClientCache(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public static S3ClientCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the cached client for the key, creating it with the factory when there is none.
+     * Every call must be matched by a {@link #release(AmazonS3)}.
+     */
+    public synchronized AmazonS3 acquire(ClientKey key, ClientFactory factory) throws AuthenticationException {
+        CachedClient cachedClient = clients.get(key);
+
+        if (cachedClient == null) {
+            cachedClient = new CachedClient(key, factory.create());
+            clients.put(key, cachedClient);
+            leases.put(cachedClient.amazonS3, cachedClient);
+        } else {
+            LOGGER.log(Level.FINER, "Reusing cached S3 client");
+        }
+
+        if (cachedClient.idleShutdown != null) {
+            cachedClient.idleShutdown.cancel(false);
+            cachedClient.idleShutdown = null;
+        }
+
+        cachedClient.references++;
+        return cachedClient.amazonS3;
+    }
+
+    /**
+     * Releases a client returned by {@link #acquire(ClientKey, ClientFactory)}.
+     */
+    public synchronized void release(AmazonS3 amazonS3) {
+        CachedClient cachedClient = leases.get(amazonS3);
+
+        if (cachedClient == null || cachedClient.references == 0) {
+            LOGGER.log(Level.WARNING, "Released an S3 client that is not in use");
+            return;
+        }
+
+        if (--cachedClient.references > 0) {
+            return;
+        }
+
+        if (idleTimeoutMillis <= 0) {
+            shutdown(cachedClient);
+        } else {
+            cachedClient.idleShutdown = reaper().schedule(() -> shutdownIfIdle(cachedClient), idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    synchronized int size() {
+        return clients.size();
+    }
+
+    private synchronized void shutdownIfIdle(CachedClient cachedClient) {
+        if (cachedClient.references == 0 && clients.get(cachedClient.key) == cachedClient) {
+            shutdown(cachedClient);
+        }
+    }
+
+    private void shutdown(CachedClient cachedClient) {
+        clients.remove(cachedClient.key);
+        leases.remove(cachedClient.amazonS3);
+        cachedClient.idleShutdown = null;
+
+        LOGGER.log(Level.FINER, "Shutting down idle S3 client");
+        cachedClient.amazonS3.shutdown();
+    }
+
+    private ScheduledThreadPoolExecutor reaper() {
+        if (reaper == null) {
+            reaper = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("s3-client-reaper"));
+            reaper.setRemoveOnCancelPolicy(true);
+        }
+        return reaper;
+    }
+
+    private static long idleTimeout() {
+        String idleTimeoutProp = System.getProperty(S3_CLIENT_IDLE_TIMEOUT);
+        if (idleTimeoutProp != null) {
+            return Long.valueOf(idleTimeoutProp);
+        }
+        return DEFAULT_IDLE_TIMEOUT;
+    }
+
+    @FunctionalInterface
+    public interface ClientFactory {
+
+        AmazonS3 create() throws AuthenticationException;
+
+    }
+
+    /**
+     * The settings a client was built with. Clients are only shared between connections with equal keys.
+     */
+    public static final class ClientKey {
+
+        private final String userName;
+        private final String password;
+        private final String region;
+        private final String endpoint;
+        private final boolean pathStyle;
+        private final ClientConfigurationProperty clientConfiguration;
+
+        ClientKey(String userName, String password, String region, String endpoint, boolean pathStyle, ClientConfigurationProperty clientConfiguration) {
+            this.userName = userName;
+            this.password = password;
+            this.region = region;
+            this.endpoint = endpoint;
+            this.pathStyle = pathStyle;
+            this.clientConfiguration = clientConfiguration;
+        }
+
+        public static ClientKey of(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, ClientConfigurationProperty clientConfiguration) {
+            String userName = authenticationInfo == null ? null : authenticationInfo.getUserName();
+            String password = authenticationInfo == null ? null : authenticationInfo.getPassword();
+            return new ClientKey(userName, password, region, endpoint.get(), pathStyle.get(), clientConfiguration);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ClientKey that = (ClientKey) o;
+            return pathStyle == that.pathStyle
+                    && Objects.equals(userName, that.userName)
+                    && Objects.equals(password, that.password)
+                    && Objects.equals(region, that.region)
+                    && Objects.equals(endpoint, that.endpoint)
+                    && Objects.equals(clientConfiguration, that.clientConfiguration);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userName, password, region, endpoint, pathStyle, clientConfiguration);
+        }
+
+    }
+
+    private static final class CachedClient {
+
+        private final ClientKey key;
+        private final AmazonS3 amazonS3;
+        private int references;
+        private ScheduledFuture<?> idleShutdown;
+
+        private CachedClient(ClientKey key, AmazonS3 amazonS3) {
+            this.key = key;
+            this.amazonS3 = amazonS3;
+        }
+
+    }
+
+}
@@ -8,10 +8,13 @@
  */
 package com.gkatzioura.maven.cloud.s3.utils;
 
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.SdkClientException;
 import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.retry.PredefinedRetryPolicies;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.gkatzioura.maven.cloud.s3.ClientConfigurationProperty;
 import com.gkatzioura.maven.cloud.s3.CredentialsFactory;
 import com.gkatzioura.maven.cloud.s3.EndpointProperty;
 import com.gkatzioura.maven.cloud.s3.PathStyleEnabledProperty;
@@ -46,12 +49,28 @@ public class S3Connect {
      *                  passed is in a path-style configuration. See
      *                  <a href="https://docs.aws.amazon.com/AmazonS3/latest/dev/UsingBucket.html#access-bucket-intro">Accessing a Bucket in the S3 documentation</a>.
      * @return An instance of {@link AmazonS3} that can be used to send and receive data to the intended endpoint/bucket.
+     *         Unlike the clients of the repository, it retries failed requests with the SDK's default retry policy.
      * @throws AuthenticationException if the passed credentials are invalid for connecting to the intended endpoint/bucket.
      */
     public static AmazonS3 connect(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle) throws AuthenticationException {
+        return connect(authenticationInfo, region, endpoint, pathStyle,
+                ClientConfigurationProperty.empty().get().withRetryPolicy(PredefinedRetryPolicies.DEFAULT));
+    }
+
+    /**
+     * Same as {@link #connect(AuthenticationInfo, String, EndpointProperty, PathStyleEnabledProperty)} with the
+     * connection pool and socket settings of the client taken from {@code clientConfiguration}.
+     *
+     * @throws AuthenticationException if the passed credentials are invalid for connecting to the intended endpoint/bucket.
+     */
+    public static AmazonS3 connect(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, ClientConfigurationProperty clientConfiguration) throws AuthenticationException {
+        return connect(authenticationInfo, region, endpoint, pathStyle, clientConfiguration.get());
+    }
+
+    private static AmazonS3 connect(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, ClientConfiguration clientConfiguration) throws AuthenticationException {
         AmazonS3ClientBuilder builder = null;
         try {
-            builder = createAmazonS3ClientBuilder(authenticationInfo, region, endpoint, pathStyle);
+            builder = createAmazonS3ClientBuilder(authenticationInfo, region, endpoint, pathStyle, clientConfiguration);
 
             AmazonS3 amazonS3 = builder.build();
 
@@ -77,11 +96,34 @@ public class S3Connect {
         }
     }
 
-    private static AmazonS3ClientBuilder createAmazonS3ClientBuilder(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle) {
+    /**
+     * Same as {@link #connect(AuthenticationInfo, String, EndpointProperty, PathStyleEnabledProperty, ClientConfigurationProperty)}
+     * but returns a client shared through the {@link S3ClientCache} with every other connection using the same settings.
+     * The client must be handed back with {@link #release(AmazonS3)} instead of being shut down.
+     *
+     * @throws AuthenticationException if the passed credentials are invalid for connecting to the intended endpoint/bucket.
+     */
+    public static AmazonS3 acquire(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, ClientConfigurationProperty clientConfiguration) throws AuthenticationException {
+        return S3ClientCache.getInstance().acquire(S3ClientCache.ClientKey.of(authenticationInfo, region, endpoint, pathStyle, clientConfiguration),
+                () -> connect(authenticationInfo, region, endpoint, pathStyle, clientConfiguration));
+    }
+
+    /**
+     * Releases a client returned by {@link #acquire(AuthenticationInfo, String, EndpointProperty, PathStyleEnabledProperty, ClientConfigurationProperty)}.
+     *
+     * @param amazonS3 the client no longer used by the caller
+     */
+    public static void release(AmazonS3 amazonS3) {
+        S3ClientCache.getInstance().release(amazonS3);
+    }
+
+    private static AmazonS3ClientBuilder createAmazonS3ClientBuilder(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, ClientConfiguration clientConfiguration) {
         final S3StorageRegionProviderChain regionProvider = new S3StorageRegionProviderChain(region);
 
         AmazonS3ClientBuilder builder;
-        builder = AmazonS3ClientBuilder.standard().withCredentials(new CredentialsFactory().create(authenticationInfo));
+        builder = AmazonS3ClientBuilder.standard()
+                .withCredentials(new CredentialsFactory().create(authenticationInfo))
+                .withClientConfiguration(clientConfiguration);
 
         if (endpoint.isPresent()){
             builder.setEndpointConfiguration( new AwsClientBuilder.EndpointConfiguration(endpoint.get(), builder.getRegion()));
@@ -0,0 +1,156 @@
+package com.gkatzioura.maven.cloud.s3;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.gkatzioura.maven.cloud.retry.AdaptiveRateLimiter;
+import com.gkatzioura.maven.cloud.retry.RetryPolicy;
+import com.gkatzioura.maven.cloud.retry.RetryProperty;
+import com.gkatzioura.maven.cloud.transfer.ResumableDownloadProperty;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class S3RangedDownloadTest {
+
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+    private static final String ETAG = "etag";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final AmazonS3 amazonS3 = mock(AmazonS3.class);
+    private final AtomicLong progress = new AtomicLong();
+    private final TransferProgress transferProgress = (buffer, length) -> progress.addAndGet(length);
+
+    @Test
+    public void testFailedRangesResumeFromTheirWrittenBytes() throws IOException {
+        List<Long> rangeStarts = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean throttled = new AtomicBoolean();
+        when(amazonS3.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            Assert.assertEquals(Arrays.asList(ETAG), request.getMatchingETagConstraints());
+            long start = request.getRange()[0];
+            long end = request.getRange()[1];
+            rangeStarts.add(start);
+            //the third range is throttled once
+            if (start == 8 && throttled.compareAndSet(false, true)) {
+                AmazonS3Exception slowDown = new AmazonS3Exception("Slow Down");
+                slowDown.setStatusCode(503);
+                slowDown.setErrorCode("SlowDown");
+                throw slowDown;
+            }
+            //the second range fails once after a byte
+            int failAfter = start == 4 ? 1 : -1;
+            return s3Object(start, end, failAfter);
+        });
+
+        File destination = new File(temporaryFolder.getRoot(), "artifact.jar");
+        new S3RangedDownload(amazonS3, rangedDownloadProperty(), new ResumableDownloadProperty(2), retryPolicy())
+                .download(s3Object(0, CONTENT.length - 1, 2), destination, transferProgress);
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+        Assert.assertEquals(CONTENT.length, progress.get());
+        //the first range is resumed from its third byte, the second from its second one and the third is retried
+        Collections.sort(rangeStarts);
+        Assert.assertEquals(Arrays.asList(2L, 4L, 5L, 8L, 8L), rangeStarts);
+        Assert.assertFalse(new File(temporaryFolder.getRoot(), "artifact.jar.part").exists());
+    }
+
+    @Test
+    public void testDestinationIsUntouchedWhenAttemptsAreExhausted() throws IOException {
+        when(amazonS3.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            return s3Object(request.getRange()[0], request.getRange()[1], 0);
+        });
+
+        File destination = temporaryFolder.newFile("artifact.jar");
+        Files.write(destination.toPath(), "previous".getBytes(StandardCharsets.US_ASCII));
+
+        try {
+            new S3RangedDownload(amazonS3, rangedDownloadProperty(), new ResumableDownloadProperty(1), retryPolicy())
+                    .download(s3Object(0, CONTENT.length - 1, -1), destination, transferProgress);
+            Assert.fail("Download should have failed");
+        } catch (IOException e) {
+            //expected
+        }
+
+        Assert.assertEquals("previous", new String(Files.readAllBytes(destination.toPath()), StandardCharsets.US_ASCII));
+        Assert.assertFalse(new File(temporaryFolder.getRoot(), "artifact.jar.part").exists());
+    }
+
+    private RetryPolicy retryPolicy() {
+        return new RetryPolicy(new RetryProperty(3, 0L, 0L), new S3RetryClassifier(), AdaptiveRateLimiter.forRepository("s3://ranged-download-test"));
+    }
+
+    /**
+     * Ranges of 4 bytes, below the minimum range size a property accepts
+     */
+    private RangedDownloadProperty rangedDownloadProperty() {
+        RangedDownloadProperty rangedDownloadProperty = mock(RangedDownloadProperty.class);
+        when(rangedDownloadProperty.getRangeSize()).thenReturn(4L);
+        when(rangedDownloadProperty.getConcurrency()).thenReturn(2);
+        return rangedDownloadProperty;
+    }
+
+    /**
+     * @param failAfter the number of bytes after which the stream fails, -1 for a stream that does not fail
+     */
+    private S3Object s3Object(long start, long end, int failAfter) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setHeader("ETag", ETAG);
+        objectMetadata.setContentLength(CONTENT.length);
+
+        ByteArrayInputStream range = new ByteArrayInputStream(CONTENT, (int) start, (int) (end - start + 1));
+        InputStream inputStream = new InputStream() {
+            private int read;
+
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (failAfter >= 0 && read >= failAfter) {
+                    throw new IOException("Connection reset");
+                }
+                int result = range.read(b, off, failAfter >= 0 ? Math.min(len, failAfter - read) : len);
+                read += Math.max(result, 0);
+                return result;
+            }
+        };
+
+        S3Object s3Object = new S3Object();
+        s3Object.setBucketName("bucket");
+        s3Object.setKey("artifact.jar");
+        s3Object.setObjectMetadata(objectMetadata);
+        s3Object.setObjectContent(new S3ObjectInputStream(inputStream, null));
+        return s3Object;
+    }
+
+}
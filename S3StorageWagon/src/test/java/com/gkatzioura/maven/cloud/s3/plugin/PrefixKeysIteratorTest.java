@@ -0,0 +1,70 @@
+package com.gkatzioura.maven.cloud.s3.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PrefixKeysIteratorTest {
+
+    @Test
+    public void testIteratesAllPagesInOrder() {
+        AmazonS3 amazonS3 = mock(AmazonS3.class);
+        ObjectListing first = listing(true, "a", "b");
+        ObjectListing second = listing(true, "c");
+        ObjectListing third = listing(false, "d", "e");
+
+        when(amazonS3.listObjects(any(ListObjectsRequest.class))).thenReturn(first);
+        when(amazonS3.listNextBatchOfObjects(first)).thenReturn(second);
+        when(amazonS3.listNextBatchOfObjects(second)).thenReturn(third);
+
+        List<String> keys = new ArrayList<>();
+        try (PrefixKeysIterator iterator = new PrefixKeysIterator(amazonS3, "bucket", "prefix", 1)) {
+            while (iterator.hasNext()) {
+                keys.add(iterator.next().getKey());
+            }
+            Assert.assertNull(iterator.next());
+        }
+
+        Assert.assertEquals(5, keys.size());
+        Assert.assertEquals("a", keys.get(0));
+        Assert.assertEquals("e", keys.get(4));
+    }
+
+    @Test(expected = AmazonS3Exception.class)
+    public void testListingFailureIsRethrown() {
+        AmazonS3 amazonS3 = mock(AmazonS3.class);
+        ObjectListing first = listing(true, "a");
+
+        when(amazonS3.listObjects(any(ListObjectsRequest.class))).thenReturn(first);
+        when(amazonS3.listNextBatchOfObjects(first)).thenThrow(new AmazonS3Exception("failed"));
+
+        try (PrefixKeysIterator iterator = new PrefixKeysIterator(amazonS3, "bucket", "prefix")) {
+            Assert.assertEquals("a", iterator.next().getKey());
+            iterator.hasNext();
+        }
+    }
+
+    private ObjectListing listing(boolean truncated, String... keys) {
+        ObjectListing objectListing = new ObjectListing();
+        objectListing.setTruncated(truncated);
+        for (String key : keys) {
+            S3ObjectSummary objectSummary = new S3ObjectSummary();
+            objectSummary.setKey(key);
+            objectListing.getObjectSummaries().add(objectSummary);
+        }
+        return objectListing;
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.gkatzioura.maven.cloud.s3.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.gkatzioura.maven.cloud.s3.ClientConfigurationProperty;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class S3ClientCacheTest {
+
+    private static final S3ClientCache.ClientKey KEY = new S3ClientCache.ClientKey("user", "secret", "eu-west-1", null, false, ClientConfigurationProperty.empty());
+
+    @Test
+    public void testClientIsSharedAndShutDownOnLastRelease() throws Exception {
+        S3ClientCache s3ClientCache = new S3ClientCache(0);
+        AmazonS3 amazonS3 = mock(AmazonS3.class);
+
+        AmazonS3 first = s3ClientCache.acquire(KEY, () -> amazonS3);
+        AmazonS3 second = s3ClientCache.acquire(new S3ClientCache.ClientKey("user", "secret", "eu-west-1", null, false, ClientConfigurationProperty.empty()), () -> mock(AmazonS3.class));
+        Assert.assertSame(first, second);
+
+        s3ClientCache.release(first);
+        verify(amazonS3, never()).shutdown();
+
+        s3ClientCache.release(second);
+        verify(amazonS3).shutdown();
+        Assert.assertEquals(0, s3ClientCache.size());
+    }
+
+    @Test
+    public void testIdleClientIsReused() throws Exception {
+        S3ClientCache s3ClientCache = new S3ClientCache(60000);
+        AmazonS3 amazonS3 = mock(AmazonS3.class);
+
+        s3ClientCache.release(s3ClientCache.acquire(KEY, () -> amazonS3));
+        AmazonS3 reused = s3ClientCache.acquire(KEY, () -> mock(AmazonS3.class));
+
+        Assert.assertSame(amazonS3, reused);
+        verify(amazonS3, never()).shutdown();
+    }
+
+    @Test
+    public void testDifferentSettingsUseDifferentClients() throws Exception {
+        S3ClientCache s3ClientCache = new S3ClientCache(0);
+
+        AmazonS3 first = s3ClientCache.acquire(KEY, () -> mock(AmazonS3.class));
+        AmazonS3 second = s3ClientCache.acquire(new S3ClientCache.ClientKey("user", "secret", "eu-west-1", null, true, ClientConfigurationProperty.empty()), () -> mock(AmazonS3.class));
+
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(2, s3ClientCache.size());
+    }
+
+}